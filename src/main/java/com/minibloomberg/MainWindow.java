@@ -3,6 +3,9 @@ package com.minibloomberg;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
@@ -10,9 +13,17 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 
+import com.minibloomberg.logic.BulkHistoryLoader;
 import com.minibloomberg.logic.LivePriceManager;
+import com.minibloomberg.logic.MarketDataSession;
+import com.minibloomberg.logic.QuoteService;
+import com.minibloomberg.logic.StockDataFetcher;
+import com.minibloomberg.logic.TickJournal;
+import com.minibloomberg.logic.TickReplay;
 import com.minibloomberg.logic.TradeTapeManager;
 import com.minibloomberg.logic.TradeTapeManager.TradeItem;
+import com.minibloomberg.logic.WatchlistStore;
+import com.minibloomberg.mock.MockMarketServer;
 import com.minibloomberg.ui.ComponentFactory;
 import com.minibloomberg.ui.FadeTransitionPanel;
 import com.minibloomberg.ui.NewsPanel;
@@ -21,6 +32,8 @@ import com.minibloomberg.ui.TickerDetailPanel;
 import com.minibloomberg.ui.TradeTapePanel;
 import com.minibloomberg.ui.WatchlistPanel;
 
+import io.github.cdimascio.dotenv.Dotenv;
+
 public class MainWindow extends JFrame {
     private final SearchController searchController;
 
@@ -39,10 +52,27 @@ public class MainWindow extends JFrame {
         topPanel.add(searchButton);
         add(topPanel, BorderLayout.NORTH);
 
+        // Company profiles for previously seen tickers, so their snapshots only need a quote.
+        // Read off the EDT; lookups before it finishes simply fetch
+        CompletableFuture<Void> profilesLoaded = CompletableFuture.runAsync(StockDataFetcher::preloadProfiles)
+                .exceptionally(error -> {
+                    System.err.println("[MainWindow] Failed to preload profiles: " + error.getMessage());
+                    return null;
+                });
+
+        // One WebSocket session shared by the watchlist and the trade tape
+        MarketDataSession marketDataSession = new MarketDataSession();
+        configureTickJournal(marketDataSession);
+
         // Create watchlist + live manager
         WatchlistPanel watchlistPanel = new WatchlistPanel(this::searchTicker);
-        LivePriceManager livePriceManager = new LivePriceManager(watchlistPanel);
+        LivePriceManager livePriceManager = new LivePriceManager(watchlistPanel, marketDataSession,
+                new WatchlistStore(WatchlistStore.defaultFile()));
         livePriceManager.connect();
+
+        // Bring back the saved watchlist and warm its daily history in the background, behind interactive requests
+        profilesLoaded.thenCompose(loaded -> livePriceManager.restoreWatchlist()).thenAccept(BulkHistoryLoader::warm);
+        QuoteService quoteService = new QuoteService(livePriceManager);
         watchlistPanel.setBackground(new Color(26, 26, 26));
         watchlistPanel.setPreferredSize(new Dimension(225, 0));
         add(watchlistPanel, BorderLayout.WEST);
@@ -57,14 +87,15 @@ public class MainWindow extends JFrame {
         add(newsPanel, BorderLayout.EAST);
 
 
-        TradeTapePanel tapePanel = getTradeTapePanel();
+        TradeTapePanel tapePanel = getTradeTapePanel(marketDataSession);
 
         add(tapePanel, BorderLayout.SOUTH); 
         TickerDetailPanel[] tickerDetailPanelHolder = new TickerDetailPanel[1];
         centerContainer.showWithFade(ComponentFactory.getEmptyPlaceholder());
 
         // Create controller
-        searchController = new SearchController(this, centerContainer, tickerDetailPanelHolder, livePriceManager);
+        searchController = new SearchController(this, centerContainer, tickerDetailPanelHolder, livePriceManager,
+                quoteService);
 
         // Search actions
         searchButton.addActionListener(e -> {
@@ -79,8 +110,30 @@ public class MainWindow extends JFrame {
         setVisible(true);
     }
 
-    private static TradeTapePanel getTradeTapePanel() {
-        TradeTapeManager manager = new TradeTapeManager();
+    /**
+     * Replays a recorded day when REPLAY_DATE is set in .env (at REPLAY_SPEED: 1, N or "max"),
+     * otherwise records the live feed when TICK_JOURNAL=true.
+     */
+    private static void configureTickJournal(MarketDataSession session) {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        String replayDate = dotenv.get("REPLAY_DATE", "");
+        try {
+            if (!replayDate.isBlank()) {
+                session.setReplay(new TickReplay(TickJournal.defaultDirectory(), LocalDate.parse(replayDate.trim()),
+                        TickReplay.parseSpeed(dotenv.get("REPLAY_SPEED", "1"))));
+            } else if (Boolean.parseBoolean(dotenv.get("TICK_JOURNAL", "false"))) {
+                TickJournal journal = new TickJournal(TickJournal.defaultDirectory());
+                session.setJournal(journal);
+                // Write out trades still queued and commit the segment when the window closes
+                Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "tick-journal-close"));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[MainWindow] Invalid tick journal settings: " + e.getMessage());
+        }
+    }
+
+    private static TradeTapePanel getTradeTapePanel(MarketDataSession session) {
+        TradeTapeManager manager = new TradeTapeManager(session);
         TradeTapePanel tapePanel = new TradeTapePanel(manager);
         manager.setTradeListener(new TradeTapeManager.TradeListener() {
             @Override
@@ -103,6 +156,13 @@ public class MainWindow extends JFrame {
     }
 
     public static void main(String[] args) {
+        if (MockMarketServer.isEnabled(args)) {
+            try {
+                MockMarketServer.startFromEnvironment();
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("[MainWindow] Failed to start mock market server: " + e.getMessage());
+            }
+        }
         SwingUtilities.invokeLater(MainWindow::new);
     }
 }
@@ -1,12 +1,95 @@
 package com.minibloomberg.data;
 
-import java.util.List;
-
 /**
- * Encapsulates historical time series data for a stock.
- *
- * @param timestamps   A list of epoch timestamps (in seconds) for each historical point.
- * @param closePrices  A list of closing prices corresponding to each timestamp.
+ * Encapsulates historical daily OHLCV time series data for a stock.
+ * Values are stored column-wise in primitive arrays, oldest bar first.
+ * A HistoricalData may be a zero-copy view over a window of a larger series;
+ * views share the underlying arrays and must not be modified.
  */
-public record HistoricalData(List<Long> timestamps, List<Double> closePrices) {
+public final class HistoricalData {
+
+    private final long[] timestamps;   // Epoch timestamps (in seconds) for each bar
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] adjClose;   // Split/dividend adjusted close
+    private final double[] volume;
+
+    private final int offset;
+    private final int length;
+
+    /**
+     * Wraps full columns. All arrays must have the same length.
+     */
+    public HistoricalData(long[] timestamps, double[] open, double[] high, double[] low,
+                          double[] close, double[] adjClose, double[] volume) {
+        this(timestamps, open, high, low, close, adjClose, volume, 0, timestamps.length);
+    }
+
+    private HistoricalData(long[] timestamps, double[] open, double[] high, double[] low,
+                           double[] close, double[] adjClose, double[] volume, int offset, int length) {
+        this.timestamps = timestamps;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.adjClose = adjClose;
+        this.volume = volume;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public long timestamp(int i) {
+        return timestamps[offset + i];
+    }
+
+    public double open(int i) {
+        return open[offset + i];
+    }
+
+    public double high(int i) {
+        return high[offset + i];
+    }
+
+    public double low(int i) {
+        return low[offset + i];
+    }
+
+    public double close(int i) {
+        return close[offset + i];
+    }
+
+    public double adjClose(int i) {
+        return adjClose[offset + i];
+    }
+
+    public double volume(int i) {
+        return volume[offset + i];
+    }
+
+    /**
+     * Returns a zero-copy view of bars [from, to) relative to this series.
+     */
+    public HistoricalData range(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside size " + length);
+        }
+        return new HistoricalData(timestamps, open, high, low, close, adjClose, volume, offset + from, to - from);
+    }
+
+    /**
+     * Returns a zero-copy view of the most recent {@code count} bars (or all bars if fewer).
+     */
+    public HistoricalData lastBars(int count) {
+        return range(Math.max(0, length - count), length);
+    }
 }
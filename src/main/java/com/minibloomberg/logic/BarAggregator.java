@@ -0,0 +1,234 @@
+package com.minibloomberg.logic;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.minibloomberg.data.HistoricalData;
+
+/**
+ * Builds 1-second, 1-minute and 5-minute OHLCV bars from the live trade stream, so the
+ * chart can show today's session without a REST call.
+ *
+ * Symbols are tracked with reference counts ({@link #track} / {@link #untrack}); while a
+ * symbol is tracked the aggregator is one of its consumers on the shared session. Bars
+ * are keyed on exchange time, so they roll when a trade's timestamp crosses the bar
+ * boundary, not when the trade happens to arrive. Minutes without trades produce no bar.
+ *
+ * Each symbol and resolution keeps a fixed-size ring of primitive columns, so memory is
+ * bounded however long the session runs and the socket thread allocates nothing per trade.
+ */
+public class BarAggregator {
+
+    public enum Resolution {
+        SECOND_1(1_000, 3_600),     // Last hour
+        MINUTE_1(60_000, 1_440),    // A full day, extended hours included
+        MINUTE_5(300_000, 288);
+
+        final long intervalMs;
+        final int capacity;
+
+        Resolution(long intervalMs, int capacity) {
+            this.intervalMs = intervalMs;
+            this.capacity = capacity;
+        }
+    }
+
+    private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+    private final MarketDataSession session;
+    private final TradeFrameParser.TradeHandler tradeHandler = this::onTrade;
+
+    private final Map<String, SymbolBars> bars = new ConcurrentHashMap<>();
+    private final Map<String, Integer> trackCounts = new ConcurrentHashMap<>();
+
+    public BarAggregator(MarketDataSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Starts building bars for a symbol, or adds a reference if it is already tracked.
+     */
+    public synchronized void track(String symbol) {
+        if (trackCounts.merge(symbol, 1, Integer::sum) == 1) {
+            bars.computeIfAbsent(symbol, s -> new SymbolBars());
+            session.subscribe(symbol, tradeHandler);
+        }
+    }
+
+    /**
+     * Drops a reference to a symbol; the last one stops aggregation and discards its bars.
+     */
+    public synchronized void untrack(String symbol) {
+        Integer count = trackCounts.get(symbol);
+        if (count == null) return;
+
+        if (count > 1) {
+            trackCounts.put(symbol, count - 1);
+        } else {
+            trackCounts.remove(symbol);
+            session.unsubscribe(symbol, tradeHandler);
+            bars.remove(symbol);
+        }
+    }
+
+    public boolean isTracked(String symbol) {
+        return trackCounts.containsKey(symbol);
+    }
+
+    /**
+     * Socket thread: folds one trade into every resolution of its symbol.
+     * Package-private so tests can feed trades without a socket.
+     */
+    void onTrade(String symbol, double price, double volume, long timestamp) {
+        SymbolBars symbolBars = bars.get(symbol);
+        if (symbolBars == null || Double.isNaN(price)) return;
+
+        for (BarRing ring : symbolBars.rings) {
+            ring.add(price, volume, timestamp);
+        }
+    }
+
+    /**
+     * Copies the bars of the latest trading day for a symbol, oldest first, with
+     * timestamps in epoch seconds. Returns an empty series if nothing has traded yet.
+     */
+    public HistoricalData sessionBars(String symbol, Resolution resolution) {
+        SymbolBars symbolBars = bars.get(symbol);
+        if (symbolBars == null) return BarRing.EMPTY;
+        return symbolBars.rings[resolution.ordinal()].sessionSnapshot();
+    }
+
+    private static final class SymbolBars {
+        final BarRing[] rings = new BarRing[Resolution.values().length];
+
+        SymbolBars() {
+            for (Resolution resolution : Resolution.values()) {
+                rings[resolution.ordinal()] = new BarRing(resolution);
+            }
+        }
+    }
+
+    /**
+     * Fixed-capacity ring of bars in primitive columns. Written by the socket thread and
+     * copied out by readers; both hold the ring's monitor only briefly.
+     */
+    private static final class BarRing {
+        static final HistoricalData EMPTY = new HistoricalData(new long[0], new double[0], new double[0],
+                new double[0], new double[0], new double[0], new double[0]);
+
+        final long intervalMs;
+        final int capacity;
+        final long[] starts;     // Bar start, epoch millis
+        final double[] open;
+        final double[] high;
+        final double[] low;
+        final double[] close;
+        final double[] volume;
+        final long[] lastTradeAt; // Exchange time of the trade that set the close
+
+        long count;              // Bars written so far; the newest is at (count - 1) % capacity
+
+        BarRing(Resolution resolution) {
+            this.intervalMs = resolution.intervalMs;
+            this.capacity = resolution.capacity;
+            this.starts = new long[capacity];
+            this.open = new double[capacity];
+            this.high = new double[capacity];
+            this.low = new double[capacity];
+            this.close = new double[capacity];
+            this.volume = new double[capacity];
+            this.lastTradeAt = new long[capacity];
+        }
+
+        synchronized void add(double price, double size, long timestamp) {
+            long start = timestamp - Math.floorMod(timestamp, intervalMs);
+
+            if (count > 0) {
+                int newest = (int) ((count - 1) % capacity);
+                if (start > starts[newest]) {
+                    openBar(start, price, size, timestamp);
+                } else if (start == starts[newest]) {
+                    update(newest, price, size, timestamp);
+                } else {
+                    late(start, price, size, timestamp);
+                }
+            } else {
+                openBar(start, price, size, timestamp);
+            }
+        }
+
+        private void openBar(long start, double price, double size, long timestamp) {
+            int slot = (int) (count % capacity);
+            starts[slot] = start;
+            open[slot] = high[slot] = low[slot] = close[slot] = price;
+            volume[slot] = size;
+            lastTradeAt[slot] = timestamp;
+            count++;
+        }
+
+        private void update(int slot, double price, double size, long timestamp) {
+            if (price > high[slot]) high[slot] = price;
+            if (price < low[slot]) low[slot] = price;
+            if (timestamp >= lastTradeAt[slot]) {
+                close[slot] = price;
+                lastTradeAt[slot] = timestamp;
+            }
+            volume[slot] += size;
+        }
+
+        /**
+         * A trade stamped before the newest bar: merge it into its bar if that is still in the
+         * ring. Bars are in ascending start order, so the search only walks back a few slots
+         * for the usual slightly-late trade.
+         */
+        private void late(long start, double price, double size, long timestamp) {
+            long oldest = Math.max(0, count - capacity);
+            for (long i = count - 2; i >= oldest; i--) {
+                int slot = (int) (i % capacity);
+                if (starts[slot] == start) {
+                    update(slot, price, size, timestamp);
+                    return;
+                }
+                if (starts[slot] < start) return;  // Fell in a gap with no bar; drop it
+            }
+        }
+
+        HistoricalData sessionSnapshot() {
+            long[] timestamps;
+            double[] o, h, l, c, v;
+            synchronized (this) {
+                if (count == 0) return EMPTY;
+
+                // Walk back from the newest bar to the start of its New York trading day
+                long newestIndex = count - 1;
+                long newestStart = starts[(int) (newestIndex % capacity)];
+                long dayStart = Instant.ofEpochMilli(newestStart).atZone(MARKET_ZONE).toLocalDate()
+                        .atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+                long first = newestIndex;
+                long oldest = Math.max(0, count - capacity);
+                while (first > oldest && starts[(int) ((first - 1) % capacity)] >= dayStart) first--;
+
+                int n = (int) (count - first);
+                timestamps = new long[n];
+                o = new double[n];
+                h = new double[n];
+                l = new double[n];
+                c = new double[n];
+                v = new double[n];
+                for (int k = 0; k < n; k++) {
+                    int slot = (int) ((first + k) % capacity);
+                    timestamps[k] = starts[slot] / 1000;
+                    o[k] = open[slot];
+                    h[k] = high[slot];
+                    l[k] = low[slot];
+                    c[k] = close[slot];
+                    v[k] = volume[slot];
+                }
+            }
+            // Intraday prices are unadjusted, so the close doubles as the adjusted close
+            return new HistoricalData(timestamps, o, h, l, c, c, v);
+        }
+    }
+}
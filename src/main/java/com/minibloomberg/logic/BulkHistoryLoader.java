@@ -0,0 +1,111 @@
+package com.minibloomberg.logic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.minibloomberg.logic.RequestScheduler.Priority;
+
+/**
+ * Warms the local history store for a whole set of symbols, such as the watchlist at startup.
+ *
+ * Every symbol is queued with the {@link RequestScheduler} at once, so the provider's rate
+ * limit is what bounds the number of downloads in flight and no thread sits blocked waiting
+ * for a token. Store reads, response parsing and store writes run on the history parser
+ * ForkJoin pool in {@link StockDataFetcher}; symbols whose stored history is already current
+ * finish without a request, and a symbol the user opens meanwhile shares its download. Each symbol's
+ * latency is reported as it completes, and a summary when the whole set is done.
+ */
+public class BulkHistoryLoader {
+
+    /**
+     * Called from a parser thread as each symbol finishes, successfully or not.
+     */
+    public interface ProgressListener {
+        void onSymbolLoaded(String symbol, boolean loaded, long latencyMs, int completed, int total);
+    }
+
+    /**
+     * Outcome of one bulk load.
+     *
+     * @param latencyMs time from submission to completion for each symbol, in submission order
+     * @param failed    symbols whose history could not be fetched
+     */
+    public record Summary(Map<String, Long> latencyMs, List<String> failed, long elapsedMs) {
+        public int loaded() {
+            return latencyMs.size() - failed.size();
+        }
+    }
+
+    private final Priority priority;
+
+    public BulkHistoryLoader(Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Starts loading every symbol in the set, ignoring duplicates.
+     * The future completes once all of them have finished; it never fails.
+     */
+    public CompletableFuture<Summary> load(Collection<String> symbols, ProgressListener listener) {
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(symbols));
+        int total = unique.size();
+        long startNanos = System.nanoTime();
+
+        Map<String, Long> latencies = new ConcurrentHashMap<>();
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger completed = new AtomicInteger();
+
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[total];
+        for (int i = 0; i < total; i++) {
+            String symbol = unique.get(i);
+            long submittedAt = System.nanoTime();
+            loads[i] = StockDataFetcher.fetchHistoricalDataAsync(symbol, priority)
+                    .handle((data, error) -> {
+                        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt);
+                        boolean loaded = error == null && data != null && !data.isEmpty();
+                        latencies.put(symbol, latencyMs);
+                        if (!loaded) failed.add(symbol);
+                        listener.onSymbolLoaded(symbol, loaded, latencyMs, completed.incrementAndGet(), total);
+                        return null;
+                    });
+        }
+
+        return CompletableFuture.allOf(loads).thenApply(done -> {
+            // Report latencies in the order the symbols were given
+            Map<String, Long> ordered = new LinkedHashMap<>();
+            for (String symbol : unique) ordered.put(symbol, latencies.get(symbol));
+            return new Summary(ordered, List.copyOf(failed),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        });
+    }
+
+    /**
+     * Loads the symbols in the background at watchlist priority, logging progress to the console.
+     */
+    public static CompletableFuture<Summary> warm(Collection<String> symbols) {
+        Set<String> unique = new LinkedHashSet<>(symbols);
+        if (unique.isEmpty()) return CompletableFuture.completedFuture(new Summary(Map.of(), List.of(), 0));
+
+        System.out.println("[BulkHistoryLoader] Loading history for " + unique.size() + " symbols");
+        return new BulkHistoryLoader(Priority.WATCHLIST)
+                .load(unique, (symbol, loaded, latencyMs, completed, total) ->
+                        System.out.printf("[BulkHistoryLoader] %d/%d %s %s in %d ms%n",
+                                completed, total, symbol, loaded ? "loaded" : "failed", latencyMs))
+                .thenApply(summary -> {
+                    System.out.printf("[BulkHistoryLoader] Loaded %d of %d symbols in %d ms%s%n",
+                            summary.loaded(), summary.latencyMs().size(), summary.elapsedMs(),
+                            summary.failed().isEmpty() ? "" : "; failed: " + String.join(", ", summary.failed()));
+                    return summary;
+                });
+    }
+}
@@ -0,0 +1,265 @@
+package com.minibloomberg.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.minibloomberg.data.HistoricalData;
+
+/**
+ * Local binary store for daily history, one memory-mapped file per symbol.
+ *
+ * File layout (little-endian):
+ * - Header: magic (int), format version (int), row count (int), row size in bytes (int)
+ * - Rows sorted by date, each: epoch seconds (long), open, high, low, close, adjusted close, volume (doubles)
+ *
+ * Files written by an unknown format version are ignored on load so the caller refetches,
+ * and {@link #compact(String)} rewrites a file in the current format.
+ */
+public class HistoryStore {
+
+    private static final int MAGIC = 0x4D424853; // "MBHS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ROW_SIZE = Long.BYTES + 6 * Double.BYTES;
+
+    private final Path directory;
+
+    public HistoryStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Default location under the user's home directory.
+     */
+    public static Path defaultDirectory() {
+        return MarketEndpoints.dataDirectory().resolve("history");
+    }
+
+    /**
+     * Returns whether a history file exists for the symbol.
+     */
+    public boolean contains(String symbol) {
+        return Files.isRegularFile(fileFor(symbol));
+    }
+
+    /**
+     * Memory-maps the symbol's file and reads it into a columnar series.
+     * Returns null if there is no file or it cannot be read in the current format.
+     */
+    public synchronized HistoricalData load(String symbol) {
+        Path file = fileFor(symbol);
+        if (!Files.isRegularFile(file)) return null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) return null;
+
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (map.getInt(0) != MAGIC || map.getInt(4) != FORMAT_VERSION || map.getInt(12) != ROW_SIZE) {
+                System.err.println("[HistoryStore] Ignoring " + file + ": unsupported format");
+                return null;
+            }
+
+            int storedRows = map.getInt(8);
+            if (storedRows < 0) {
+                System.err.println("[HistoryStore] Ignoring " + file + ": invalid row count " + storedRows);
+                return null;
+            }
+
+            // Trust only rows that were fully written
+            int rows = (int) Math.min(storedRows, (fileSize - HEADER_SIZE) / ROW_SIZE);
+
+            long[] timestamps = new long[rows];
+            double[] open = new double[rows];
+            double[] high = new double[rows];
+            double[] low = new double[rows];
+            double[] close = new double[rows];
+            double[] adjClose = new double[rows];
+            double[] volume = new double[rows];
+
+            int pos = HEADER_SIZE;
+            for (int i = 0; i < rows; i++, pos += ROW_SIZE) {
+                timestamps[i] = map.getLong(pos);
+                open[i] = map.getDouble(pos + 8);
+                high[i] = map.getDouble(pos + 16);
+                low[i] = map.getDouble(pos + 24);
+                close[i] = map.getDouble(pos + 32);
+                adjClose[i] = map.getDouble(pos + 40);
+                volume[i] = map.getDouble(pos + 48);
+            }
+
+            return new HistoricalData(timestamps, open, high, low, close, adjClose, volume);
+
+        } catch (IOException e) {
+            System.err.println("[HistoryStore] Failed to load " + symbol + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the symbol's file with the given series. The file is written to a temporary
+     * sibling and moved into place so readers never observe a half-written file.
+     */
+    public synchronized void save(String symbol, HistoricalData data) {
+        Path file = fileFor(symbol);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + data.size() * ROW_SIZE)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(data.size()).putInt(ROW_SIZE);
+                for (int i = 0; i < data.size(); i++) {
+                    putRow(buffer, data, i);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+
+        } catch (IOException e) {
+            System.err.println("[HistoryStore] Failed to save " + symbol + ": " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort; a stray temp file is harmless
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends bars newer than the last stored date through a writable mapping of the file tail.
+     * Rows are written before the header count is bumped, so an interrupted append is invisible.
+     * Falls back to a full rewrite when there is no compatible file yet.
+     *
+     * @return the number of bars appended
+     */
+    public synchronized int append(String symbol, HistoricalData newer) {
+        HistoricalData existing = load(symbol);
+        if (existing == null) {
+            save(symbol, newer);
+            return newer.size();
+        }
+
+        long lastStored = existing.isEmpty() ? Long.MIN_VALUE : existing.timestamp(existing.size() - 1);
+        int first = 0;
+        while (first < newer.size() && newer.timestamp(first) <= lastStored) first++;
+        int count = newer.size() - first;
+        if (count == 0) return 0;
+
+        Path file = fileFor(symbol);
+        int rows = existing.size();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long start = HEADER_SIZE + (long) rows * ROW_SIZE;
+            MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_WRITE, start, (long) count * ROW_SIZE);
+            tail.order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = first; i < newer.size(); i++) {
+                putRow(tail, newer, i);
+            }
+            tail.force();
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(8, rows + count);
+            header.force();
+            return count;
+
+        } catch (IOException e) {
+            System.err.println("[HistoryStore] Failed to append to " + symbol + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Rewrites a symbol's file in the current format: rows sorted by date, duplicates
+     * removed (the later row wins) and any trailing partial row dropped.
+     */
+    public synchronized void compact(String symbol) {
+        HistoricalData data = load(symbol);
+        if (data == null) return;
+
+        int n = data.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(data.timestamp(a), data.timestamp(b)));
+
+        int kept = 0;
+        int[] keep = new int[n];
+        for (int i = 0; i < n; i++) {
+            int idx = order[i];
+            if (kept > 0 && data.timestamp(keep[kept - 1]) == data.timestamp(idx)) {
+                keep[kept - 1] = idx;
+            } else {
+                keep[kept++] = idx;
+            }
+        }
+
+        long[] timestamps = new long[kept];
+        double[] open = new double[kept];
+        double[] high = new double[kept];
+        double[] low = new double[kept];
+        double[] close = new double[kept];
+        double[] adjClose = new double[kept];
+        double[] volume = new double[kept];
+        for (int i = 0; i < kept; i++) {
+            int idx = keep[i];
+            timestamps[i] = data.timestamp(idx);
+            open[i] = data.open(idx);
+            high[i] = data.high(idx);
+            low[i] = data.low(idx);
+            close[i] = data.close(idx);
+            adjClose[i] = data.adjClose(idx);
+            volume[i] = data.volume(idx);
+        }
+
+        save(symbol, new HistoricalData(timestamps, open, high, low, close, adjClose, volume));
+    }
+
+    /**
+     * Deletes a symbol's file, e.g. before a full re-download.
+     */
+    public synchronized void delete(String symbol) {
+        try {
+            Files.deleteIfExists(fileFor(symbol));
+        } catch (IOException e) {
+            System.err.println("[HistoryStore] Failed to delete " + symbol + ": " + e.getMessage());
+        }
+    }
+
+    private static void putRow(ByteBuffer buffer, HistoricalData data, int i) {
+        buffer.putLong(data.timestamp(i))
+                .putDouble(data.open(i))
+                .putDouble(data.high(i))
+                .putDouble(data.low(i))
+                .putDouble(data.close(i))
+                .putDouble(data.adjClose(i))
+                .putDouble(data.volume(i));
+    }
+
+    private Path fileFor(String symbol) {
+        return directory.resolve(symbol.toUpperCase().replaceAll("[^A-Z0-9._-]", "_") + ".bin");
+    }
+}
@@ -0,0 +1,304 @@
+package com.minibloomberg.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Shared asynchronous HTTP client used by every REST call in the app.
+ *
+ * A single {@link HttpClient} negotiates HTTP/2 where the server supports it and keeps
+ * connections pooled, so repeated calls to the same API reuse one TLS session.
+ * Requests ask for gzip and bodies are decoded transparently. Timeouts are read from
+ * HTTP_CONNECT_TIMEOUT_MS, HTTP_READ_TIMEOUT_MS and HTTP_BODY_TIMEOUT_MS in .env (defaults
+ * 5s, 15s and 60s). The read timeout bounds the wait for response headers and the whole
+ * exchange for string and JSON bodies. {@link #getStream} bodies are larger and are read
+ * as they arrive, so the body timeout instead bounds how long a read may wait for the next
+ * bytes. A request that times out is aborted.
+ *
+ * Results are CompletableFutures. A non-200 status completes the future exceptionally
+ * with an IOException.
+ */
+public final class HttpService {
+
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(readMillis("HTTP_CONNECT_TIMEOUT_MS", 5_000));
+    private static final Duration READ_TIMEOUT = Duration.ofMillis(readMillis("HTTP_READ_TIMEOUT_MS", 15_000));
+    private static final Duration BODY_TIMEOUT = Duration.ofMillis(readMillis("HTTP_BODY_TIMEOUT_MS", 60_000));
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    // Closes streamed bodies whose reads have stalled
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "http-body-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private HttpService() {
+    }
+
+    /**
+     * Fetches a URL and returns the decoded body as a stream, once the response headers are in.
+     * The body is read as it arrives, so it is never held in memory whole. A read that waits
+     * longer than the body timeout for bytes aborts the exchange and fails with an IOException,
+     * rather than blocking its reader forever. The caller must close the stream.
+     */
+    public static CompletableFuture<InputStream> getStream(String url) {
+        return getStream(url, BODY_TIMEOUT);
+    }
+
+    static CompletableFuture<InputStream> getStream(String url, Duration bodyTimeout) {
+        CompletableFuture<HttpResponse<InputStream>> exchange = send(url, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<InputStream> stream = exchange.thenApply(response -> {
+                    InputStream body = new StallGuardInputStream(response.body(), bodyTimeout);
+                    try {
+                        return decode(checkStatus(response), body);
+                    } catch (IOException e) {
+                        closeQuietly(body);
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        // A caller that gave up before the headers arrived never reads the body; close it
+        // so the pooled connection's stream is released
+        exchange.whenComplete((response, error) -> {
+            if (response != null && stream.isCancelled()) closeQuietly(response.body());
+        });
+        return propagateCancel(exchange, stream);
+    }
+
+    /**
+     * Fetches a URL and returns the whole decoded body as a UTF-8 string.
+     */
+    public static CompletableFuture<String> getString(String url) {
+        CompletableFuture<HttpResponse<byte[]>> exchange = send(url, HttpResponse.BodyHandlers.ofByteArray());
+        return withTimeout(exchange, exchange.thenApply(response -> {
+                    try {
+                        InputStream body = decode(response, new ByteArrayInputStream(checkStatus(response).body()));
+                        try (body) {
+                            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }), READ_TIMEOUT);
+    }
+
+    public static CompletableFuture<JSONObject> getJsonObject(String url) {
+        CompletableFuture<String> body = getString(url);
+        return propagateCancel(body, body.thenApply(JSONObject::new));
+    }
+
+    public static CompletableFuture<JSONArray> getJsonArray(String url) {
+        CompletableFuture<String> body = getString(url);
+        return propagateCancel(body, body.thenApply(JSONArray::new));
+    }
+
+    /**
+     * Cancelling a dependent future does not cancel the stage it was derived from.
+     * Link them so that cancelling what a caller holds also aborts the HTTP exchange.
+     */
+    public static <T> CompletableFuture<T> propagateCancel(CompletableFuture<?> source, CompletableFuture<T> derived) {
+        derived.whenComplete((value, error) -> {
+            if (derived.isCancelled()) source.cancel(true);
+        });
+        return derived;
+    }
+
+    /**
+     * Blocks for a result, for callers that are already off the EDT.
+     * Unwraps the failure so callers see the underlying IOException rather than a CompletionException.
+     * An interrupted caller cancels the future, so a request nobody is waiting for does not
+     * stay queued or in flight.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for response", e);
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        }
+    }
+
+    /**
+     * Closes a response body nobody is going to read, ignoring failures.
+     */
+    public static void closeQuietly(AutoCloseable body) {
+        try {
+            body.close();
+        } catch (Exception e) {
+            // Nothing useful to do; the connection is discarded either way
+        }
+    }
+
+    /**
+     * Converts a future's failure into an IOException with a readable message.
+     */
+    public static IOException asIOException(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof UncheckedIOException
+                || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof IOException io) return io;
+        if (error instanceof TimeoutException) {
+            return new IOException("Request timed out", error);
+        }
+        return new IOException(error.getMessage(), error);
+    }
+
+    /**
+     * Starts an exchange. A malformed URL fails the future rather than throwing, and the
+     * message leaves out the URL so API keys stay out of logs.
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> send(String url, HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(READ_TIMEOUT)
+                    .header("Accept-Encoding", "gzip")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            String reason = e.getCause() instanceof URISyntaxException syntax ? syntax.getReason() : "malformed";
+            return CompletableFuture.failedFuture(new IOException("Invalid request URL: " + reason));
+        }
+        return client.sendAsync(request, bodyHandler);
+    }
+
+    private static <T> HttpResponse<T> checkStatus(HttpResponse<T> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + describe(response.uri()));
+        }
+        return response;
+    }
+
+    /**
+     * Bounds the whole exchange for a buffered body, aborting it on timeout, and links
+     * cancellation back to it.
+     */
+    private static <T> CompletableFuture<T> withTimeout(CompletableFuture<?> exchange, CompletableFuture<T> derived,
+                                                        Duration timeout) {
+        derived.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) exchange.cancel(true);
+        });
+        return propagateCancel(exchange, derived);
+    }
+
+    private static InputStream decode(HttpResponse<?> response, InputStream body) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        return encoding.equalsIgnoreCase("gzip") ? new GZIPInputStream(body) : body;
+    }
+
+    /**
+     * Host and path only, so API keys in the query string never reach the logs.
+     */
+    private static String describe(URI uri) {
+        return uri.getHost() + uri.getPath();
+    }
+
+    /**
+     * Raw body stream that the watchdog closes, aborting the exchange, once a read has waited
+     * longer than the timeout for bytes. Time the caller spends between reads does not count,
+     * so a slow consumer is never cut off.
+     */
+    private static final class StallGuardInputStream extends FilterInputStream {
+        private final long timeoutNanos;
+        private final ScheduledFuture<?> check;
+        private volatile boolean reading;
+        private volatile long readStartedAt;   // System.nanoTime() when the pending read began
+        private volatile boolean stalled;
+
+        StallGuardInputStream(InputStream body, Duration timeout) {
+            super(body);
+            this.timeoutNanos = timeout.toNanos();
+            long periodMs = Math.max(10, timeout.toMillis() / 4);
+            this.check = watchdog.scheduleAtFixedRate(this::checkStalled, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void checkStalled() {
+            if (reading && System.nanoTime() - readStartedAt > timeoutNanos) {
+                stalled = true;
+                closeQuietly(this);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            beginRead();
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw stalled ? stalledException(e) : e;
+            } finally {
+                reading = false;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            beginRead();
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw stalled ? stalledException(e) : e;
+            } finally {
+                reading = false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            check.cancel(false);
+            super.close();
+        }
+
+        private void beginRead() throws IOException {
+            if (stalled) throw stalledException(null);
+            readStartedAt = System.nanoTime();
+            reading = true;
+        }
+
+        private IOException stalledException(IOException cause) {
+            return new IOException("No response data for " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", cause);
+        }
+    }
+
+    private static long readMillis(String key, long defaultValue) {
+        try {
+            return Long.parseLong(dotenv.get(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[HttpService] Invalid " + key + ", using " + defaultValue + " ms");
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.minibloomberg.logic;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+import com.minibloomberg.data.HistoricalData;
+
+/**
+ * Technical indicators over a bar series, kept as primitive output columns aligned with
+ * the series' bars: SMA(20), EMA(50), RSI(14, Wilder), MACD(12, 26, 9),
+ * Bollinger Bands(20, 2) and VWAP.
+ *
+ * Every indicator is updated in O(1) per bar from a few running sums, so there are two ways in:
+ * - {@link #load(HistoricalData)} fills the columns for a whole series in one pass
+ * - {@link #append} adds a completed bar, and {@link #updateForming} recomputes the last,
+ *   still-forming bar on every tick without disturbing the state the next bar builds on
+ *
+ * Outputs are NaN until an indicator has seen enough bars. VWAP is anchored at the first
+ * bar, or restarts each New York trading day for intraday series.
+ *
+ * Not thread-safe; the chart uses one engine per series from the EDT.
+ */
+public final class IndicatorEngine {
+
+    /**
+     * Indicators a chart can show. Each writes one or more {@link Output} columns.
+     */
+    public enum Study {
+        SMA, EMA, RSI, MACD, BOLLINGER, VWAP
+    }
+
+    public enum Output {
+        SMA, EMA, RSI, MACD, MACD_SIGNAL, MACD_HISTOGRAM, BOLLINGER_MIDDLE, BOLLINGER_UPPER, BOLLINGER_LOWER, VWAP
+    }
+
+    public static final int SMA_PERIOD = 20;
+    public static final int EMA_PERIOD = 50;
+    public static final int RSI_PERIOD = 14;
+    public static final int MACD_FAST = 12, MACD_SLOW = 26, MACD_SIGNAL = 9;
+    public static final int BOLLINGER_PERIOD = 20;
+    public static final double BOLLINGER_WIDTH = 2;
+
+    private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+    private static final int OUTPUTS = Output.values().length;
+
+    private final boolean sessionVwap;
+
+    private final Window sma = new Window(SMA_PERIOD);
+    private final Ema ema = new Ema(EMA_PERIOD);
+    private final Rsi rsi = new Rsi(RSI_PERIOD);
+    private final Ema macdFast = new Ema(MACD_FAST);
+    private final Ema macdSlow = new Ema(MACD_SLOW);
+    private final Ema macdSignal = new Ema(MACD_SIGNAL);
+    private final Window bollinger = new Window(BOLLINGER_PERIOD);
+    private final Vwap vwap = new Vwap();
+
+    // columns[output][bar]
+    private double[][] columns = new double[OUTPUTS][0];
+    private int committed;          // Completed bars
+    private boolean forming;        // Whether column slot [committed] holds a forming bar
+    private long firstTimestamp = Long.MIN_VALUE;
+
+    /**
+     * @param sessionVwap restart VWAP at each New York trading day (for intraday bars)
+     */
+    public IndicatorEngine(boolean sessionVwap) {
+        this.sessionVwap = sessionVwap;
+    }
+
+    /**
+     * Bulk path: recomputes every column for a series of completed bars.
+     */
+    public void load(HistoricalData data) {
+        reset();
+        int n = data.size();
+        ensureCapacity(n);
+        if (n > 0) firstTimestamp = data.timestamp(0);
+        for (int i = 0; i < n; i++) {
+            double factor = adjustment(data, i);
+            push(data.timestamp(i), data.high(i) * factor, data.low(i) * factor, data.adjClose(i), data.volume(i), i);
+        }
+        committed = n;
+    }
+
+    /**
+     * Brings the columns in line with a live series whose last bar is still forming:
+     * bars completed since the last call are appended and the last bar is recomputed.
+     * A series that no longer starts with the same bar (a new session) is reloaded.
+     */
+    public void sync(HistoricalData bars) {
+        int n = bars.size();
+        if (n == 0 || bars.timestamp(0) != firstTimestamp || n - 1 < committed) {
+            load(n > 0 ? bars.range(0, n - 1) : bars);
+            if (n == 0) return;
+        }
+
+        for (int i = committed; i < n - 1; i++) {
+            double factor = adjustment(bars, i);
+            append(bars.timestamp(i), bars.high(i) * factor, bars.low(i) * factor, bars.adjClose(i), bars.volume(i));
+        }
+        int last = n - 1;
+        double factor = adjustment(bars, last);
+        updateForming(bars.timestamp(last), bars.high(last) * factor, bars.low(last) * factor,
+                bars.adjClose(last), bars.volume(last));
+    }
+
+    /**
+     * Incremental path: adds a completed bar. Replaces the forming bar, if there is one.
+     */
+    public void append(long timestamp, double high, double low, double close, double volume) {
+        if (forming) {
+            rollback();
+            forming = false;
+        }
+        if (committed == 0) firstTimestamp = timestamp;
+        ensureCapacity(committed + 1);
+        push(timestamp, high, low, close, volume, committed);
+        committed++;
+    }
+
+    /**
+     * Incremental path: (re)computes the bar after the last completed one from its values
+     * so far. Called per tick, it undoes the previous call's effect first, so the cost is
+     * O(1) however often the bar changes.
+     */
+    public void updateForming(long timestamp, double high, double low, double close, double volume) {
+        if (forming) rollback();
+        else if (committed == 0) firstTimestamp = timestamp;
+        ensureCapacity(committed + 1);
+        mark();
+        push(timestamp, high, low, close, volume, committed);
+        forming = true;
+    }
+
+    /**
+     * Bars with values, including a forming bar.
+     */
+    public int size() {
+        return committed + (forming ? 1 : 0);
+    }
+
+    public double value(Output output, int bar) {
+        return columns[output.ordinal()][bar];
+    }
+
+    public void reset() {
+        sma.reset();
+        ema.reset();
+        rsi.reset();
+        macdFast.reset();
+        macdSlow.reset();
+        macdSignal.reset();
+        bollinger.reset();
+        vwap.reset();
+        committed = 0;
+        forming = false;
+        firstTimestamp = Long.MIN_VALUE;
+    }
+
+    /**
+     * Feeds one bar to every indicator and writes their outputs at column index i.
+     */
+    private void push(long timestamp, double high, double low, double close, double volume, int i) {
+        double[][] c = columns;
+
+        sma.add(close);
+        c[Output.SMA.ordinal()][i] = sma.isFull() ? sma.mean() : Double.NaN;
+
+        c[Output.EMA.ordinal()][i] = ema.add(close);
+        c[Output.RSI.ordinal()][i] = rsi.add(close);
+
+        double fast = macdFast.add(close);
+        double slow = macdSlow.add(close);
+        double macd = fast - slow;
+        double signal = Double.isNaN(macd) ? Double.NaN : macdSignal.add(macd);
+        c[Output.MACD.ordinal()][i] = macd;
+        c[Output.MACD_SIGNAL.ordinal()][i] = signal;
+        c[Output.MACD_HISTOGRAM.ordinal()][i] = macd - signal;
+
+        bollinger.add(close);
+        if (bollinger.isFull()) {
+            double mean = bollinger.mean();
+            double band = BOLLINGER_WIDTH * bollinger.standardDeviation();
+            c[Output.BOLLINGER_MIDDLE.ordinal()][i] = mean;
+            c[Output.BOLLINGER_UPPER.ordinal()][i] = mean + band;
+            c[Output.BOLLINGER_LOWER.ordinal()][i] = mean - band;
+        } else {
+            c[Output.BOLLINGER_MIDDLE.ordinal()][i] = Double.NaN;
+            c[Output.BOLLINGER_UPPER.ordinal()][i] = Double.NaN;
+            c[Output.BOLLINGER_LOWER.ordinal()][i] = Double.NaN;
+        }
+
+        long day = sessionVwap ? tradingDay(timestamp) : 0;
+        c[Output.VWAP.ordinal()][i] = vwap.add(day, (high + low + close) / 3, volume);
+    }
+
+    private void mark() {
+        sma.mark();
+        ema.mark();
+        rsi.mark();
+        macdFast.mark();
+        macdSlow.mark();
+        macdSignal.mark();
+        bollinger.mark();
+        vwap.mark();
+    }
+
+    private void rollback() {
+        sma.rollback();
+        ema.rollback();
+        rsi.rollback();
+        macdFast.rollback();
+        macdSlow.rollback();
+        macdSignal.rollback();
+        bollinger.rollback();
+        vwap.rollback();
+    }
+
+    private void ensureCapacity(int bars) {
+        if (columns[0].length >= bars) return;
+        int capacity = Math.max(bars, columns[0].length * 2);
+        for (int o = 0; o < OUTPUTS; o++) {
+            columns[o] = Arrays.copyOf(columns[o], capacity);
+        }
+    }
+
+    /**
+     * Split/dividend factor that puts a bar's raw high and low on the adjusted-close scale.
+     */
+    private static double adjustment(HistoricalData data, int i) {
+        double close = data.close(i);
+        return close > 0 ? data.adjClose(i) / close : 1;
+    }
+
+    private static long tradingDay(long epochSecond) {
+        int offset = MARKET_ZONE.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        return Math.floorDiv(epochSecond + offset, 86_400L);
+    }
+
+    /**
+     * Sliding window with running sum and sum of squares, for SMA and Bollinger Bands.
+     */
+    private static final class Window {
+        final double[] values;
+        int pos, count;
+        double sum, sumSquares;
+
+        // State saved by mark(), including the slot the next add overwrites
+        int savedPos, savedCount;
+        double savedSum, savedSumSquares, savedSlot;
+
+        Window(int period) {
+            values = new double[period];
+        }
+
+        void add(double x) {
+            if (count == values.length) {
+                double old = values[pos];
+                sum -= old;
+                sumSquares -= old * old;
+            } else {
+                count++;
+            }
+            values[pos] = x;
+            pos = (pos + 1) % values.length;
+            sum += x;
+            sumSquares += x * x;
+        }
+
+        boolean isFull() {
+            return count == values.length;
+        }
+
+        double mean() {
+            return sum / count;
+        }
+
+        double standardDeviation() {
+            double mean = mean();
+            return Math.sqrt(Math.max(0, sumSquares / count - mean * mean));
+        }
+
+        void reset() {
+            pos = count = 0;
+            sum = sumSquares = 0;
+        }
+
+        void mark() {
+            savedPos = pos;
+            savedCount = count;
+            savedSum = sum;
+            savedSumSquares = sumSquares;
+            savedSlot = values[pos];
+        }
+
+        void rollback() {
+            pos = savedPos;
+            count = savedCount;
+            sum = savedSum;
+            sumSquares = savedSumSquares;
+            values[pos] = savedSlot;
+        }
+    }
+
+    /**
+     * Exponential moving average seeded with the simple average of its first period.
+     */
+    private static final class Ema {
+        final int period;
+        final double alpha;
+        int count;
+        double value, seedSum;
+        int savedCount;
+        double savedValue, savedSeedSum;
+
+        Ema(int period) {
+            this.period = period;
+            this.alpha = 2.0 / (period + 1);
+        }
+
+        double add(double x) {
+            if (count < period) {
+                seedSum += x;
+                count++;
+                if (count < period) return Double.NaN;
+                value = seedSum / period;
+            } else {
+                value += alpha * (x - value);
+            }
+            return value;
+        }
+
+        void reset() {
+            count = 0;
+            value = seedSum = 0;
+        }
+
+        void mark() {
+            savedCount = count;
+            savedValue = value;
+            savedSeedSum = seedSum;
+        }
+
+        void rollback() {
+            count = savedCount;
+            value = savedValue;
+            seedSum = savedSeedSum;
+        }
+    }
+
+    /**
+     * Relative strength index with Wilder's smoothing.
+     */
+    private static final class Rsi {
+        final int period;
+        int changes;
+        double previous = Double.NaN, averageGain, averageLoss;
+        int savedChanges;
+        double savedPrevious, savedAverageGain, savedAverageLoss;
+
+        Rsi(int period) {
+            this.period = period;
+        }
+
+        double add(double x) {
+            double prior = previous;
+            previous = x;
+            if (Double.isNaN(prior)) return Double.NaN;
+
+            double change = x - prior;
+            double gain = Math.max(0, change);
+            double loss = Math.max(0, -change);
+            if (changes < period) {
+                averageGain += gain / period;
+                averageLoss += loss / period;
+                changes++;
+                if (changes < period) return Double.NaN;
+            } else {
+                averageGain = (averageGain * (period - 1) + gain) / period;
+                averageLoss = (averageLoss * (period - 1) + loss) / period;
+            }
+            if (averageLoss == 0) return averageGain == 0 ? 50 : 100;
+            return 100 - 100 / (1 + averageGain / averageLoss);
+        }
+
+        void reset() {
+            changes = 0;
+            previous = Double.NaN;
+            averageGain = averageLoss = 0;
+        }
+
+        void mark() {
+            savedChanges = changes;
+            savedPrevious = previous;
+            savedAverageGain = averageGain;
+            savedAverageLoss = averageLoss;
+        }
+
+        void rollback() {
+            changes = savedChanges;
+            previous = savedPrevious;
+            averageGain = savedAverageGain;
+            averageLoss = savedAverageLoss;
+        }
+    }
+
+    /**
+     * Volume-weighted average of the typical price, restarting when the day key changes.
+     */
+    private static final class Vwap {
+        long day = Long.MIN_VALUE;
+        double priceVolume, volume;
+        long savedDay;
+        double savedPriceVolume, savedVolume;
+
+        double add(long barDay, double typicalPrice, double barVolume) {
+            if (barDay != day) {
+                day = barDay;
+                priceVolume = volume = 0;
+            }
+            priceVolume += typicalPrice * barVolume;
+            volume += barVolume;
+            return volume > 0 ? priceVolume / volume : typicalPrice;
+        }
+
+        void reset() {
+            day = Long.MIN_VALUE;
+            priceVolume = volume = 0;
+        }
+
+        void mark() {
+            savedDay = day;
+            savedPriceVolume = priceVolume;
+            savedVolume = volume;
+        }
+
+        void rollback() {
+            day = savedDay;
+            priceVolume = savedPriceVolume;
+            volume = savedVolume;
+        }
+    }
+}
@@ -1,121 +1,168 @@
 package com.minibloomberg.logic;
 
-import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.minibloomberg.data.Stock;
-import org.java_websocket.client.WebSocketClient;
-import org.java_websocket.handshake.ServerHandshake;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.minibloomberg.logic.RequestScheduler.Priority;
 
 import com.minibloomberg.ui.WatchlistPanel;
 
-import io.github.cdimascio.dotenv.Dotenv;
-
 /**
- * Handles real-time price updates using Finnhub's WebSocket API.
+ * Handles real-time watchlist price updates from the shared Finnhub WebSocket session.
  * Responsible for:
  * - Subscribing/unsubscribing to live ticker feeds
  * - Storing latest price and change percentage
+ * - Building intraday bars for watchlist tickers through its {@link BarAggregator}
+ * - Saving the watchlist and restoring it on the next start
  * - Updating the UI (watchlist) with current trade data
  */
 public class LivePriceManager {
 
-    // Stores latest trade data for each subscribed ticker
+    // Stores latest trade data for each subscribed ticker, updated in place on every trade
     private final Map<String, TradeData> tickerData = new ConcurrentHashMap<>();
 
-    // Stores previous closing prices for change percentage calculation
-    private final Map<String, Double> basePrices = new ConcurrentHashMap<>();
+    // Tickers whose price changed since the last publish to the watchlist
+    private final Set<String> dirtySymbols = ConcurrentHashMap.newKeySet();
+
+    // Publish cadence: fast while prices are moving, backing off to the idle rate when quiet
+    private static final long ACTIVE_PUBLISH_INTERVAL_MS = 200;
+    private static final long IDLE_PUBLISH_INTERVAL_MS = 1000;
+    private long publishIntervalMs = IDLE_PUBLISH_INTERVAL_MS;
 
     // Reference to the UI panel that displays watchlist tickers
     private final WatchlistPanel watchlistPanel;
 
-    // WebSocket client for real-time communication
-    private WebSocketClient client;
+    // Shared WebSocket session that delivers trades for subscribed tickers
+    private final MarketDataSession session;
+    private final TradeFrameParser.TradeHandler tradeHandler = this::onTrade;
+
+    // Intraday bars for watchlist tickers and any ticker a detail view is showing
+    private final BarAggregator barAggregator;
+
+    // Watchlist symbols to restore on the next start, in the order they were added. Includes
+    // saved symbols that could not be restored this run, so a network failure doesn't drop them
+    private final WatchlistStore watchlistStore;
+    private final Set<String> savedTickers = new LinkedHashSet<>();
 
-    // Schedules periodic tasks (UI updates and WebSocket pings)
+    // Schedules watchlist publishing and saves
     private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
 
-    public LivePriceManager(WatchlistPanel panel) {
+    public LivePriceManager(WatchlistPanel panel, MarketDataSession session, WatchlistStore watchlistStore) {
         this.watchlistPanel = panel;
+        this.session = session;
+        this.watchlistStore = watchlistStore;
+        this.barAggregator = new BarAggregator(session);
+    }
+
+    public BarAggregator getBarAggregator() {
+        return barAggregator;
     }
 
     /**
-     * Establishes WebSocket connection, subscribes to tickers,
-     * and sets up periodic updates to the watchlist panel.
+     * Opens the shared WebSocket session and starts publishing updates to the watchlist panel.
      */
     public void connect() {
-        Dotenv dotenv = Dotenv.load();
-        String apiKey = dotenv.get("FINNHUB_API_KEY");
-
-        try {
-            client = new WebSocketClient(new URI("wss://ws.finnhub.io?token=" + apiKey)) {
-
-                @Override
-                public void onOpen(ServerHandshake handshake) {
-                    // Resubscribe to all tickers on (re)connect
-                    for (String symbol : tickerData.keySet()) {
-                        send("{\"type\":\"subscribe\",\"symbol\":\"" + symbol + "\"}");
-                    }
-                }
-
-                @Override
-                public void onMessage(String message) {
-                    JSONObject json = new JSONObject(message);
-                    if (!json.has("data")) return;
-
-                    JSONArray dataArray = json.getJSONArray("data");
-                    for (int i = 0; i < dataArray.length(); i++) {
-                        JSONObject trade = dataArray.getJSONObject(i);
-                        String symbol = trade.getString("s");
-                        double price = trade.getDouble("p");
+        session.connect();
+        executor.schedule(this::publishDirtyTickers, 0, TimeUnit.MILLISECONDS);
+    }
 
-                        // Calculate percent change from previous close
-                        double base = basePrices.get(symbol);
-                        double change = ((price - base) / base) * 100.0;
+    /**
+     * Reads the saved watchlist off the calling thread and re-adds each ticker once its
+     * snapshot arrives, in saved order. The future completes with the saved symbols as soon
+     * as they are read, so their histories can be warmed while the snapshots load.
+     */
+    public CompletableFuture<List<String>> restoreWatchlist() {
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> symbols = watchlistStore.load();
+            synchronized (savedTickers) {
+                savedTickers.addAll(symbols);
+            }
 
-                        // Update trade data
-                        tickerData.put(symbol, new TradeData(price, change));
+            List<CompletableFuture<Stock>> snapshots = new ArrayList<>();
+            for (String symbol : symbols) {
+                snapshots.add(StockDataFetcher.fetchStockSnapshotAsync(symbol, Priority.WATCHLIST)
+                        .exceptionally(e -> null));
+            }
+            CompletableFuture.allOf(snapshots.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+                for (int i = 0; i < symbols.size(); i++) {
+                    Stock snapshot = snapshots.get(i).join();
+                    if (snapshot != null) {
+                        addTicker(snapshot);
+                    } else {
+                        System.err.println("[LivePriceManager] Could not restore " + symbols.get(i) + "; keeping it saved");
                     }
                 }
+            });
+            return symbols;
+        }, executor);
+    }
 
-                @Override
-                public void onClose(int code, String reason, boolean remote) {
-                    System.err.printf("[WebSocket] Closed: Code=%d Reason=%s Remote=%b%n", code, reason, remote);
-                }
+    private void saveWatchlist() {
+        List<String> symbols;
+        synchronized (savedTickers) {
+            symbols = List.copyOf(savedTickers);
+        }
+        executor.execute(() -> watchlistStore.save(symbols));
+    }
 
-                @Override
-                public void onError(Exception ex) {
-                    System.err.println("[WebSocket] Error occurred:");
+    /**
+     * Pushes only the tickers that changed since the last run to the watchlist, as one batch,
+     * then reschedules itself: quickly while trades are arriving, doubling back to the idle
+     * interval when nothing changed.
+     */
+    private void publishDirtyTickers() {
+        try {
+            List<WatchlistPanel.TickerUpdate> batch = new ArrayList<>();
+            Iterator<String> it = dirtySymbols.iterator();
+            while (it.hasNext()) {
+                String symbol = it.next();
+                it.remove();
+
+                TradeData trade = tickerData.get(symbol);
+                if (trade != null) {
+                    batch.add(new WatchlistPanel.TickerUpdate(symbol, trade.price, trade.changePercent));
                 }
-            };
-
-            client.connect();
+            }
 
-        } catch (Exception e) {
-            System.err.println("[Critical] Failed to establish WebSocket connection:");
+            if (!batch.isEmpty()) {
+                watchlistPanel.updateTickers(batch);
+                publishIntervalMs = ACTIVE_PUBLISH_INTERVAL_MS;
+            } else {
+                publishIntervalMs = Math.min(publishIntervalMs * 2, IDLE_PUBLISH_INTERVAL_MS);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[LivePriceManager] Failed to publish updates: " + e.getMessage());
+        } finally {
+            executor.schedule(this::publishDirtyTickers, publishIntervalMs, TimeUnit.MILLISECONDS);
         }
+    }
 
-        // Periodically push latest trade updates to the UI
-        executor.scheduleAtFixedRate(() -> {
-            for (Map.Entry<String, TradeData> entry : tickerData.entrySet()) {
-                String symbol = entry.getKey();
-                TradeData trade = entry.getValue();
-                watchlistPanel.updateTicker(symbol, trade.price(), trade.changePercent());
-            }
-        }, 0, 1, TimeUnit.SECONDS);
+    /**
+     * Applies a single decoded trade to the stored ticker state. Sessions follow the time
+     * the trade arrived rather than its exchange stamp, so a replayed day updates the
+     * watchlist just like a live one.
+     */
+    void onTrade(String symbol, double price, double volume, long timestamp) {
+        TradeData trade = tickerData.get(symbol);
+        if (trade == null || Double.isNaN(price)) return;
 
-        // Periodically ping WebSocket to keep connection alive
-        executor.scheduleAtFixedRate(() -> {
-            if (client != null && client.isOpen()) {
-                client.send("ping");
-            }
-        }, 0, 30, TimeUnit.SECONDS);
+        trade.apply(price, System.currentTimeMillis());
+        dirtySymbols.add(symbol);
     }
 
     /**
@@ -128,14 +175,19 @@ public class LivePriceManager {
             double price = stock.currentPrice();
             double percentChange = stock.percentChange();
 
-            tickerData.put(symbol, new TradeData(price, percentChange));
-            basePrices.put(symbol, stock.previousClose());
+            tickerData.put(symbol, new TradeData(stock.companyName(), price, percentChange,
+                    stock.previousClose(), stock.dayHigh(), stock.dayLow()));
 
             watchlistPanel.updateTicker(symbol, price, percentChange);
 
-            if (client != null && client.isOpen()) {
-                client.send("{\"type\":\"subscribe\",\"symbol\":\"" + symbol + "\"}");
+            session.subscribe(symbol, tradeHandler);
+            barAggregator.track(symbol);
+
+            boolean added;
+            synchronized (savedTickers) {
+                added = savedTickers.add(symbol);
             }
+            if (added) saveWatchlist();
         }
     }
 
@@ -143,12 +195,17 @@ public class LivePriceManager {
      * Removes a ticker from the live feed and UI.
      */
     public void removeTicker(String symbol) {
-        tickerData.remove(symbol);
-        basePrices.remove(symbol);
-
-        if (client != null && client.isOpen()) {
-            client.send("{\"type\":\"unsubscribe\",\"symbol\":\"" + symbol + "\"}");
+        boolean forgotten;
+        synchronized (savedTickers) {
+            forgotten = savedTickers.remove(symbol);
         }
+        if (forgotten) saveWatchlist();
+
+        if (tickerData.remove(symbol) == null) return;
+        dirtySymbols.remove(symbol);
+
+        session.unsubscribe(symbol, tradeHandler);
+        barAggregator.untrack(symbol);
 
         watchlistPanel.removeTicker(symbol);
     }
@@ -161,11 +218,108 @@ public class LivePriceManager {
     }
 
     /**
-     * Immutable trade data structure.
+     * Builds a snapshot for a subscribed ticker from its live trade state, without any
+     * network call. Returns null if the ticker is not on the live feed.
+     */
+    public Stock getLiveSnapshot(String symbol) {
+        TradeData trade = tickerData.get(symbol);
+        if (trade == null) return null;
+
+        double price = trade.price;
+        double base = trade.basePrice;
+        return new Stock(
+                symbol,
+                trade.companyName,
+                price,
+                price - base,
+                ((price - base) / base) * 100.0,
+                base,
+                trade.dayHigh,
+                trade.dayLow
+        );
+    }
+
+    /**
+     * Mutable per-ticker trade state. Fields are overwritten by the socket thread on
+     * every trade so the hot path allocates nothing; readers may see a price and
+     * change percent from adjacent trades, which is harmless for display.
      *
-     * @param price         Current price of the ticker
-     * @param changePercent Percent change from previous close
+     * The first trade received on a new New York day rolls the state over, so live
+     * snapshots never report yesterday's change and range: the last regular-hours price
+     * becomes the base for the change, and the day range restarts.
      */
-    public record TradeData(double price, double changePercent) {
+    public static final class TradeData {
+        private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+        private static final LocalTime REGULAR_OPEN = LocalTime.of(9, 30);
+        private static final LocalTime REGULAR_CLOSE = LocalTime.of(16, 1);    // Includes the closing cross
+
+        final String companyName;       // Company name from the snapshot the ticker was added with
+        volatile double price;          // Current price of the ticker
+        volatile double changePercent;  // Percent change from previous close
+        volatile double basePrice;      // Previous close used for change calculation
+        volatile double dayHigh;        // Session high, extended by live trades
+        volatile double dayLow;         // Session low, extended by live trades
+
+        // Current session by receive time, epoch millis (socket thread only after construction)
+        long regularOpenAt, regularCloseAt, nextSessionAt;
+        double sessionClose;            // Last regular-hours price this session; the next session's base
+
+        TradeData(String companyName, double price, double changePercent, double basePrice,
+                  double dayHigh, double dayLow) {
+            this(companyName, price, changePercent, basePrice, dayHigh, dayLow, System.currentTimeMillis());
+        }
+
+        TradeData(String companyName, double price, double changePercent, double basePrice,
+                  double dayHigh, double dayLow, long now) {
+            this.companyName = companyName;
+            this.price = price;
+            this.changePercent = changePercent;
+            this.basePrice = basePrice;
+            this.dayHigh = Double.isNaN(dayHigh) ? price : dayHigh;
+            this.dayLow = Double.isNaN(dayLow) || dayLow <= 0 ? price : dayLow;
+            this.sessionClose = price;
+
+            // Before the open the snapshot still describes the previous session, so today's
+            // first trade rolls over onto the snapshot price
+            ZonedDateTime at = Instant.ofEpochMilli(now).atZone(MARKET_ZONE);
+            setSession(at.toLocalDate());
+            if (at.toLocalTime().isBefore(REGULAR_OPEN)) {
+                nextSessionAt = at.toLocalDate().atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+            }
+        }
+
+        /**
+         * Applies a trade that arrived at {@code receivedAt}, rolling over first if it is
+         * the first one of a later session.
+         */
+        void apply(double price, long receivedAt) {
+            if (receivedAt >= nextSessionAt) {
+                setSession(Instant.ofEpochMilli(receivedAt).atZone(MARKET_ZONE).toLocalDate());
+                basePrice = sessionClose;
+                dayHigh = dayLow = price;
+            }
+
+            // Calculate percent change from previous close
+            double base = basePrice;
+            this.price = price;
+            changePercent = ((price - base) / base) * 100.0;
+            if (price > dayHigh) dayHigh = price;
+            if (price < dayLow) dayLow = price;
+            if (receivedAt >= regularOpenAt && receivedAt < regularCloseAt) sessionClose = price;
+        }
+
+        private void setSession(LocalDate day) {
+            regularOpenAt = day.atTime(REGULAR_OPEN).atZone(MARKET_ZONE).toInstant().toEpochMilli();
+            regularCloseAt = day.atTime(REGULAR_CLOSE).atZone(MARKET_ZONE).toInstant().toEpochMilli();
+            nextSessionAt = day.plusDays(1).atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+        }
+
+        public double price() {
+            return price;
+        }
+
+        public double changePercent() {
+            return changePercent;
+        }
     }
 }
@@ -0,0 +1,423 @@
+package com.minibloomberg.logic;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.handshake.ServerHandshake;
+import org.json.JSONObject;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Single shared Finnhub WebSocket session used by every live-data consumer.
+ * Responsible for:
+ * - Reference-counting symbol subscriptions across consumers
+ * - Coalescing subscribe/unsubscribe changes and sending them in batches
+ * - Parsing each frame once and fanning trades out to the consumers of that symbol
+ * - Reconnecting with exponential backoff when the socket drops, restoring every subscription
+ * - Optionally recording every trade to a {@link TickJournal}, or replaying a recorded
+ *   day through the same path instead of opening the socket
+ */
+public class MarketDataSession {
+
+    private static final long FLUSH_DELAY_MS = 100;
+
+    // Lets consumers registered during startup subscribe before a replay begins
+    private static final long REPLAY_START_DELAY_MS = 1_000;
+
+    // Backoff between reconnect attempts after the socket drops
+    private static final long RECONNECT_MIN_DELAY_MS = 1_000;
+    private static final long RECONNECT_MAX_DELAY_MS = 60_000;
+
+    // Bounds each TCP connect, so an unreachable host fails the attempt instead of hanging it
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+
+    // Active subscriptions keyed by symbol; each holds the consumers interested in it
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    // Net subscription changes not yet sent (true = subscribe, false = unsubscribe)
+    private final Map<String, Boolean> pendingChanges = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    private final TradeFrameParser frameParser = new TradeFrameParser();
+    private final TradeFrameParser.TradeHandler dispatcher = new TradeFrameParser.TradeHandler() {
+        @Override
+        public void onTrade(String symbol, double price, double volume, long timestamp) {
+            if (journal != null) journal.append(symbol, price, volume, timestamp, frameReceivedAt);
+            dispatch(symbol, price, volume, timestamp);
+        }
+
+        @Override
+        public void onFrameEnd() {
+            endFrame();
+        }
+    };
+
+    // Consumers that received trades in the frame being parsed (socket thread only)
+    private TradeFrameParser.TradeHandler[] frameConsumers = new TradeFrameParser.TradeHandler[4];
+    private int frameConsumerCount;
+
+    // Schedules batched subscription flushes, WebSocket pings and reconnects
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    private WebSocketClient client;
+    private final String socketUrl;
+    private final long reconnectMinDelayMs;
+    private final long reconnectMaxDelayMs;
+    private long reconnectDelayMs;
+    private boolean reconnectScheduled = false;
+
+    private TickJournal journal;
+    private TickReplay replay;
+    private Thread replayThread;
+
+    // Arrival time of the frame being parsed (socket thread only)
+    private long frameReceivedAt;
+
+    public MarketDataSession() {
+        this(null, RECONNECT_MIN_DELAY_MS, RECONNECT_MAX_DELAY_MS);
+    }
+
+    /**
+     * @param socketUrl WebSocket URL to use instead of the configured Finnhub endpoint, or null
+     */
+    MarketDataSession(String socketUrl, long reconnectMinDelayMs, long reconnectMaxDelayMs) {
+        this.socketUrl = socketUrl;
+        this.reconnectMinDelayMs = reconnectMinDelayMs;
+        this.reconnectMaxDelayMs = reconnectMaxDelayMs;
+        this.reconnectDelayMs = reconnectMinDelayMs;
+    }
+
+    /**
+     * Records every received trade to the journal. Call before {@link #connect()}.
+     */
+    public synchronized void setJournal(TickJournal journal) {
+        this.journal = journal;
+        journal.start();
+    }
+
+    /**
+     * Feeds consumers from a recorded day instead of the live socket. Call before {@link #connect()}.
+     */
+    public synchronized void setReplay(TickReplay replay) {
+        this.replay = replay;
+    }
+
+    public boolean isReplaying() {
+        return replay != null;
+    }
+
+    /**
+     * Symbols in the day being replayed, or an empty set on a live session.
+     */
+    public Set<String> getReplaySymbols() {
+        return replay != null ? replay.getSymbols() : Set.of();
+    }
+
+    /**
+     * Opens the WebSocket connection and starts the keep-alive ping.
+     * Subscriptions registered before the socket opens are sent once it does.
+     * Calling it again while the socket is down brings the next reconnect attempt forward.
+     */
+    public synchronized void connect() {
+        if (replay != null) {
+            startReplay();
+            return;
+        }
+        if (client != null) {
+            if (!isOpen()) {
+                reconnectDelayMs = reconnectMinDelayMs;
+                scheduleReconnect();
+            }
+            return;
+        }
+
+        String url = socketUrl;
+        if (url == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            url = MarketEndpoints.finnhubSocket() + "?token=" + dotenv.get("FINNHUB_API_KEY");
+        }
+
+        try {
+            client = new WebSocketClient(new URI(url), new Draft_6455(), null, CONNECT_TIMEOUT_MS) {
+
+                @Override
+                public void onOpen(ServerHandshake handshake) {
+                    synchronized (MarketDataSession.this) {
+                        reconnectDelayMs = reconnectMinDelayMs;
+                    }
+                    resubscribeAll();
+                }
+
+                @Override
+                public void onMessage(String message) {
+                    frameReceivedAt = System.currentTimeMillis();
+                    try {
+                        if (!frameParser.parse(message, dispatcher)) {
+                            handleControlMessage(message);
+                        }
+                    } catch (RuntimeException e) {
+                        System.err.println("[MarketDataSession] Dropped unreadable message: " + e.getMessage());
+                    }
+                }
+
+                @Override
+                public void onClose(int code, String reason, boolean remote) {
+                    System.err.printf("[MarketDataSession] Closed: Code=%d Reason=%s Remote=%b%n", code, reason, remote);
+                    scheduleReconnect();
+                }
+
+                @Override
+                public void onError(Exception ex) {
+                    System.err.println("[MarketDataSession] WebSocket error: " + ex.getMessage());
+                }
+            };
+
+            client.connect();
+
+        } catch (Exception e) {
+            System.err.println("[MarketDataSession] Failed to establish WebSocket connection: " + e.getMessage());
+        }
+
+        // Periodically ping WebSocket to keep connection alive
+        executor.scheduleAtFixedRate(() -> {
+            if (isOpen()) {
+                client.send("ping");
+            }
+        }, 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues a reconnect attempt after the current backoff delay, doubling the delay for the
+     * next one. Runs on the executor because the socket cannot be reopened from its own thread.
+     */
+    private synchronized void scheduleReconnect() {
+        if (reconnectScheduled) return;
+        reconnectScheduled = true;
+
+        System.err.println("[MarketDataSession] Reconnecting in " + reconnectDelayMs + " ms");
+        executor.schedule(this::reconnect, reconnectDelayMs, TimeUnit.MILLISECONDS);
+        reconnectDelayMs = Math.min(reconnectDelayMs * 2, reconnectMaxDelayMs);
+    }
+
+    /**
+     * Starts reopening the socket without waiting for it, so flushes and pings keep running.
+     * onOpen then resets the backoff and resubscribes every active symbol; a failed attempt
+     * closes the socket again, which schedules the next one.
+     */
+    private void reconnect() {
+        synchronized (this) {
+            reconnectScheduled = false;
+        }
+        if (isOpen()) return;
+
+        try {
+            client.reconnect();
+        } catch (RuntimeException e) {
+            System.err.println("[MarketDataSession] Reconnect attempt failed: " + e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * Delay before the next reconnect attempt.
+     */
+    synchronized long getReconnectDelayMs() {
+        return reconnectDelayMs;
+    }
+
+    /**
+     * Starts the replay on its own thread, which then plays the role of the socket thread.
+     */
+    private void startReplay() {
+        if (replayThread != null) return;
+
+        replayThread = new Thread(() -> {
+            try {
+                Thread.sleep(REPLAY_START_DELAY_MS);
+                System.out.println("[MarketDataSession] Replaying " + replay.getDate());
+                replay.run(dispatcher);
+                System.out.println("[MarketDataSession] Replay finished after " + replay.getReplayedCount() + " trades");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[MarketDataSession] Replay failed: " + e.getMessage());
+            }
+        }, "tick-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    /**
+     * Registers a consumer for a symbol. The symbol is subscribed on the socket
+     * only when its first consumer arrives.
+     */
+    public synchronized void subscribe(String symbol, TradeFrameParser.TradeHandler consumer) {
+        Subscription subscription = subscriptions.get(symbol);
+        if (subscription == null) {
+            subscriptions.put(symbol, new Subscription(consumer));
+            queueChange(symbol, true);
+        } else {
+            subscription.add(consumer);
+        }
+    }
+
+    /**
+     * Removes a consumer from a symbol. The symbol is unsubscribed on the socket
+     * once its last consumer leaves.
+     */
+    public synchronized void unsubscribe(String symbol, TradeFrameParser.TradeHandler consumer) {
+        Subscription subscription = subscriptions.get(symbol);
+        if (subscription == null) return;
+
+        subscription.remove(consumer);
+        if (subscription.isEmpty()) {
+            subscriptions.remove(symbol);
+            queueChange(symbol, false);
+        }
+    }
+
+    /**
+     * Returns whether the underlying socket is currently connected.
+     */
+    public boolean isOpen() {
+        return client != null && client.isOpen();
+    }
+
+    /**
+     * Records a net subscription change and schedules a batched flush.
+     * A subscribe followed by an unsubscribe inside one window cancels out.
+     */
+    private void queueChange(String symbol, boolean subscribe) {
+        Boolean previous = pendingChanges.remove(symbol);
+        if (previous == null || previous == subscribe) {
+            pendingChanges.put(symbol, subscribe);
+        }
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flushChanges, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends all pending subscription changes in one burst.
+     * Changes made while the socket is closed are dropped; onOpen resubscribes everything.
+     */
+    private synchronized void flushChanges() {
+        flushScheduled = false;
+        if (!isOpen()) {
+            pendingChanges.clear();
+            return;
+        }
+
+        for (Map.Entry<String, Boolean> change : pendingChanges.entrySet()) {
+            client.send(subscriptionMessage(change.getKey(), change.getValue()));
+        }
+        pendingChanges.clear();
+    }
+
+    private synchronized void resubscribeAll() {
+        pendingChanges.clear();
+        for (String symbol : subscriptions.keySet()) {
+            client.send(subscriptionMessage(symbol, true));
+        }
+    }
+
+    private static String subscriptionMessage(String symbol, boolean subscribe) {
+        return "{\"type\":\"" + (subscribe ? "subscribe" : "unsubscribe") + "\",\"symbol\":\"" + symbol + "\"}";
+    }
+
+    /**
+     * Routes a decoded trade to every consumer subscribed to its symbol.
+     */
+    private void dispatch(String symbol, double price, double volume, long timestamp) {
+        Subscription subscription = subscriptions.get(symbol);
+        if (subscription == null) return;
+
+        TradeFrameParser.TradeHandler[] consumers = subscription.consumers;
+        for (TradeFrameParser.TradeHandler consumer : consumers) {
+            consumer.onTrade(symbol, price, volume, timestamp);
+            markFrameConsumer(consumer);
+        }
+    }
+
+    private void markFrameConsumer(TradeFrameParser.TradeHandler consumer) {
+        for (int i = 0; i < frameConsumerCount; i++) {
+            if (frameConsumers[i] == consumer) return;
+        }
+        if (frameConsumerCount == frameConsumers.length) {
+            frameConsumers = Arrays.copyOf(frameConsumers, frameConsumerCount * 2);
+        }
+        frameConsumers[frameConsumerCount++] = consumer;
+    }
+
+    /**
+     * Tells every consumer that received trades in this frame that the frame is complete.
+     */
+    private void endFrame() {
+        for (int i = 0; i < frameConsumerCount; i++) {
+            frameConsumers[i].onFrameEnd();
+            frameConsumers[i] = null;
+        }
+        frameConsumerCount = 0;
+    }
+
+    /**
+     * Fallback for non-trade messages (ping replies, errors) using the generic JSON parser.
+     */
+    private void handleControlMessage(String message) {
+        JSONObject json = new JSONObject(message);
+        if ("error".equals(json.optString("type"))) {
+            System.err.println("[MarketDataSession] Server error: " + json.optString("msg"));
+        }
+    }
+
+    /**
+     * Consumers of a single symbol. The array is replaced on change so the socket
+     * thread can iterate it without locking; the reference count is its length.
+     */
+    private static final class Subscription {
+        volatile TradeFrameParser.TradeHandler[] consumers;
+
+        Subscription(TradeFrameParser.TradeHandler first) {
+            consumers = new TradeFrameParser.TradeHandler[]{first};
+        }
+
+        void add(TradeFrameParser.TradeHandler consumer) {
+            TradeFrameParser.TradeHandler[] current = consumers;
+            for (TradeFrameParser.TradeHandler existing : current) {
+                if (existing == consumer) return;
+            }
+            TradeFrameParser.TradeHandler[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = consumer;
+            consumers = next;
+        }
+
+        void remove(TradeFrameParser.TradeHandler consumer) {
+            TradeFrameParser.TradeHandler[] current = consumers;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] != consumer) continue;
+                TradeFrameParser.TradeHandler[] next = new TradeFrameParser.TradeHandler[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                consumers = next;
+                return;
+            }
+        }
+
+        boolean isEmpty() {
+            return consumers.length == 0;
+        }
+    }
+}
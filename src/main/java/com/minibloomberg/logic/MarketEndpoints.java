@@ -0,0 +1,59 @@
+package com.minibloomberg.logic;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Base URLs for every market data provider the app talks to.
+ * Defaults to the real Finnhub and Alpha Vantage services; {@link #useMockServer} points
+ * everything at a local stand-in instead. Switch before any data is requested, since
+ * sockets and caches opened earlier keep using the old endpoints.
+ */
+public final class MarketEndpoints {
+
+    private static volatile String finnhubRest = "https://finnhub.io/api/v1/";
+    private static volatile String finnhubSocket = "wss://ws.finnhub.io";
+    private static volatile String alphaVantage = "https://www.alphavantage.co/query";
+    private static volatile boolean mock;
+
+    private MarketEndpoints() {
+    }
+
+    /**
+     * Redirects all REST and WebSocket traffic to a local mock market server.
+     */
+    public static void useMockServer(String host, int restPort, int socketPort) {
+        finnhubRest = "http://" + host + ":" + restPort + "/api/v1/";
+        finnhubSocket = "ws://" + host + ":" + socketPort;
+        alphaVantage = "http://" + host + ":" + restPort + "/query";
+        mock = true;
+    }
+
+    public static boolean isMock() {
+        return mock;
+    }
+
+    /**
+     * Finnhub REST base, ending in a slash (e.g. base + "quote?symbol=AAPL").
+     */
+    public static String finnhubRest() {
+        return finnhubRest;
+    }
+
+    public static String finnhubSocket() {
+        return finnhubSocket;
+    }
+
+    public static String alphaVantage() {
+        return alphaVantage;
+    }
+
+    /**
+     * Root of the on-disk caches. Mock sessions get their own directory so synthetic
+     * data never mixes with real history and profiles.
+     */
+    public static Path dataDirectory() {
+        Path root = Paths.get(System.getProperty("user.home"), ".minibloomberg");
+        return mock ? root.resolve("mock") : root;
+    }
+}
@@ -1,10 +1,6 @@
 package com.minibloomberg.logic;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,6 +9,8 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.minibloomberg.data.NewsArticle;
+import com.minibloomberg.logic.RequestScheduler.Priority;
+import com.minibloomberg.logic.RequestScheduler.Provider;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
@@ -31,7 +29,7 @@ public class NewsFetcher {
         List<NewsArticle> articles = new ArrayList<>();
         try {
             // Load API key from .env
-            Dotenv dotenv = Dotenv.load();
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
             String apiKey = dotenv.get("FINNHUB_API_KEY");
 
             // Fetch raw news JSON array
@@ -58,7 +56,7 @@ public class NewsFetcher {
             System.err.println("[NewsFetcher] JSON parsing error: " + e.getMessage());
 
         } catch (Exception e) {
-            System.err.println("[NewsFetcher] Failed to fetch news:");
+            System.err.println("[NewsFetcher] Failed to fetch news: " + e.getMessage());
         }
 
         return articles;
@@ -72,22 +70,12 @@ public class NewsFetcher {
      * @throws IOException if there's a problem reading the API response
      */
     private static JSONArray getObjects(String apiKey) throws IOException {
-        String baseUrl = "https://finnhub.io/api/v1/news";
+        String baseUrl = MarketEndpoints.finnhubRest() + "news";
         String params = "category=general&token=" + apiKey;
         String fullUrl = baseUrl + "?" + params;
 
-        URL url = new URL(fullUrl);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-
-        // Read response from API
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        StringBuilder json = new StringBuilder();
-        String inputLine;
-        while ((inputLine = in.readLine()) != null) json.append(inputLine);
-        in.close();
-
-        return new JSONArray(json.toString());
+        return HttpService.await(RequestScheduler.submit(Provider.FINNHUB, Priority.BACKGROUND,
+                "finnhub:news?category=general", () -> HttpService.getJsonArray(fullUrl)));
     }
 
     /**
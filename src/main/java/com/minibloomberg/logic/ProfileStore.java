@@ -0,0 +1,204 @@
+package com.minibloomberg.logic;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Durable cache of Finnhub company profiles (stock/profile2), kept in one compact file
+ * and held fully in memory once {@link #preload()} has read it.
+ *
+ * Profiles change about once a year, so an entry is served for up to {@value #MAX_AGE_DAYS}
+ * days. After {@value #REVALIDATE_AFTER_DAYS} days it is still served but reported as due
+ * for revalidation, so the caller can refresh it in the background.
+ *
+ * File layout (DataOutput encoding):
+ * - Header: magic (int), format version (int), entry count (int)
+ * - Entries: symbol, fetched-at epoch millis (long), profile JSON
+ * - Strings are a byte length (int) followed by that many UTF-8 bytes, so profiles are not
+ *   limited to the 64 KB of writeUTF. Version 1 files, which used writeUTF, are still read.
+ *
+ * Writes are coalesced: changes mark the store dirty and the whole file is rewritten
+ * to a temporary sibling and moved into place a moment later.
+ */
+public class ProfileStore {
+
+    private static final int MAGIC = 0x4D425053; // "MBPS"
+    private static final int FORMAT_VERSION = 2;
+    private static final int UTF_FORMAT_VERSION = 1;
+
+    private static final long MAX_AGE_DAYS = 90;
+    private static final long REVALIDATE_AFTER_DAYS = 7;
+    private static final long FLUSH_DELAY_MS = 2_000;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "profile-store-flush");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean flushScheduled;
+
+    public ProfileStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Default location under the user's home directory.
+     */
+    public static Path defaultFile() {
+        return MarketEndpoints.dataDirectory().resolve("profiles.bin");
+    }
+
+    /**
+     * Reads the whole file in one go and loads every entry into memory.
+     *
+     * @return the number of profiles loaded
+     */
+    public int preload() {
+        if (!Files.isRegularFile(file)) return 0;
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != MAGIC || (version != FORMAT_VERSION && version != UTF_FORMAT_VERSION)) {
+                System.err.println("[ProfileStore] Ignoring " + file + ": unsupported format");
+                return 0;
+            }
+            boolean utf = version == UTF_FORMAT_VERSION;
+
+            int count = in.readInt();
+            int loaded = 0;
+            for (int i = 0; i < count; i++) {
+                String symbol = utf ? in.readUTF() : readString(in);
+                long fetchedAt = in.readLong();
+                String json = utf ? in.readUTF() : readString(in);
+                try {
+                    entries.putIfAbsent(symbol, new Entry(new JSONObject(json), fetchedAt));
+                    loaded++;
+                } catch (JSONException e) {
+                    System.err.println("[ProfileStore] Skipping unreadable profile for " + symbol);
+                }
+            }
+            return loaded;
+
+        } catch (IOException e) {
+            System.err.println("[ProfileStore] Failed to read " + file + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the stored profile, or null if there is none or it is past the maximum age.
+     */
+    public JSONObject get(String symbol) {
+        Entry entry = entries.get(symbol);
+        if (entry == null || entry.ageMillis() > TimeUnit.DAYS.toMillis(MAX_AGE_DAYS)) return null;
+        return entry.profile();
+    }
+
+    /**
+     * Whether the stored profile is old enough that it should be refreshed in the background.
+     */
+    public boolean needsRevalidation(String symbol) {
+        Entry entry = entries.get(symbol);
+        return entry == null || entry.ageMillis() > TimeUnit.DAYS.toMillis(REVALIDATE_AFTER_DAYS);
+    }
+
+    /**
+     * Stores a freshly fetched profile and schedules a write of the file.
+     */
+    public void put(String symbol, JSONObject profile) {
+        entries.put(symbol, new Entry(profile, System.currentTimeMillis()));
+        scheduleFlush();
+    }
+
+    private synchronized void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        flusher.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rewrites the file with every entry. Package-private so tests can write without the delay.
+     */
+    void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            Map<String, Entry> snapshot = Map.copyOf(entries);
+            try (OutputStream os = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    writeString(out, e.getKey());
+                    out.writeLong(e.getValue().fetchedAt());
+                    writeString(out, e.getValue().profile().toString());
+                }
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+
+        } catch (IOException e) {
+            System.err.println("[ProfileStore] Failed to write " + file + ": " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort; a stray temp file is harmless
+                }
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) throw new IOException("Corrupt string length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Entry(JSONObject profile, long fetchedAt) {
+        long ageMillis() {
+            return System.currentTimeMillis() - fetchedAt;
+        }
+    }
+}
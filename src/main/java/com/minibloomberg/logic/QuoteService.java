@@ -0,0 +1,115 @@
+package com.minibloomberg.logic;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.json.JSONObject;
+
+import com.minibloomberg.data.Stock;
+
+/**
+ * Front door for quote and company profile lookups.
+ *
+ * - Tickers on the live feed are answered from {@link LivePriceManager}'s trade state,
+ *   so opening a watchlisted ticker costs no network call at all.
+ * - Other lookups go to Finnhub through a short-lived cache, and concurrent requests
+ *   for the same symbol share a single in-flight call (single-flight).
+ *
+ * Every caller gets its own copy of a shared future, so cancelling one view's load
+ * never cancels the request for anyone else; the result still lands in the cache.
+ */
+public class QuoteService {
+
+    // Quotes move constantly; profiles are cached durably by StockDataFetcher's profile store
+    private static final long QUOTE_TTL_MS = 10_000;
+
+    private final LivePriceManager livePriceManager;
+
+    private final Map<String, Cached> quoteCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<JSONObject>> quotesInFlight = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<JSONObject>> profilesInFlight = new ConcurrentHashMap<>();
+
+    public QuoteService(LivePriceManager livePriceManager) {
+        this.livePriceManager = livePriceManager;
+    }
+
+    /**
+     * Price data for a ticker, with company name "N/A" unless the ticker is live.
+     * Completes with null if the ticker is unknown or the request fails.
+     */
+    public CompletableFuture<Stock> quote(String ticker) {
+        Stock live = livePriceManager.getLiveSnapshot(ticker);
+        if (live != null) return CompletableFuture.completedFuture(live);
+
+        Cached cached = quoteCache.get(ticker);
+        CompletableFuture<JSONObject> quote = cached != null && !cached.isExpired(QUOTE_TTL_MS)
+                ? CompletableFuture.completedFuture(cached.value())
+                : singleFlight(ticker, quotesInFlight, symbol -> StockDataFetcher.fetchQuoteAsync(symbol)
+                        .thenApply(value -> {
+                            // Failures are not cached, so the next lookup tries again
+                            if (value != null) quoteCache.put(symbol, new Cached(value, System.currentTimeMillis()));
+                            return value;
+                        }));
+        return quote.thenApply(value -> value != null ? StockDataFetcher.toStock(ticker, value, null) : null);
+    }
+
+    /**
+     * Company profile for a ticker, usually straight from the persistent profile store.
+     * Completes with null if the request fails; live tickers then fall back to the
+     * company name they were added with.
+     */
+    public CompletableFuture<JSONObject> profile(String ticker) {
+        return singleFlight(ticker, profilesInFlight, StockDataFetcher::fetchProfileAsync)
+                .thenApply(profile -> {
+                    if (profile != null) return profile;
+                    Stock live = livePriceManager.getLiveSnapshot(ticker);
+                    return live != null ? new JSONObject().put("name", live.companyName()) : null;
+                });
+    }
+
+    /**
+     * Full snapshot combining quote and profile.
+     * Completes with null if the ticker is unknown or either request fails.
+     */
+    public CompletableFuture<Stock> snapshot(String ticker) {
+        Stock live = livePriceManager.getLiveSnapshot(ticker);
+        if (live != null) return CompletableFuture.completedFuture(live);
+
+        return quote(ticker).thenCombine(profile(ticker), (stock, profile) ->
+                stock != null && profile != null ? withProfile(stock, profile) : null);
+    }
+
+    /**
+     * Copies a quote-only snapshot with the company name from a profile.
+     */
+    public static Stock withProfile(Stock stock, JSONObject profile) {
+        return new Stock(stock.symbol(), profile.optString("name", "N/A"), stock.currentPrice(), stock.change(),
+                stock.percentChange(), stock.previousClose(), stock.dayHigh(), stock.dayLow());
+    }
+
+    /**
+     * Joins the request already in flight for this symbol, or starts it.
+     */
+    private static CompletableFuture<JSONObject> singleFlight(String ticker,
+                                                              Map<String, CompletableFuture<JSONObject>> inFlight,
+                                                              Function<String, CompletableFuture<JSONObject>> fetch) {
+        CompletableFuture<JSONObject> created = new CompletableFuture<>();
+        CompletableFuture<JSONObject> existing = inFlight.putIfAbsent(ticker, created);
+        if (existing != null) return existing.copy();
+
+        fetch.apply(ticker).whenComplete((value, error) -> {
+            inFlight.remove(ticker, created);
+            if (error != null) created.completeExceptionally(error);
+            else created.complete(value);
+        });
+        return created.copy();
+    }
+
+    private record Cached(JSONObject value, long fetchedAt) {
+        boolean isExpired(long ttlMs) {
+            return System.currentTimeMillis() - fetchedAt > ttlMs;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.minibloomberg.logic;
+
+import java.util.function.IntToDoubleFunction;
+
+import com.minibloomberg.data.HistoricalData;
+
+/**
+ * Answers "minimum (or maximum) of a column over bars [from, to)" without a linear scan.
+ *
+ * The column is split into blocks of {@value #BLOCK} bars. A sparse table over the block
+ * extrema answers the whole-block part of a query in O(1); the partial blocks at either
+ * end are scanned directly, so every query touches at most 2 * BLOCK bars plus two table
+ * lookups. Memory is O((n / BLOCK) log n) rather than the O(n log n) of a plain sparse table.
+ */
+public final class RangeExtremaIndex {
+
+    private static final int BLOCK = 16;
+
+    private final IntToDoubleFunction column;
+    private final int size;
+    private final boolean max;
+
+    // table[k][b] = extremum of blocks [b, b + 2^k)
+    private final double[][] table;
+
+    private RangeExtremaIndex(IntToDoubleFunction column, int size, boolean max) {
+        this.column = column;
+        this.size = size;
+        this.max = max;
+
+        int blocks = (size + BLOCK - 1) / BLOCK;
+        int levels = 1;
+        while ((1 << levels) <= blocks) levels++;
+        table = new double[levels][];
+
+        double[] base = new double[blocks];
+        for (int b = 0; b < blocks; b++) {
+            base[b] = scan(b * BLOCK, Math.min(size, (b + 1) * BLOCK));
+        }
+        table[0] = base;
+
+        for (int k = 1; k < levels; k++) {
+            int span = 1 << k;
+            int half = span >> 1;
+            double[] prev = table[k - 1];
+            double[] level = new double[blocks - span + 1];
+            for (int b = 0; b < level.length; b++) {
+                level[b] = combine(prev[b], prev[b + half]);
+            }
+            table[k] = level;
+        }
+    }
+
+    public static RangeExtremaIndex min(IntToDoubleFunction column, int size) {
+        return new RangeExtremaIndex(column, size, false);
+    }
+
+    public static RangeExtremaIndex max(IntToDoubleFunction column, int size) {
+        return new RangeExtremaIndex(column, size, true);
+    }
+
+    /**
+     * Lowest adjusted close over any window of the series.
+     */
+    public static RangeExtremaIndex adjCloseMin(HistoricalData data) {
+        return min(data::adjClose, data.size());
+    }
+
+    /**
+     * Highest adjusted close over any window of the series.
+     */
+    public static RangeExtremaIndex adjCloseMax(HistoricalData data) {
+        return max(data::adjClose, data.size());
+    }
+
+    /**
+     * Lowest low over any window of the series.
+     */
+    public static RangeExtremaIndex lowMin(HistoricalData data) {
+        return min(data::low, data.size());
+    }
+
+    /**
+     * Highest high over any window of the series.
+     */
+    public static RangeExtremaIndex highMax(HistoricalData data) {
+        return max(data::high, data.size());
+    }
+
+    /**
+     * Returns the extremum over [from, to), or NaN for an empty range.
+     */
+    public double query(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(size, to);
+        if (from >= to) return Double.NaN;
+
+        int firstFull = (from + BLOCK - 1) / BLOCK;
+        int lastFull = to / BLOCK; // exclusive
+        if (firstFull >= lastFull) {
+            return scan(from, to);
+        }
+
+        double result = scan(from, firstFull * BLOCK);
+        result = combine(result, scan(lastFull * BLOCK, to));
+
+        int blocks = lastFull - firstFull;
+        int k = 31 - Integer.numberOfLeadingZeros(blocks);
+        result = combine(result, table[k][firstFull]);
+        result = combine(result, table[k][lastFull - (1 << k)]);
+        return result;
+    }
+
+    /**
+     * Brings the index up to date after the value of one bar changed, as a live forming bar
+     * does on every tick. The column function must already return the new value.
+     */
+    public void refresh(int index) {
+        if (index < 0 || index >= size) return;
+        int block = index / BLOCK;
+        table[0][block] = scan(block * BLOCK, Math.min(size, (block + 1) * BLOCK));
+
+        for (int k = 1; k < table.length; k++) {
+            int span = 1 << k;
+            int half = span >> 1;
+            double[] prev = table[k - 1];
+            double[] level = table[k];
+            for (int b = Math.max(0, block - span + 1); b <= Math.min(block, level.length - 1); b++) {
+                level[b] = combine(prev[b], prev[b + half]);
+            }
+        }
+    }
+
+    private double scan(int from, int to) {
+        double result = max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            result = combine(result, column.applyAsDouble(i));
+        }
+        return result;
+    }
+
+    private double combine(double a, double b) {
+        return max ? Math.max(a, b) : Math.min(a, b);
+    }
+}
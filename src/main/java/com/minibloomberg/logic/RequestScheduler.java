@@ -0,0 +1,374 @@
+package com.minibloomberg.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Central gate for REST calls to rate-limited providers.
+ *
+ * Each provider has a token bucket sized from its per-minute budget (overridable with
+ * ALPHA_REQUESTS_PER_MINUTE / FINNHUB_REQUESTS_PER_MINUTE in .env). Requests wait in
+ * priority lanes until a token is free instead of being sent and rejected:
+ * INTERACTIVE (a ticker the user just opened) before WATCHLIST before BACKGROUND
+ * (prefetching, news, tape data).
+ *
+ * Requests submitted with a key are coalesced: while one is queued or in flight, further
+ * submissions with the same key share its result, and a higher-priority submission
+ * promotes the queued request to its lane. A request is dropped, or aborted if already
+ * sent, once every caller waiting on it has cancelled. When a response shows the provider is
+ * throttling anyway, the bucket is emptied so the queue pauses for a full refill period,
+ * and a request rejected with HTTP 429 is queued again rather than failed.
+ */
+public final class RequestScheduler {
+
+    public enum Provider {
+        ALPHA_VANTAGE("ALPHA_REQUESTS_PER_MINUTE", 5, 1),
+        FINNHUB("FINNHUB_REQUESTS_PER_MINUTE", 60, 10);
+
+        private final String rateKey;
+        private final int defaultPerMinute;
+        private final int burst;
+
+        Provider(String rateKey, int defaultPerMinute, int burst) {
+            this.rateKey = rateKey;
+            this.defaultPerMinute = defaultPerMinute;
+            this.burst = burst;
+        }
+    }
+
+    public enum Priority {
+        INTERACTIVE, WATCHLIST, BACKGROUND
+    }
+
+    /**
+     * Snapshot of one provider's queue.
+     *
+     * @param queued        requests waiting for a token, per priority lane (indexed by ordinal)
+     * @param dispatched    requests sent so far
+     * @param coalesced     submissions answered by an already queued or in-flight request
+     * @param throttled     responses that showed the provider was rate limiting
+     * @param averageWaitMs mean time dispatched requests spent queued
+     * @param maxWaitMs     longest time a dispatched request spent queued
+     */
+    public record QueueStats(int[] queued, long dispatched, long coalesced, long throttled,
+                             double averageWaitMs, long maxWaitMs) {
+        public int totalQueued() {
+            int total = 0;
+            for (int q : queued) total += q;
+            return total;
+        }
+    }
+
+    private static final int MOCK_REQUESTS_PER_MINUTE = 600_000;
+
+    // A request rejected with HTTP 429 is re-queued this many times in total before failing
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "request-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Map<Provider, ProviderQueue> queues = new EnumMap<>(Provider.class);
+
+    static {
+        for (Provider provider : Provider.values()) {
+            int perMinute = readRate(provider);
+            queues.put(provider, new ProviderQueue(provider, perMinute,
+                    MarketEndpoints.isMock() ? perMinute : Math.min(provider.burst, perMinute)));
+        }
+    }
+
+    private RequestScheduler() {
+    }
+
+    /**
+     * Queues a request against a provider's budget.
+     *
+     * @param key     coalescing key (for example the URL without the API token), or null to
+     *                always send separately
+     * @param request starts the request once a token is available
+     * @return the request's result; for keyed requests each caller gets its own copy, so
+     *         cancelling it only abandons the request once every other caller has too
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<T> submit(Provider provider, Priority priority, String key,
+                                                  Supplier<CompletableFuture<T>> request) {
+        ProviderQueue queue = queues.get(provider);
+        Task<T> task;
+        synchronized (queue) {
+            if (key != null) {
+                Task<T> existing = (Task<T>) queue.byKey.get(key);
+                if (existing != null && !existing.result.isDone()) {
+                    queue.coalesced++;
+                    promote(queue, existing, priority);
+                    return attach(queue, existing);
+                }
+            }
+
+            task = new Task<>(key, priority, request);
+            queue.lanes[priority.ordinal()].addLast(task);
+            if (key != null) queue.byKey.put(key, task);
+        }
+
+        pump(queue);
+        return key != null ? attach(queue, task) : task.result;
+    }
+
+    /**
+     * Moves a queued keyed request to a higher-priority lane, e.g. when the user opens a ticker
+     * whose download was queued by a background load. Does nothing if it is not queued.
+     */
+    public static void promote(Provider provider, String key, Priority priority) {
+        ProviderQueue queue = queues.get(provider);
+        synchronized (queue) {
+            Task<?> task = queue.byKey.get(key);
+            if (task != null) promote(queue, task, priority);
+        }
+    }
+
+    private static void promote(ProviderQueue queue, Task<?> task, Priority priority) {
+        if (task.queued && priority.ordinal() < task.priority.ordinal()) {
+            queue.lanes[task.priority.ordinal()].remove(task);
+            task.priority = priority;
+            queue.lanes[priority.ordinal()].addLast(task);
+        }
+    }
+
+    /**
+     * Gives a caller its own copy of a keyed request's result. When the last caller
+     * cancels its copy, the request itself is cancelled. Call with the queue's monitor held.
+     */
+    private static <T> CompletableFuture<T> attach(ProviderQueue queue, Task<T> task) {
+        task.waiters++;
+        CompletableFuture<T> copy = task.result.copy();
+        copy.whenComplete((value, error) -> {
+            if (!copy.isCancelled()) return;
+            boolean abandoned;
+            synchronized (queue) {
+                abandoned = --task.waiters == 0;
+            }
+            if (abandoned) task.result.cancel(true);
+        });
+        return copy;
+    }
+
+    /**
+     * Replaces a provider's queue with an empty one at the given rate. Requests still queued
+     * on the old one are left behind; meant for tests.
+     */
+    static void reset(Provider provider, int perMinute, int burst) {
+        queues.put(provider, new ProviderQueue(provider, perMinute, burst));
+    }
+
+    /**
+     * Tells the scheduler a provider answered with a rate-limit message, pausing its queue.
+     */
+    public static void reportThrottled(Provider provider) {
+        ProviderQueue queue = queues.get(provider);
+        synchronized (queue) {
+            queue.throttled++;
+            queue.refill(System.nanoTime());
+            queue.tokens = Math.min(queue.tokens, 0) - queue.capacity;
+        }
+        System.err.println("[RequestScheduler] " + provider + " is rate limiting; pausing its queue");
+    }
+
+    public static QueueStats getStats(Provider provider) {
+        ProviderQueue queue = queues.get(provider);
+        synchronized (queue) {
+            int[] queued = new int[Priority.values().length];
+            for (int i = 0; i < queued.length; i++) queued[i] = queue.lanes[i].size();
+            double averageWait = queue.dispatched == 0 ? 0 : (double) queue.totalWaitMs / queue.dispatched;
+            return new QueueStats(queued, queue.dispatched, queue.coalesced, queue.throttled,
+                    averageWait, queue.maxWaitMs);
+        }
+    }
+
+    /**
+     * Dispatches as many queued requests as there are tokens, then arranges to wake up
+     * when the next token is due if anything is still waiting.
+     */
+    private static void pump(ProviderQueue queue) {
+        List<Task<?>> ready = new ArrayList<>();
+        synchronized (queue) {
+            long now = System.nanoTime();
+            queue.refill(now);
+
+            while (queue.tokens >= 1) {
+                Task<?> task = queue.poll();
+                if (task == null) break;
+                if (task.result.isDone()) {  // Cancelled while waiting
+                    if (task.key != null) queue.byKey.remove(task.key, task);
+                    continue;
+                }
+
+                queue.tokens -= 1;
+                long waitedMs = TimeUnit.NANOSECONDS.toMillis(now - task.enqueuedAt);
+                queue.dispatched++;
+                queue.totalWaitMs += waitedMs;
+                queue.maxWaitMs = Math.max(queue.maxWaitMs, waitedMs);
+                ready.add(task);
+            }
+
+            if (queue.hasWaiting() && !queue.wakeScheduled) {
+                queue.wakeScheduled = true;
+                long delayMs = (long) Math.ceil((1 - queue.tokens) / queue.tokensPerMs);
+                timer.schedule(() -> {
+                    synchronized (queue) {
+                        queue.wakeScheduled = false;
+                    }
+                    pump(queue);
+                }, Math.max(1, delayMs), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        for (Task<?> task : ready) {
+            start(queue, task);
+        }
+    }
+
+    private static <T> void start(ProviderQueue queue, Task<T> task) {
+        task.attempts++;
+        CompletableFuture<T> inFlight;
+        try {
+            inFlight = task.request.get();
+        } catch (RuntimeException e) {
+            inFlight = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> started = inFlight;
+        // The result is only cancelled once nobody is waiting for it, so abort the request
+        task.result.whenComplete((value, error) -> {
+            if (task.result.isCancelled()) started.cancel(true);
+        });
+
+        started.whenComplete((value, error) -> {
+            if (error != null && isThrottle(error)) {
+                reportThrottled(queue.provider);
+                if (task.attempts < MAX_ATTEMPTS && !task.result.isDone()) {
+                    // Put it back at the head of its lane; it goes out once the pause is over
+                    synchronized (queue) {
+                        task.queued = true;
+                        queue.lanes[task.priority.ordinal()].addFirst(task);
+                    }
+                    pump(queue);
+                    return;
+                }
+            }
+            if (task.key != null) {
+                synchronized (queue) {
+                    queue.byKey.remove(task.key, task);
+                }
+            }
+            if (error != null) {
+                task.result.completeExceptionally(error);
+            } else if (!task.result.complete(value) && value instanceof AutoCloseable resource) {
+                // Every caller cancelled while the response was arriving; release it
+                HttpService.closeQuietly(resource);
+            }
+        });
+    }
+
+    private static boolean isThrottle(Throwable error) {
+        String message = HttpService.asIOException(error).getMessage();
+        return message != null && message.startsWith("HTTP 429");
+    }
+
+    private static int readRate(Provider provider) {
+        // A local mock server has no budget to protect
+        if (MarketEndpoints.isMock()) return MOCK_REQUESTS_PER_MINUTE;
+        try {
+            return Math.max(1, Integer.parseInt(
+                    dotenv.get(provider.rateKey, String.valueOf(provider.defaultPerMinute)).trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("[RequestScheduler] Invalid " + provider.rateKey + ", using " + provider.defaultPerMinute);
+            return provider.defaultPerMinute;
+        }
+    }
+
+    private static final class Task<T> {
+        final String key;
+        final Supplier<CompletableFuture<T>> request;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+        Priority priority;
+        boolean queued = true;
+        int attempts;
+        int waiters;             // Callers holding a copy of a keyed result
+
+        Task(String key, Priority priority, Supplier<CompletableFuture<T>> request) {
+            this.key = key;
+            this.priority = priority;
+            this.request = request;
+        }
+    }
+
+    /**
+     * Token bucket and priority lanes for one provider. Guarded by its own monitor.
+     */
+    private static final class ProviderQueue {
+        final Provider provider;
+        final double capacity;
+        final double tokensPerMs;
+        double tokens;
+        long lastRefill = System.nanoTime();
+        boolean wakeScheduled;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final ArrayDeque<Task<?>>[] lanes = new ArrayDeque[Priority.values().length];
+        final Map<String, Task<?>> byKey = new HashMap<>();
+
+        long dispatched;
+        long coalesced;
+        long throttled;
+        long totalWaitMs;
+        long maxWaitMs;
+
+        ProviderQueue(Provider provider, int perMinute, int burst) {
+            this.provider = provider;
+            this.capacity = burst;
+            this.tokensPerMs = perMinute / 60_000.0;
+            this.tokens = capacity;
+            for (int i = 0; i < lanes.length; i++) lanes[i] = new ArrayDeque<>();
+        }
+
+        void refill(long now) {
+            double elapsedMs = (now - lastRefill) / 1_000_000.0;
+            tokens = Math.min(capacity, tokens + elapsedMs * tokensPerMs);
+            lastRefill = now;
+        }
+
+        Task<?> poll() {
+            for (ArrayDeque<Task<?>> lane : lanes) {
+                Task<?> task = lane.pollFirst();
+                if (task != null) {
+                    task.queued = false;
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        boolean hasWaiting() {
+            for (ArrayDeque<Task<?>> lane : lanes) {
+                if (!lane.isEmpty()) return true;
+            }
+            return false;
+        }
+    }
+}
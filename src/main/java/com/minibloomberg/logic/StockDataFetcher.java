@@ -2,19 +2,32 @@ package com.minibloomberg.logic;
 
 import com.minibloomberg.data.HistoricalData;
 import com.minibloomberg.data.Stock;
+import com.minibloomberg.logic.RequestScheduler.Priority;
+import com.minibloomberg.logic.RequestScheduler.Provider;
 import io.github.cdimascio.dotenv.Dotenv;
-import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.ZoneOffset;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 
 /**
  * Responsible for fetching stock data including live snapshot and historical prices.
@@ -23,24 +36,44 @@ import java.util.List;
 public class StockDataFetcher {
 
     // Load API keys from .env file
-    private static final Dotenv dotenv = Dotenv.load();
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
     private static final String finnhubApiKey = dotenv.get("FINNHUB_API_KEY");
     private static final String alphaVantageApiKey = dotenv.get("ALPHA_API_KEY");
-    private static final String finnhubUrl = "https://finnhub.io/api/v1/";
 
-    /**
-     * Converts the raw HTTP response body into a JSONObject.
-     */
-    private static JSONObject getJsonObject(HttpURLConnection conn) throws IOException {
-        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = in.readLine()) != null) {
-            response.append(line);
-        }
-        in.close();
-        return new JSONObject(response.toString());
-    }
+    // Local on-disk cache of daily history, one file per symbol
+    private static final HistoryStore historyStore = new HistoryStore(HistoryStore.defaultDirectory());
+
+    // Persistent company profile cache, preloaded at startup
+    private static final ProfileStore profileStore = new ProfileStore(ProfileStore.defaultFile());
+    private static final Set<String> profilesRevalidating = ConcurrentHashMap.newKeySet();
+
+    // Symbols already brought up to date this session, mapped to the bar date they were refreshed for
+    private static final Map<String, LocalDate> refreshedThrough = new ConcurrentHashMap<>();
+
+    // History downloads queued or in flight, keyed by symbol and output size
+    private static final Map<String, HistoryDownload> historyDownloads = new HashMap<>();
+
+    // Parses history responses and reads and writes the store for non-blocking loads;
+    // leaves a core for the EDT and the socket thread
+    private static final ForkJoinPool historyParser = new ForkJoinPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() - 1),
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("history-parser-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            },
+            null, true);
+
+    // Disk reads and Alpha Vantage downloads for history run here, off the EDT
+    private static final ExecutorService historyExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "history-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Tolerance when comparing stored and freshly downloaded adjusted closes
+    private static final double ADJUSTMENT_TOLERANCE = 1e-4;
 
     /**
      * Safely retrieves a double value from the given JSON object using the specified key.
@@ -55,121 +88,453 @@ public class StockDataFetcher {
 
     /**
      * Fetches a snapshot of the stock's current state (price, change, highs/lows).
-     * Uses Finnhub for real-time data.
+     * Uses Finnhub for real-time data. Blocks until both the quote and profile arrive.
      */
     public static Stock fetchStockSnapshot(String ticker) {
         try {
-            JSONObject quoteData = fetchJson(finnhubUrl + "quote?symbol=" + ticker + "&token=" + finnhubApiKey);
-            JSONObject profileData = fetchJson(finnhubUrl + "stock/profile2?symbol=" + ticker + "&token=" + finnhubApiKey);
+            return fetchStockSnapshotAsync(ticker).join();
+        } catch (CompletionException e) {
+            System.err.println("Failed to fetch or parse stock data for ticker: " + ticker);
+            return new Stock(ticker, "Unavailable", 0, 0, 0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Fetches the quote and profile concurrently and combines them into a snapshot.
+     * The future completes with null if either request fails or the ticker has no price.
+     */
+    public static CompletableFuture<Stock> fetchStockSnapshotAsync(String ticker) {
+        return fetchStockSnapshotAsync(ticker, Priority.INTERACTIVE);
+    }
 
+    public static CompletableFuture<Stock> fetchStockSnapshotAsync(String ticker, Priority priority) {
+        CompletableFuture<JSONObject> quote = fetchQuoteAsync(ticker, priority);
+        CompletableFuture<JSONObject> profile = fetchProfileAsync(ticker, priority);
+        return quote.thenCombine(profile, (quoteData, profileData) -> {
             if (quoteData == null || profileData == null) {
                 System.err.println("Failed to fetch data for ticker: " + ticker);
                 return null;
             }
+            return toStock(ticker, quoteData, profileData);
+        });
+    }
 
-            String companyName = profileData.optString("name", "N/A");
-            double currentPrice = getSafeDouble(quoteData, "c");
-            double change = getSafeDouble(quoteData, "d");
-            double percentChange = getSafeDouble(quoteData, "dp");
-            double previousClose = getSafeDouble(quoteData, "pc");
-            double dayHigh = getSafeDouble(quoteData, "h");
-            double dayLow = getSafeDouble(quoteData, "l");
+    /**
+     * Finnhub quote for a ticker; completes with null if the request fails.
+     */
+    public static CompletableFuture<JSONObject> fetchQuoteAsync(String ticker) {
+        return fetchQuoteAsync(ticker, Priority.INTERACTIVE);
+    }
 
-            // Skip invalid entries
-            if (Double.isNaN(currentPrice) || currentPrice == 0.0) {
-                return null;
-            }
+    public static CompletableFuture<JSONObject> fetchQuoteAsync(String ticker, Priority priority) {
+        return fetchJson("quote?symbol=" + encode(ticker), priority);
+    }
 
-            return new Stock(
-                    ticker,
-                    companyName,
-                    currentPrice,
-                    change,
-                    percentChange,
-                    previousClose,
-                    dayHigh,
-                    dayLow
-            );
-
-        } catch (JSONException e) {
-            System.err.println("Failed to fetch or parse stock data for ticker: " + ticker);
-            return new Stock(ticker, "Unavailable", 0, 0, 0, 0, 0, 0);
+    /**
+     * Company profile for a ticker, served from the persistent profile store when present.
+     * A stored profile that is due for revalidation is still returned immediately and
+     * refreshed in the background. Completes with null if a needed request fails.
+     */
+    public static CompletableFuture<JSONObject> fetchProfileAsync(String ticker) {
+        return fetchProfileAsync(ticker, Priority.INTERACTIVE);
+    }
+
+    public static CompletableFuture<JSONObject> fetchProfileAsync(String ticker, Priority priority) {
+        JSONObject stored = profileStore.get(ticker);
+        if (stored != null) {
+            if (profileStore.needsRevalidation(ticker) && profilesRevalidating.add(ticker)) {
+                requestProfile(ticker, Priority.BACKGROUND).whenComplete((profile, error) -> profilesRevalidating.remove(ticker));
+            }
+            return CompletableFuture.completedFuture(stored);
         }
+        return requestProfile(ticker, priority);
     }
 
     /**
-     * Sends an HTTP GET request to the specified URL and parses the JSON response.
-     * Returns null if the request fails or encounters an exception.
+     * Reads the persistent profile cache into memory in one bulk read. Call once at startup.
      */
-    private static JSONObject fetchJson(String urlString) {
-        try {
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
+    public static void preloadProfiles() {
+        int loaded = profileStore.preload();
+        if (loaded > 0) {
+            System.out.println("[StockDataFetcher] Preloaded " + loaded + " company profiles");
+        }
+    }
 
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 200) {
-                System.err.println("Request failed: " + urlString);
-                return null;
-            }
+    private static CompletableFuture<JSONObject> requestProfile(String ticker, Priority priority) {
+        CompletableFuture<JSONObject> request = fetchJson("stock/profile2?symbol=" + encode(ticker), priority);
+        return HttpService.propagateCancel(request, request.thenApply(profile -> {
+            // Finnhub answers unknown symbols with an empty object; don't persist those
+            if (profile != null && !profile.isEmpty()) profileStore.put(ticker, profile);
+            return profile;
+        }));
+    }
 
-            return getJsonObject(conn);
-        } catch (IOException e) {
-            System.err.println("IOException occurred while fetching URL: " + urlString);
-            System.err.println("Error message: " + e.getMessage());
+    /**
+     * Builds a Stock from a Finnhub quote and (optionally) profile.
+     * Returns null if the quote has no valid current price, i.e. the ticker is unknown.
+     */
+    public static Stock toStock(String ticker, JSONObject quoteData, JSONObject profileData) {
+        String companyName = profileData != null ? profileData.optString("name", "N/A") : "N/A";
+        double currentPrice = getSafeDouble(quoteData, "c");
+        double change = getSafeDouble(quoteData, "d");
+        double percentChange = getSafeDouble(quoteData, "dp");
+        double previousClose = getSafeDouble(quoteData, "pc");
+        double dayHigh = getSafeDouble(quoteData, "h");
+        double dayLow = getSafeDouble(quoteData, "l");
+
+        // Skip invalid entries
+        if (Double.isNaN(currentPrice) || currentPrice == 0.0) {
             return null;
         }
+
+        return new Stock(
+                ticker,
+                companyName,
+                currentPrice,
+                change,
+                percentChange,
+                previousClose,
+                dayHigh,
+                dayLow
+        );
+    }
+
+    /**
+     * Queues a Finnhub GET for the given path and query and parses the JSON response.
+     * Identical requests already queued or in flight are shared.
+     * The future completes with null if the request fails.
+     */
+    private static CompletableFuture<JSONObject> fetchJson(String pathAndQuery, Priority priority) {
+        String urlString = MarketEndpoints.finnhubRest() + pathAndQuery + "&token=" + finnhubApiKey;
+        CompletableFuture<JSONObject> request = RequestScheduler.submit(Provider.FINNHUB, priority,
+                "finnhub:" + pathAndQuery, () -> HttpService.getJsonObject(urlString));
+        return HttpService.propagateCancel(request, request
+                .exceptionally(e -> {
+                    System.err.println("Request failed: " + HttpService.asIOException(e).getMessage());
+                    return null;
+                }));
     }
 
     /**
-     * Fetches full historical daily closing price data for a stock.
-     * Returns a HistoricalData object containing timestamps and prices.
+     * Runs {@link #fetchHistoricalData(String)} on the history loader threads.
+     * Cancelling the future interrupts a download that has not finished yet.
+     */
+    public static CompletableFuture<HistoricalData> fetchHistoricalDataAsync(String symbol) {
+        CompletableFuture<HistoricalData> result = new CompletableFuture<>();
+        Future<?> task = historyExecutor.submit(() -> {
+            try {
+                result.complete(fetchHistoricalData(symbol));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((data, error) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Returns full historical daily OHLCV data for a stock.
+     * Served from the local history store when available, topped up with an incremental
+     * refresh if it is missing recent sessions; otherwise downloaded in full and stored.
      */
     public static HistoricalData fetchHistoricalData(String symbol) {
-        try {
-            String urlString = "https://www.alphavantage.co/query"
-                    + "?function=TIME_SERIES_DAILY_ADJUSTED"
-                    + "&symbol=" + symbol
-                    + "&outputsize=full"
-                    + "&apikey=" + alphaVantageApiKey;
-
-            JSONObject response = fetchJson(urlString);
-            if (response == null) {
-                System.err.println("Failed to fetch data for " + symbol);
-                return null;
+        return fetchHistoricalData(symbol, Priority.INTERACTIVE);
+    }
+
+    /**
+     * As {@link #fetchHistoricalData(String)}, queuing any download in the given priority lane.
+     */
+    public static HistoricalData fetchHistoricalData(String symbol, Priority priority) {
+        HistoricalData cached = historyStore.load(symbol);
+        if (cached == null || cached.isEmpty()) {
+            return downloadFullHistory(symbol, priority);
+        }
+
+        LocalDate expected = latestCompletedSession();
+        if (!lastBarDate(cached).isBefore(expected) || expected.equals(refreshedThrough.get(symbol))) {
+            return cached;
+        }
+        return refreshHistoricalData(symbol, priority);
+    }
+
+    /**
+     * Non-blocking form of {@link #fetchHistoricalData(String, Priority)} for loading many symbols:
+     * no thread waits while a download is queued for a rate-limit token, and store reads,
+     * response parsing and store writes run on the history parser pool.
+     * The future completes with null if the history cannot be fetched.
+     */
+    public static CompletableFuture<HistoricalData> fetchHistoricalDataAsync(String symbol, Priority priority) {
+        return CompletableFuture.supplyAsync(() -> historyStore.load(symbol), historyParser).thenCompose(cached -> {
+            if (cached == null || cached.isEmpty()) {
+                return sharedDownload(symbol, "full", priority);
             }
 
-            JSONObject timeSeries = response.optJSONObject("Time Series (Daily)");
-            if (timeSeries == null) {
-                System.err.println("Invalid Alpha Vantage response for " + symbol);
-                return null;
+            LocalDate expected = latestCompletedSession();
+            if (!lastBarDate(cached).isBefore(expected) || expected.equals(refreshedThrough.get(symbol))) {
+                return CompletableFuture.completedFuture(cached);
             }
+            return sharedDownload(symbol, "compact", priority).thenCompose(recent -> {
+                HistoricalData merged = mergeRecent(symbol, cached, recent);
+                if (merged != null) return CompletableFuture.completedFuture(merged);
+                return sharedDownload(symbol, "full", priority)
+                        .thenApply(full -> full != null ? full : cached);
+            });
+        });
+    }
 
-            List<Long> timestamps = new ArrayList<>();
-            List<Double> closePrices = new ArrayList<>();
+    /**
+     * Incrementally updates a cached symbol using a compact fetch (about the last 100 bars)
+     * and appends only dates newer than the stored history.
+     * If the overlapping bars' adjusted closes differ from what is stored, a split or dividend
+     * has re-based the series and the full history is downloaded again instead.
+     */
+    public static HistoricalData refreshHistoricalData(String symbol) {
+        return refreshHistoricalData(symbol, Priority.INTERACTIVE);
+    }
 
-            // Alpha Vantage returns dates as string keys; sort to ensure order
-            List<String> dates = new ArrayList<>(timeSeries.keySet());
-            dates.sort(String::compareTo);
+    public static HistoricalData refreshHistoricalData(String symbol, Priority priority) {
+        HistoricalData cached = historyStore.load(symbol);
+        if (cached == null || cached.isEmpty()) {
+            return downloadFullHistory(symbol, priority);
+        }
 
-            // Parse each date and store the adjusted close
-            for (String date : dates) {
-                JSONObject dayData = timeSeries.getJSONObject(date);
-                double close = dayData.getDouble("5. adjusted close");
+        HistoricalData recent = downloadHistoricalData(symbol, "compact", priority);
+        HistoricalData merged = mergeRecent(symbol, cached, recent);
+        if (merged != null) {
+            return merged;
+        }
 
-                long epochTime = LocalDate.parse(date)
-                        .atStartOfDay(ZoneOffset.UTC)
-                        .toEpochSecond();
+        HistoricalData full = downloadFullHistory(symbol, priority);
+        return full != null ? full : cached;
+    }
+
+    /**
+     * Appends a compact download to the stored history and returns the updated series.
+     * Returns null when the stored series is re-based or too old to extend, so a full
+     * download is needed instead.
+     */
+    private static HistoricalData mergeRecent(String symbol, HistoricalData cached, HistoricalData recent) {
+        if (recent == null) {
+            return cached;
+        }
+        recent = completedSessions(recent);
+        if (recent.isEmpty()) {
+            return cached;
+        }
+
+        if (!overlaps(cached, recent) || adjustmentsChanged(cached, recent)) {
+            System.out.println("[StockDataFetcher] Stored history for " + symbol + " is re-based or too old; re-downloading");
+            return null;
+        }
+
+        historyStore.append(symbol, recent);
+        refreshedThrough.put(symbol, latestCompletedSession());
+
+        HistoricalData updated = historyStore.load(symbol);
+        return updated != null ? updated : cached;
+    }
+
+    private static HistoricalData downloadFullHistory(String symbol, Priority priority) {
+        return downloadHistoricalData(symbol, "full", priority);
+    }
+
+    private static HistoricalData storeFullHistory(String symbol, HistoricalData downloaded) {
+        if (downloaded == null) {
+            return null;
+        }
+        HistoricalData completed = completedSessions(downloaded);
+        historyStore.save(symbol, completed);
+        refreshedThrough.put(symbol, latestCompletedSession());
+        return completed;
+    }
 
-                timestamps.add(epochTime);
-                closePrices.add(close);
+    /**
+     * Drops bars for sessions that have not closed yet. A fetch during market hours includes
+     * today's unfinished bar; stored, it would be served as final once the session closes and
+     * later read as a re-based series when compared with the real close.
+     */
+    private static HistoricalData completedSessions(HistoricalData data) {
+        long cutoff = latestCompletedSession().plusDays(1).toEpochDay() * 86_400L;
+        int end = data.size();
+        while (end > 0 && data.timestamp(end - 1) >= cutoff) end--;
+        return end == data.size() ? data : data.range(0, end);
+    }
+
+    /**
+     * Returns whether the compact window starts at or before the last stored bar,
+     * i.e. there is no gap between stored and fresh data.
+     */
+    private static boolean overlaps(HistoricalData stored, HistoricalData recent) {
+        return recent.timestamp(0) <= stored.timestamp(stored.size() - 1);
+    }
+
+    /**
+     * Compares adjusted closes on dates present in both series.
+     */
+    private static boolean adjustmentsChanged(HistoricalData stored, HistoricalData recent) {
+        int j = stored.size() - 1;
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            long ts = recent.timestamp(i);
+            while (j >= 0 && stored.timestamp(j) > ts) j--;
+            if (j < 0) break;
+            if (stored.timestamp(j) != ts) continue;
+
+            double a = stored.adjClose(j);
+            double b = recent.adjClose(i);
+            if (Math.abs(a - b) > ADJUSTMENT_TOLERANCE * Math.max(1.0, Math.abs(a))) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            return new HistoricalData(timestamps, closePrices);
+    private static LocalDate lastBarDate(HistoricalData data) {
+        return LocalDate.ofEpochDay(Math.floorDiv(data.timestamp(data.size() - 1), 86_400L));
+    }
 
-        } catch (Exception e) {
+    /**
+     * The most recent weekday whose regular session has closed in New York.
+     * Exchange holidays are not modelled; they cost at most one compact fetch per session.
+     */
+    private static LocalDate latestCompletedSession() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.of("America/New_York"));
+        LocalDate date = now.toLocalTime().isBefore(LocalTime.of(16, 0))
+                ? now.toLocalDate().minusDays(1)
+                : now.toLocalDate();
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.minusDays(1);
+        }
+        return date;
+    }
+
+    /**
+     * Downloads daily OHLCV data from Alpha Vantage, blocking until it has been parsed
+     * (and, for a full download, stored).
+     * outputSize is "full" for the whole history or "compact" for roughly the last 100 bars.
+     */
+    private static HistoricalData downloadHistoricalData(String symbol, String outputSize, Priority priority) {
+        try {
+            // Waits for an Alpha Vantage token rather than being rejected by the API
+            return HttpService.await(sharedDownload(symbol, outputSize, priority));
+        } catch (IOException e) {
             System.err.printf("Failed to fetch or parse historical data for %s: %s%n", symbol, e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Joins the download of a symbol's history at the given output size, starting one if none
+     * is queued or in flight, so concurrent callers spend a single Alpha Vantage token.
+     * A caller at a higher priority promotes a download that is still queued. The body is
+     * parsed on the history parser pool and a full history is saved to the store before
+     * anyone sees it. Each caller gets its own future; the request is abandoned only when
+     * every caller has cancelled. Completes with null if the history cannot be fetched.
+     */
+    private static CompletableFuture<HistoricalData> sharedDownload(String symbol, String outputSize, Priority priority) {
+        String key = "alpha:history:" + symbol + ":" + outputSize;
+        HistoryDownload download;
+        synchronized (historyDownloads) {
+            download = historyDownloads.get(key);
+            if (download != null && !download.abandoned) {
+                RequestScheduler.promote(Provider.ALPHA_VANTAGE, key, priority);
+            } else {
+                download = new HistoryDownload();
+                historyDownloads.put(key, download);
+                download.request = startDownload(symbol, outputSize, priority, key, download);
+            }
+            download.waiters++;
+        }
+
+        HistoryDownload joined = download;
+        CompletableFuture<HistoricalData> copy = joined.result.copy();
+        copy.whenComplete((data, error) -> {
+            if (!copy.isCancelled()) return;
+            boolean abandoned;
+            synchronized (historyDownloads) {
+                abandoned = --joined.waiters == 0 && !joined.result.isDone();
+                if (abandoned) joined.abandoned = true;
+            }
+            if (abandoned) joined.request.cancel(true);
+        });
+        return copy;
+    }
+
+    private static CompletableFuture<InputStream> startDownload(String symbol, String outputSize, Priority priority,
+                                                               String key, HistoryDownload download) {
+        String urlString = MarketEndpoints.alphaVantage()
+                + "?function=TIME_SERIES_DAILY_ADJUSTED"
+                + "&symbol=" + encode(symbol)
+                + "&outputsize=" + outputSize
+                + "&apikey=" + alphaVantageApiKey;
+        CompletableFuture<InputStream> response = RequestScheduler.submit(Provider.ALPHA_VANTAGE, priority,
+                key, () -> HttpService.getStream(urlString));
+
+        response.thenApplyAsync(in -> {
+                    try {
+                        HistoricalData data = parseHistory(symbol, in);
+                        return "full".equals(outputSize) ? storeFullHistory(symbol, data) : data;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, historyParser)
+                .whenComplete((data, error) -> {
+                    synchronized (historyDownloads) {
+                        historyDownloads.remove(key, download);
+                    }
+                    if (error != null && !download.abandoned) {
+                        System.err.printf("Failed to fetch or parse historical data for %s: %s%n",
+                                symbol, HttpService.asIOException(error).getMessage());
+                    }
+                    download.result.complete(error == null ? data : null);
+                });
+        return response;
+    }
+
+    /**
+     * A history download shared by every caller that asked for it while it was running.
+     * Fields other than the result are guarded by the historyDownloads monitor.
+     */
+    private static final class HistoryDownload {
+        final CompletableFuture<HistoricalData> result = new CompletableFuture<>();
+        CompletableFuture<InputStream> request;
+        int waiters;
+        boolean abandoned;
+    }
+
+    /**
+     * Streams a response body straight into primitive columns and closes it.
+     * Returns null if Alpha Vantage answered with a message instead of a series.
+     */
+    private static HistoricalData parseHistory(String symbol, InputStream body) throws IOException {
+        TimeSeriesParser parser = new TimeSeriesParser();
+        HistoricalData data;
+        try (InputStream in = body) {
+            data = parser.parse(in);
+        }
+
+        if (data == null) {
+            String reason = parser.getApiMessage();
+            if (isRateLimitMessage(reason)) RequestScheduler.reportThrottled(Provider.ALPHA_VANTAGE);
+            System.err.println("Invalid Alpha Vantage response for " + symbol + (reason != null ? ": " + reason : ""));
+        }
+        return data;
+    }
+
+    /**
+     * Escapes a user-typed symbol for a query string.
+     */
+    private static String encode(String symbol) {
+        return URLEncoder.encode(symbol, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Alpha Vantage reports throttling as a 200 response with an informational message.
+     */
+    private static boolean isRateLimitMessage(String message) {
+        if (message == null) return false;
+        String lower = message.toLowerCase();
+        return lower.contains("rate limit") || lower.contains("call frequency");
+    }
 }
@@ -0,0 +1,321 @@
+package com.minibloomberg.logic;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only binary journal of every trade received from the feed, for replaying a
+ * market day later with {@link TickReplay}.
+ *
+ * Trades go into one segment per New York trading date, named ticks-YYYY-MM-DD.bin, with
+ * a matching .sym file listing the day's symbols one per line (line number = id). A segment
+ * grows up to the largest size that can be mapped ({@value #MAX_SEGMENT_RECORDS} records); a
+ * busier day continues in ticks-YYYY-MM-DD.1.bin, .2.bin and so on, sharing the .sym file.
+ *
+ * Segment layout (big-endian):
+ * - Header ({@value #HEADER_SIZE} bytes): magic (int), format version (int), record size (int),
+ *   reserved (int), committed record count (long), reserved (long)
+ * - Records ({@value #RECORD_SIZE} bytes each): symbol id (int), price (double),
+ *   volume (double), exchange timestamp millis (long), receive timestamp millis (long)
+ *
+ * The socket thread only copies each trade into a preallocated primitive ring; a writer
+ * thread drains it into the memory-mapped segment, so {@link #append} never blocks or does I/O.
+ * If the writer falls behind and the ring fills, new trades are dropped and counted.
+ * The record count in the header is updated after every drained batch, so a reader only
+ * ever sees complete records.
+ */
+public class TickJournal {
+
+    static final int MAGIC = 0x4D42544A; // "MBTJ"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 36;
+    static final int COUNT_OFFSET = 16;
+    static final long MAX_SEGMENT_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+    private static final int RING_CAPACITY = 1 << 16;
+    private static final int DRAIN_BATCH = 4096;
+    private static final long INITIAL_SEGMENT_RECORDS = 1 << 20;
+
+    private final Path directory;
+    private final long segmentRecordLimit;
+
+    // Ring of pending trades in primitive columns; single producer, single consumer
+    private final String[] symbols = new String[RING_CAPACITY];
+    private final double[] prices = new double[RING_CAPACITY];
+    private final double[] volumes = new double[RING_CAPACITY];
+    private final long[] exchangeTimes = new long[RING_CAPACITY];
+    private final long[] receiveTimes = new long[RING_CAPACITY];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Writer thread state
+    private Thread writer;
+    private volatile boolean running;
+    private LocalDate segmentDate;
+    private int segmentPart;
+    private long segmentStart;
+    private long segmentEnd;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long recordCount;
+    private long mappedRecords;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<String> newSymbols = new ArrayList<>();
+
+    public TickJournal(Path directory) {
+        this(directory, MAX_SEGMENT_RECORDS);
+    }
+
+    TickJournal(Path directory, long segmentRecordLimit) {
+        this.directory = directory;
+        this.segmentRecordLimit = Math.min(segmentRecordLimit, MAX_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Default location under the app's data directory.
+     */
+    public static Path defaultDirectory() {
+        return MarketEndpoints.dataDirectory().resolve("journal");
+    }
+
+    static Path segmentFile(Path directory, LocalDate date) {
+        return segmentFile(directory, date, 0);
+    }
+
+    /**
+     * The segment file for a date; part 0 is the day's first segment, later parts continue it.
+     */
+    static Path segmentFile(Path directory, LocalDate date, int part) {
+        return directory.resolve(part == 0 ? "ticks-" + date + ".bin" : "ticks-" + date + "." + part + ".bin");
+    }
+
+    static Path symbolFile(Path directory, LocalDate date) {
+        return directory.resolve("ticks-" + date + ".sym");
+    }
+
+    public synchronized void start() {
+        if (writer != null) return;
+        running = true;
+        writer = new Thread(this::writeLoop, "tick-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Drains what is left, then flushes and closes the current segment.
+     */
+    public synchronized void close() {
+        if (writer == null) return;
+        running = false;
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    /**
+     * Producer (socket thread): queues one trade for writing. Never blocks.
+     */
+    public void append(String symbol, double price, double volume, long exchangeTime, long receiveTime) {
+        long t = tail.get();
+        if (t - head.get() >= RING_CAPACITY) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        int slot = (int) (t & (RING_CAPACITY - 1));
+        symbols[slot] = symbol;
+        prices[slot] = price;
+        volumes[slot] = volume;
+        exchangeTimes[slot] = exchangeTime;
+        receiveTimes[slot] = receiveTime;
+        tail.lazySet(t + 1);
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        try {
+            while (running || head.get() < tail.get()) {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(1_000_000);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[TickJournal] Journal stopped: " + e.getMessage());
+        } finally {
+            closeSegment();
+        }
+    }
+
+    /**
+     * Consumer (writer thread): writes up to one batch of queued trades to the segment.
+     */
+    private int drain() throws IOException {
+        long h = head.get();
+        long available = Math.min(tail.get() - h, DRAIN_BATCH);
+        if (available == 0) return 0;
+
+        for (long i = 0; i < available; i++) {
+            int slot = (int) ((h + i) & (RING_CAPACITY - 1));
+            long receiveTime = receiveTimes[slot];
+
+            if (receiveTime < segmentStart || receiveTime >= segmentEnd) {
+                openSegment(Instant.ofEpochMilli(receiveTime).atZone(MARKET_ZONE).toLocalDate());
+            }
+            if (recordCount >= mappedRecords) {
+                if (mappedRecords < segmentRecordLimit) remap(Math.min(mappedRecords * 2, segmentRecordLimit));
+                else openPart(segmentPart + 1);
+            }
+
+            int position = (int) (HEADER_SIZE + recordCount * RECORD_SIZE);
+            segment.putInt(position, symbolId(symbols[slot]));
+            segment.putDouble(position + 4, prices[slot]);
+            segment.putDouble(position + 12, volumes[slot]);
+            segment.putLong(position + 20, exchangeTimes[slot]);
+            segment.putLong(position + 28, receiveTime);
+            symbols[slot] = null;
+            recordCount++;
+        }
+
+        head.lazySet(h + available);
+        commit();
+        written.addAndGet(available);
+        return (int) available;
+    }
+
+    private int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            id = symbolIds.size();
+            symbolIds.put(symbol, id);
+            newSymbols.add(symbol);
+        }
+        return id;
+    }
+
+    /**
+     * Publishes newly seen symbols, then the record count, so readers never see an id
+     * without its symbol.
+     */
+    private void commit() throws IOException {
+        if (segment == null) return;
+
+        if (!newSymbols.isEmpty()) {
+            Files.write(symbolFile(directory, segmentDate), newSymbols, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            newSymbols.clear();
+        }
+        segment.putLong(COUNT_OFFSET, recordCount);
+    }
+
+    /**
+     * Opens (or reopens, after a restart) the last segment for a date and positions after
+     * its last committed record.
+     */
+    private void openSegment(LocalDate date) throws IOException {
+        closeSegment();
+        Files.createDirectories(directory);
+
+        segmentDate = date;
+        segmentStart = date.atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+        segmentEnd = date.plusDays(1).atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+        symbolIds.clear();
+        Path symbolsPath = symbolFile(directory, date);
+        if (Files.isRegularFile(symbolsPath)) {
+            for (String symbol : Files.readAllLines(symbolsPath, StandardCharsets.UTF_8)) {
+                symbolIds.put(symbol, symbolIds.size());
+            }
+        }
+
+        int part = 0;
+        while (Files.exists(segmentFile(directory, date, part + 1))) part++;
+        openPart(part);
+    }
+
+    /**
+     * Switches to one part of the current date's segments, creating it if needed.
+     */
+    private void openPart(int part) throws IOException {
+        closeChannel();
+        segmentPart = part;
+
+        Path file = segmentFile(directory, segmentDate, part);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean existing = channel.size() >= HEADER_SIZE;
+        long existingRecords = existing ? (channel.size() - HEADER_SIZE) / RECORD_SIZE : 0;
+        remap(Math.min(Math.max(INITIAL_SEGMENT_RECORDS, existingRecords), segmentRecordLimit));
+
+        if (existing && segment.getInt(0) == MAGIC && segment.getInt(4) == FORMAT_VERSION
+                && segment.getInt(8) == RECORD_SIZE) {
+            recordCount = segment.getLong(COUNT_OFFSET);   // A full part continues in the next one
+        } else {
+            if (existing) System.err.println("[TickJournal] Overwriting unreadable segment " + file);
+            segment.putInt(0, MAGIC);
+            segment.putInt(4, FORMAT_VERSION);
+            segment.putInt(8, RECORD_SIZE);
+            recordCount = 0;
+            segment.putLong(COUNT_OFFSET, 0);
+        }
+    }
+
+    /**
+     * Maps the segment with room for the given number of records (at most the limit, so the
+     * mapping stays under 2 GB), growing the file if needed.
+     */
+    private void remap(long records) throws IOException {
+        long size = HEADER_SIZE + records * RECORD_SIZE;
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        segment.order(ByteOrder.BIG_ENDIAN);
+        mappedRecords = records;
+    }
+
+    private void closeSegment() {
+        closeChannel();
+        segmentDate = null;
+        segmentStart = segmentEnd = 0;
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            commit();
+            segment.force();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("[TickJournal] Failed to close segment " + segmentDate + "." + segmentPart
+                    + ": " + e.getMessage());
+        }
+        channel = null;
+        segment = null;
+    }
+}
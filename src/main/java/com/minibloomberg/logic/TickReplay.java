@@ -0,0 +1,169 @@
+package com.minibloomberg.logic;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays back one day of a {@link TickJournal} through the same {@link TradeFrameParser.TradeHandler}
+ * path the live socket uses, so every consumer sees the day as it was received.
+ *
+ * Trades received together are delivered as one frame. Gaps between frames follow the
+ * original receive times divided by the speed: 1 for real time, N for N times faster,
+ * or {@link #MAX_SPEED} to deliver everything as fast as the consumers take it.
+ */
+public class TickReplay {
+
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    private final Path directory;
+    private final LocalDate date;
+    private final double speed;
+
+    private volatile boolean stopped;
+    private volatile long replayedCount;
+
+    /**
+     * @param speed playback rate relative to real time; {@link #MAX_SPEED} for no pacing
+     */
+    public TickReplay(Path directory, LocalDate date, double speed) {
+        if (!(speed > 0)) throw new IllegalArgumentException("Replay speed must be positive: " + speed);
+        this.directory = directory;
+        this.date = date;
+        this.speed = speed;
+    }
+
+    /**
+     * Parses a speed setting such as "1", "10" or "max".
+     */
+    public static double parseSpeed(String value) {
+        if (value == null || value.isBlank()) return 1;
+        if ("max".equalsIgnoreCase(value.trim())) return MAX_SPEED;
+        return Double.parseDouble(value.trim());
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Symbols recorded for the day, in order of first appearance.
+     */
+    public Set<String> getSymbols() {
+        try {
+            return new LinkedHashSet<>(readSymbols());
+        } catch (IOException e) {
+            System.err.println("[TickReplay] Failed to read symbols for " + date + ": " + e.getMessage());
+            return Set.of();
+        }
+    }
+
+    public long getReplayedCount() {
+        return replayedCount;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Delivers the whole day to the handler on the calling thread, returning when the
+     * journal is exhausted or {@link #stop()} is called. A day split across continuation
+     * segments is played as one.
+     */
+    public void run(TradeFrameParser.TradeHandler handler) throws IOException {
+        String[] symbols = readSymbols().toArray(new String[0]);
+
+        long replayed = 0;
+        long firstReceive = 0;
+        long startNanos = System.nanoTime();
+        long frameReceive = Long.MIN_VALUE;
+        boolean frameOpen = false;
+
+        for (int part = 0; !stopped; part++) {
+            Path file = TickJournal.segmentFile(directory, date, part);
+            if (part > 0 && !Files.isRegularFile(file)) break;
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer segment = mapRecords(channel, file);
+                long count = (segment.limit() - TickJournal.HEADER_SIZE) / TickJournal.RECORD_SIZE;
+
+                for (int position = TickJournal.HEADER_SIZE; count > 0 && !stopped;
+                     position += TickJournal.RECORD_SIZE, count--) {
+                    int symbolId = segment.getInt(position);
+                    double price = segment.getDouble(position + 4);
+                    double volume = segment.getDouble(position + 12);
+                    long exchangeTime = segment.getLong(position + 20);
+                    long receiveTime = segment.getLong(position + 28);
+
+                    if (receiveTime != frameReceive) {
+                        if (frameOpen) handler.onFrameEnd();
+                        if (replayed == 0) firstReceive = receiveTime;
+                        else pace(startNanos, receiveTime - firstReceive);
+                        frameReceive = receiveTime;
+                        frameOpen = true;
+                    }
+
+                    if (symbolId >= 0 && symbolId < symbols.length) {
+                        handler.onTrade(symbols[symbolId], price, volume, exchangeTime);
+                    }
+                    replayedCount = ++replayed;
+                }
+            }
+        }
+        if (frameOpen) handler.onFrameEnd();
+    }
+
+    /**
+     * Checks a segment's header and maps its committed records. The count is checked
+     * against the file, so a damaged header cannot map past its end.
+     */
+    private static MappedByteBuffer mapRecords(FileChannel channel, Path file) throws IOException {
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(channel.size(), TickJournal.HEADER_SIZE));
+        segment.order(ByteOrder.BIG_ENDIAN);
+        if (segment.limit() < TickJournal.HEADER_SIZE || segment.getInt(0) != TickJournal.MAGIC
+                || segment.getInt(4) != TickJournal.FORMAT_VERSION || segment.getInt(8) != TickJournal.RECORD_SIZE) {
+            throw new IOException("Not a readable tick journal: " + file);
+        }
+
+        long count = segment.getLong(TickJournal.COUNT_OFFSET);
+        long size = TickJournal.HEADER_SIZE + count * TickJournal.RECORD_SIZE;
+        if (count < 0 || count > TickJournal.MAX_SEGMENT_RECORDS || size > channel.size()) {
+            throw new IOException("Invalid record count " + count + " in " + file);
+        }
+
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        segment.order(ByteOrder.BIG_ENDIAN);
+        return segment;
+    }
+
+    /**
+     * Sleeps until the given offset into the recorded day is due at the replay speed.
+     */
+    private void pace(long startNanos, long recordedOffsetMs) {
+        if (speed == MAX_SPEED) return;
+
+        long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(recordedOffsetMs) / speed);
+        long waitNanos;
+        while (!stopped && (waitNanos = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+    }
+
+    private List<String> readSymbols() throws IOException {
+        Path file = TickJournal.symbolFile(directory, date);
+        return Files.isRegularFile(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : List.of();
+    }
+}
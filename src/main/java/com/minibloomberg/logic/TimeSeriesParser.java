@@ -0,0 +1,410 @@
+package com.minibloomberg.logic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.minibloomberg.data.HistoricalData;
+
+/**
+ * Streaming parser for Alpha Vantage daily time-series responses.
+ * Reads the response once, character by character, and writes each bar straight into
+ * growable primitive column buffers without building a JSON tree or keeping the response text.
+ * Alpha Vantage lists dates newest first, so the columns are reversed in place at the end
+ * rather than sorted.
+ *
+ * Instances keep reusable scratch buffers and are not thread-safe.
+ */
+public final class TimeSeriesParser {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Input buffering
+    private Reader reader;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+
+    // Scratch space for the current key or value
+    private char[] token = new char[64];
+    private int tokenLength;
+
+    // Column buffers
+    private long[] timestamps;
+    private double[] open, high, low, close, adjClose, volume;
+    private int size;
+
+    // Message Alpha Vantage sends instead of data when throttled or given a bad symbol
+    private String apiMessage;
+
+    /**
+     * Parses a response body.
+     *
+     * @return the series, oldest bar first, or null if the response carried no time series
+     *         (see {@link #getApiMessage()} for the reason Alpha Vantage gave)
+     */
+    public HistoricalData parse(InputStream in) throws IOException {
+        reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        pos = 0;
+        limit = 0;
+        size = 0;
+        apiMessage = null;
+        boolean sawSeries = false;
+
+        allocateColumns(INITIAL_CAPACITY);
+
+        try {
+            expect('{');
+            if (peekSignificant() == '}') return null;
+
+            do {
+                readString();
+                expect(':');
+
+                if (tokenStartsWith("Time Series")) {
+                    parseSeries();
+                    sawSeries = true;
+                } else if (tokenEquals("Note") || tokenEquals("Information") || tokenEquals("Error Message")) {
+                    readString();
+                    apiMessage = new String(token, 0, tokenLength);
+                } else {
+                    skipValue();
+                }
+            } while (nextSignificant() == ',');
+
+        } finally {
+            reader = null;
+        }
+
+        if (!sawSeries) return null;
+
+        orderOldestFirst();
+        HistoricalData data = new HistoricalData(timestamps, open, high, low, close, adjClose, volume).range(0, size);
+        releaseColumns();
+        return data;
+    }
+
+    /**
+     * Returns the Note/Information/Error Message text from the last parsed response, if any.
+     */
+    public String getApiMessage() {
+        return apiMessage;
+    }
+
+    private void parseSeries() throws IOException {
+        expect('{');
+        if (peekSignificant() == '}') {
+            nextSignificant();
+            return;
+        }
+
+        do {
+            readString();
+            long epoch = parseDateToken();
+            expect(':');
+
+            if (size == timestamps.length) growColumns();
+            int i = size++;
+            timestamps[i] = epoch;
+            open[i] = high[i] = low[i] = close[i] = volume[i] = 0;
+            adjClose[i] = Double.NaN;
+            parseBar(i);
+            if (Double.isNaN(adjClose[i])) adjClose[i] = close[i];
+
+        } while (nextSignificant() == ',');
+    }
+
+    private void parseBar(int i) throws IOException {
+        expect('{');
+        if (peekSignificant() == '}') {
+            nextSignificant();
+            return;
+        }
+
+        do {
+            readString();
+            // Keys look like "1. open", "5. adjusted close", "6. volume"
+            char field = tokenLength > 0 ? token[0] : ' ';
+            boolean isVolume = tokenLength > 3 && token[3] == 'v';
+            expect(':');
+
+            switch (field) {
+                case '1' -> open[i] = readNumber();
+                case '2' -> high[i] = readNumber();
+                case '3' -> low[i] = readNumber();
+                case '4' -> close[i] = readNumber();
+                case '5' -> {
+                    if (isVolume) volume[i] = readNumber();
+                    else adjClose[i] = readNumber();
+                }
+                case '6' -> volume[i] = readNumber();
+                default -> skipValue();
+            }
+        } while (nextSignificant() == ',');
+    }
+
+    /**
+     * Reads a numeric value, which Alpha Vantage sends as a quoted string.
+     */
+    private double readNumber() throws IOException {
+        if (peekSignificant() == '"') {
+            readString();
+        } else {
+            tokenLength = 0;
+            int c;
+            while ((c = peek()) != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                appendToken((char) read());
+            }
+        }
+        return parseDoubleToken();
+    }
+
+    private double parseDoubleToken() {
+        int i = 0;
+        boolean negative = false;
+        if (i < tokenLength && token[i] == '-') {
+            negative = true;
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (; i < tokenLength; i++) {
+            char c = token[i];
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') digits++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (inFraction) fractionDigits++;
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                // Exponents and anything unusual go through the JDK parser
+                return parseDoubleSlow();
+            }
+        }
+
+        if (digits > 15 || fractionDigits > 22) return parseDoubleSlow();
+        double value = mantissa / POW10[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow() {
+        try {
+            return Double.parseDouble(new String(token, 0, tokenLength));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Converts a "YYYY-MM-DD" token to epoch seconds at UTC midnight.
+     */
+    private long parseDateToken() throws IOException {
+        if (tokenLength < 10 || token[4] != '-' || token[7] != '-') {
+            throw new IOException("Unexpected date key: " + new String(token, 0, tokenLength));
+        }
+        int year = digitsAt(0, 4);
+        int month = digitsAt(5, 2);
+        int day = digitsAt(8, 2);
+        return daysFromCivil(year, month, day) * 86_400L;
+    }
+
+    private int digitsAt(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) value = value * 10 + (token[i] - '0');
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's algorithm).
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return (long) era * 146_097 + doe - 719_468;
+    }
+
+    /**
+     * Reverses descending input in place; falls back to a sort for any other order.
+     */
+    private void orderOldestFirst() {
+        if (size < 2) return;
+
+        boolean descending = true;
+        boolean ascending = true;
+        for (int i = 1; i < size; i++) {
+            if (timestamps[i] > timestamps[i - 1]) descending = false;
+            if (timestamps[i] < timestamps[i - 1]) ascending = false;
+        }
+        if (ascending) return;
+
+        if (descending) {
+            for (int i = 0, j = size - 1; i < j; i++, j--) swap(i, j);
+            return;
+        }
+
+        // Unexpected ordering: simple insertion sort keeps the columns aligned
+        for (int i = 1; i < size; i++) {
+            for (int j = i; j > 0 && timestamps[j] < timestamps[j - 1]; j--) swap(j, j - 1);
+        }
+    }
+
+    private void swap(int a, int b) {
+        long t = timestamps[a]; timestamps[a] = timestamps[b]; timestamps[b] = t;
+        double d;
+        d = open[a]; open[a] = open[b]; open[b] = d;
+        d = high[a]; high[a] = high[b]; high[b] = d;
+        d = low[a]; low[a] = low[b]; low[b] = d;
+        d = close[a]; close[a] = close[b]; close[b] = d;
+        d = adjClose[a]; adjClose[a] = adjClose[b]; adjClose[b] = d;
+        d = volume[a]; volume[a] = volume[b]; volume[b] = d;
+    }
+
+    private void allocateColumns(int capacity) {
+        timestamps = new long[capacity];
+        open = new double[capacity];
+        high = new double[capacity];
+        low = new double[capacity];
+        close = new double[capacity];
+        adjClose = new double[capacity];
+        volume = new double[capacity];
+    }
+
+    private void growColumns() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        open = Arrays.copyOf(open, capacity);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        close = Arrays.copyOf(close, capacity);
+        adjClose = Arrays.copyOf(adjClose, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+    }
+
+    // The returned series owns the columns; drop our references so they are not reused
+    private void releaseColumns() {
+        timestamps = null;
+        open = high = low = close = adjClose = volume = null;
+    }
+
+    // ---- Tokenizer ----
+
+    /**
+     * Reads a JSON string into the token buffer (escape sequences are resolved for the
+     * simple escapes; unicode escapes are kept verbatim, which is fine for keys and numbers).
+     */
+    private void readString() throws IOException {
+        expect('"');
+        tokenLength = 0;
+        while (true) {
+            int c = read();
+            if (c == -1) throw new IOException("Unterminated string");
+            if (c == '"') return;
+            if (c == '\\') {
+                int escaped = read();
+                switch (escaped) {
+                    case 'n' -> c = '\n';
+                    case 't' -> c = '\t';
+                    case 'r' -> c = '\r';
+                    case 'b' -> c = '\b';
+                    case 'f' -> c = '\f';
+                    case -1 -> throw new IOException("Unterminated string");
+                    default -> c = escaped;
+                }
+            }
+            appendToken((char) c);
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = peekSignificant();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                int d = read();
+                if (d == -1) throw new IOException("Unexpected end of input");
+                if (d == '"') {
+                    pos--;
+                    readString();
+                } else if (d == '{' || d == '[') {
+                    depth++;
+                } else if (d == '}' || d == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            while ((c = peek()) != -1 && c != ',' && c != '}' && c != ']') read();
+        }
+    }
+
+    private void appendToken(char c) {
+        if (tokenLength == token.length) token = Arrays.copyOf(token, token.length * 2);
+        token[tokenLength++] = c;
+    }
+
+    private boolean tokenEquals(String s) {
+        return tokenLength == s.length() && tokenStartsWith(s);
+    }
+
+    private boolean tokenStartsWith(String s) {
+        if (tokenLength < s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (token[i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = nextSignificant();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' but found " + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+        }
+    }
+
+    private int nextSignificant() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int peekSignificant() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && Character.isWhitespace(c)) pos++;
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,405 @@
+package com.minibloomberg.logic;
+
+/**
+ * Single-pass parser for Finnhub trade frames of the shape
+ * {"type":"trade","data":[{"s":..,"p":..,"v":..,"t":..}, ...]}, in any member order
+ * and with any whitespace between tokens.
+ * Reads characters straight out of the frame into primitive fields and hands each
+ * trade to a {@link TradeHandler} without building a JSON tree or any per-trade objects.
+ * Symbols are interned in a small table so repeat symbols resolve to the same String.
+ *
+ * Instances keep reusable scratch state and are not thread-safe; use one per socket thread.
+ */
+public final class TradeFrameParser {
+
+    /**
+     * Receives each trade decoded from a frame.
+     */
+    public interface TradeHandler {
+        void onTrade(String symbol, double price, double volume, long timestamp);
+
+        /**
+         * Called once after all trades of a frame have been delivered.
+         */
+        default void onFrameEnd() {
+        }
+    }
+
+    private static final String TYPE_KEY = "\"type\"";
+    private static final String TRADE_TYPE = "\"trade\"";
+
+    // Exact powers of ten for fast decimal conversion (10^22 is the largest exact double)
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    // Current frame and cursor
+    private String frame;
+    private int pos;
+    private boolean stringEscaped;  // Whether the last string read contained escape sequences
+
+    // Reusable fields for the trade currently being decoded
+    private String symbol;
+    private double price;
+    private double volume;
+    private long timestamp;
+
+    /**
+     * Parses a frame and dispatches every trade in it to the handler.
+     *
+     * @return true if the frame was a trade frame, false if it is some other message type
+     *         (ping replies, errors) that the caller should handle on its generic path
+     * @throws IllegalArgumentException if the frame claims to be a trade frame but is malformed
+     */
+    public boolean parse(String message, TradeHandler handler) {
+        if (!isTradeFrame(message)) return false;
+
+        frame = message;
+        pos = 0;
+        try {
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                handler.onFrameEnd();
+                return true;
+            }
+
+            while (true) {
+                skipWhitespace();
+                int keyStart = readStringBounds();
+                int keyEnd = pos - 1;
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+
+                if (keyEquals(keyStart, keyEnd, "data") && peek() == '[') {
+                    parseTrades(handler);
+                } else {
+                    skipValue();
+                }
+
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    handler.onFrameEnd();
+                    return true;
+                }
+                if (c != ',') throw malformed();
+            }
+        } finally {
+            frame = null;
+        }
+    }
+
+    /**
+     * Cheap pre-check for a "type": "trade" member, allowing whitespace around the colon,
+     * so other message types are left to the caller without a full parse.
+     */
+    private static boolean isTradeFrame(String message) {
+        int from = 0;
+        while (true) {
+            int key = message.indexOf(TYPE_KEY, from);
+            if (key < 0) return false;
+
+            int i = skipWhitespace(message, key + TYPE_KEY.length());
+            if (i < message.length() && message.charAt(i) == ':') {
+                i = skipWhitespace(message, i + 1);
+                if (message.startsWith(TRADE_TYPE, i)) return true;
+            }
+            from = key + 1;
+        }
+    }
+
+    private static int skipWhitespace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    private void parseTrades(TradeHandler handler) {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            parseTrade();
+            if (symbol != null) {
+                handler.onTrade(symbol, price, volume, timestamp);
+            }
+
+            skipWhitespace();
+            char c = next();
+            if (c == ']') return;
+            if (c != ',') throw malformed();
+        }
+    }
+
+    private void parseTrade() {
+        symbol = null;
+        price = Double.NaN;
+        volume = 0;
+        timestamp = 0;
+
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+
+        while (true) {
+            skipWhitespace();
+            int keyStart = readStringBounds();
+            int keyEnd = pos - 1;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (keyEnd - keyStart == 1) {
+                switch (frame.charAt(keyStart)) {
+                    case 's' -> symbol = readSymbol();
+                    case 'p' -> price = readDouble();
+                    case 'v' -> volume = readDouble();
+                    case 't' -> timestamp = (long) readDouble();
+                    default -> skipValue();
+                }
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            char c = next();
+            if (c == '}') return;
+            if (c != ',') throw malformed();
+        }
+    }
+
+    /**
+     * Consumes a JSON string and returns the index of its first character.
+     * On return the cursor sits just past the closing quote, so the content ends at pos - 1,
+     * and {@link #stringEscaped} says whether the raw content needs unescaping.
+     */
+    private int readStringBounds() {
+        expect('"');
+        int start = pos;
+        stringEscaped = false;
+        while (true) {
+            char c = next();
+            if (c == '"') return start;
+            if (c == '\\') {
+                stringEscaped = true;
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Reads a symbol string, interned. Symbols with escape sequences are rare enough to
+     * take a decoding slow path.
+     */
+    private String readSymbol() {
+        int start = readStringBounds();
+        int end = pos - 1;
+        if (!stringEscaped) return symbols.intern(frame, start, end);
+        String decoded = unescape(start, end);
+        return symbols.intern(decoded, 0, decoded.length());
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder out = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = frame.charAt(i);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (++i >= end) throw malformed();
+            char e = frame.charAt(i);
+            switch (e) {
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    if (i + 4 >= end) throw malformed();
+                    try {
+                        out.append((char) Integer.parseInt(frame, i + 1, i + 5, 16));
+                    } catch (NumberFormatException ex) {
+                        throw malformed();
+                    }
+                    i += 4;
+                }
+                default -> out.append(e);   // \" \\ \/
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads a JSON number without allocating. Falls back to Double.parseDouble only for
+     * inputs that cannot be converted exactly (very long mantissas or extreme exponents).
+     */
+    private double readDouble() {
+        if (peek() == 'n') {
+            skipValue();
+            return Double.NaN;
+        }
+
+        int start = pos;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        int exponent = 0;
+
+        while (pos < frame.length()) {
+            char c = frame.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') digits++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (inFraction) fractionDigits++;
+                pos++;
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+                pos++;
+            } else if (c == 'e' || c == 'E') {
+                pos++;
+                boolean negativeExp = false;
+                if (peek() == '+' || peek() == '-') {
+                    negativeExp = next() == '-';
+                }
+                while (pos < frame.length() && Character.isDigit(frame.charAt(pos))) {
+                    exponent = exponent * 10 + (frame.charAt(pos++) - '0');
+                }
+                if (negativeExp) exponent = -exponent;
+                break;
+            } else {
+                break;
+            }
+        }
+
+        if (pos == start) throw malformed();
+
+        int scale = exponent - fractionDigits;
+        if (digits > 15 || scale < -22 || scale > 22) {
+            return Double.parseDouble(frame.substring(start, pos));
+        }
+
+        double value = scale < 0 ? mantissa / POW10[-scale] : mantissa * POW10[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips over any JSON value (object, array, string, number, literal).
+     */
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            readStringBounds();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                char d = next();
+                if (d == '"') {
+                    pos--;
+                    readStringBounds();
+                } else if (d == '{' || d == '[') {
+                    depth++;
+                } else if (d == '}' || d == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            while (pos < frame.length()) {
+                char d = frame.charAt(pos);
+                if (d == ',' || d == '}' || d == ']' || Character.isWhitespace(d)) break;
+                pos++;
+            }
+        }
+    }
+
+    private boolean keyEquals(int start, int end, String key) {
+        return end - start == key.length() && frame.regionMatches(start, key, 0, key.length());
+    }
+
+    private void skipWhitespace() {
+        while (pos < frame.length() && Character.isWhitespace(frame.charAt(pos))) pos++;
+    }
+
+    private char peek() {
+        if (pos >= frame.length()) throw malformed();
+        return frame.charAt(pos);
+    }
+
+    private char next() {
+        if (pos >= frame.length()) throw malformed();
+        return frame.charAt(pos++);
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) throw malformed();
+    }
+
+    private IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed trade frame at offset " + pos);
+    }
+
+    /**
+     * Open-addressed intern table mapping symbol characters to a canonical String,
+     * so a symbol only allocates the first time it is seen.
+     */
+    private static final class SymbolTable {
+        private String[] slots = new String[64];
+        private int size;
+
+        String intern(String src, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) hash = 31 * hash + src.charAt(i);
+
+            int len = end - start;
+            int mask = slots.length - 1;
+            int idx = mix(hash) & mask;
+            while (true) {
+                String existing = slots[idx];
+                if (existing == null) break;
+                if (existing.length() == len && src.regionMatches(start, existing, 0, len)) return existing;
+                idx = (idx + 1) & mask;
+            }
+
+            String created = src.substring(start, end);
+            slots[idx] = created;
+            if (++size * 2 > slots.length) rehash();
+            return created;
+        }
+
+        private void rehash() {
+            String[] old = slots;
+            slots = new String[old.length * 2];
+            int mask = slots.length - 1;
+            for (String s : old) {
+                if (s == null) continue;
+                int idx = mix(s.hashCode()) & mask;
+                while (slots[idx] != null) idx = (idx + 1) & mask;
+                slots[idx] = s;
+            }
+        }
+
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
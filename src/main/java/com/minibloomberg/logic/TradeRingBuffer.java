@@ -0,0 +1,211 @@
+package com.minibloomberg.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer queue of trades stored in primitive columns.
+ * The producer is the socket thread, the consumer a dedicated drain thread.
+ *
+ * Overflow handling is chosen with {@link OverflowPolicy}:
+ * - DROP_OLDEST: a full buffer discards its oldest unconsumed trade to make room
+ * - CONFLATE: within one frame only the latest trade per symbol is kept; if the buffer
+ *   is still full the oldest trade is dropped
+ * - BLOCK: the producer waits for the consumer to free a slot
+ *
+ * Counters for enqueued, dropped and conflated trades are exposed for monitoring.
+ * Memory is fixed at construction, so it stays flat however long the feed runs.
+ *
+ * An idle consumer parks in {@link #awaitTrades} and the producer unparks it on the next
+ * publish, so a quiet feed costs no CPU.
+ */
+public class TradeRingBuffer {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST, CONFLATE, BLOCK
+    }
+
+    /**
+     * Receives trades drained from the buffer.
+     */
+    public interface TradeConsumer {
+        void accept(String symbol, double price, double volume, long timestamp);
+    }
+
+    private static final int FRAME_STAGING_CAPACITY = 256;
+
+    private final OverflowPolicy policy;
+    private final int mask;
+
+    private final String[] symbols;
+    private final double[] prices;
+    private final double[] volumes;
+    private final long[] timestamps;
+
+    // head: next slot to consume (advanced by the consumer, or by the producer when dropping oldest)
+    // tail: next slot to fill (advanced only by the producer)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // Consumer parked in awaitTrades, or null
+    private volatile Thread waitingConsumer;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+
+    // Per-frame staging used by CONFLATE (producer thread only)
+    private final String[] stagedSymbols = new String[FRAME_STAGING_CAPACITY];
+    private final double[] stagedPrices = new double[FRAME_STAGING_CAPACITY];
+    private final double[] stagedVolumes = new double[FRAME_STAGING_CAPACITY];
+    private final long[] stagedTimestamps = new long[FRAME_STAGING_CAPACITY];
+    private int stagedCount;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public TradeRingBuffer(int capacity, OverflowPolicy policy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.policy = policy;
+        this.symbols = new String[size];
+        this.prices = new double[size];
+        this.volumes = new double[size];
+        this.timestamps = new long[size];
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Producer: adds a trade. Under CONFLATE it is staged until {@link #endFrame()}.
+     */
+    public void offer(String symbol, double price, double volume, long timestamp) {
+        if (policy != OverflowPolicy.CONFLATE) {
+            publish(symbol, price, volume, timestamp);
+            return;
+        }
+
+        // Symbols are interned by the frame parser, so identity comparison is enough
+        for (int i = 0; i < stagedCount; i++) {
+            if (stagedSymbols[i] == symbol || stagedSymbols[i].equals(symbol)) {
+                stagedPrices[i] = price;
+                stagedVolumes[i] = volume;
+                stagedTimestamps[i] = timestamp;
+                conflated.incrementAndGet();
+                return;
+            }
+        }
+
+        if (stagedCount == FRAME_STAGING_CAPACITY) endFrame();
+        stagedSymbols[stagedCount] = symbol;
+        stagedPrices[stagedCount] = price;
+        stagedVolumes[stagedCount] = volume;
+        stagedTimestamps[stagedCount] = timestamp;
+        stagedCount++;
+    }
+
+    /**
+     * Producer: marks the end of a socket frame, publishing any conflated trades.
+     */
+    public void endFrame() {
+        for (int i = 0; i < stagedCount; i++) {
+            publish(stagedSymbols[i], stagedPrices[i], stagedVolumes[i], stagedTimestamps[i]);
+            stagedSymbols[i] = null;
+        }
+        stagedCount = 0;
+    }
+
+    private void publish(String symbol, double price, double volume, long timestamp) {
+        long t = tail.get();
+        while (t - head.get() > mask) {
+            if (policy == OverflowPolicy.BLOCK) {
+                LockSupport.parkNanos(50_000);
+                if (Thread.currentThread().isInterrupted()) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            } else {
+                // Drop the oldest trade; fails harmlessly if the consumer just took it
+                long h = head.get();
+                if (t - h > mask && head.compareAndSet(h, h + 1)) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+
+        int slot = (int) (t & mask);
+        symbols[slot] = symbol;
+        prices[slot] = price;
+        volumes[slot] = volume;
+        timestamps[slot] = timestamp;
+        // A full volatile write, so either the consumer sees the trade or we see it waiting
+        tail.set(t + 1);
+        enqueued.incrementAndGet();
+
+        Thread waiter = waitingConsumer;
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+
+    /**
+     * Consumer: parks until a trade is published, the timeout passes or the thread is
+     * interrupted. Returns at once if trades are already waiting.
+     */
+    public void awaitTrades(long timeoutNanos) {
+        if (head.get() < tail.get()) return;
+
+        waitingConsumer = Thread.currentThread();
+        try {
+            if (head.get() >= tail.get()) LockSupport.parkNanos(this, timeoutNanos);
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    /**
+     * Consumer: hands up to {@code max} trades to the consumer in arrival order.
+     *
+     * @return the number of trades delivered
+     */
+    public int drain(TradeConsumer consumer, int max) {
+        int delivered = 0;
+        while (delivered < max) {
+            long h = head.get();
+            if (h >= tail.get()) break;
+
+            int slot = (int) (h & mask);
+            String symbol = symbols[slot];
+            double price = prices[slot];
+            double volume = volumes[slot];
+            long timestamp = timestamps[slot];
+
+            // If the producer dropped this slot meanwhile, the values may be torn; retry
+            if (!head.compareAndSet(h, h + 1)) continue;
+
+            consumer.accept(symbol, price, volume, timestamp);
+            delivered++;
+        }
+        return delivered;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getConflatedCount() {
+        return conflated.get();
+    }
+}
@@ -1,29 +1,51 @@
 package com.minibloomberg.logic;
 
 import java.awt.Color;
-import java.net.URI;
-import java.net.URL;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 
-import org.java_websocket.client.WebSocketClient;
-import org.java_websocket.handshake.ServerHandshake;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import com.minibloomberg.logic.RequestScheduler.Priority;
+import com.minibloomberg.logic.RequestScheduler.Provider;
+
 import io.github.cdimascio.dotenv.Dotenv;
 
 /**
  * Manages the trade tape functionality in both real-time (market hours) and simulated (after-hours) modes.
- * Handles top tickers, WebSocket connection for live updates, and switching modes automatically.
+ * Handles top tickers, live updates via the shared WebSocket session, and switching modes automatically.
  */
 public class TradeTapeManager {
-    private WebSocketClient client;
-    private final BlockingQueue<TradeItem> tradeQueue = new LinkedBlockingQueue<>();
-    private final Map<String, Double> previousCloseCache = new HashMap<>();
+    private final MarketDataSession session;
+    private final Set<String> liveSymbols = ConcurrentHashMap.newKeySet();
+
+    // Bounded hand-off from the socket thread to the tape consumer thread
+    private static final int PIPELINE_CAPACITY = 4096;
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final TradeRingBuffer tradePipeline;
+    private final TradeFrameParser.TradeHandler tradeHandler = new TradeFrameParser.TradeHandler() {
+        @Override
+        public void onTrade(String symbol, double price, double volume, long timestamp) {
+            tradePipeline.offer(symbol, price, volume, timestamp);
+        }
+
+        @Override
+        public void onFrameEnd() {
+            tradePipeline.endFrame();
+        }
+    };
+    private final TradeRingBuffer.TradeConsumer pipelineConsumer = this::deliverLiveTrade;
+    private Thread consumerThread;
+    // Previous closes for tape colouring, filled asynchronously; symbols in pendingCloses are being fetched
+    private final Map<String, Double> previousCloseCache = new ConcurrentHashMap<>();
+    private final Set<String> pendingCloses = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> closeRetryAt = new ConcurrentHashMap<>();
+    private static final long CLOSE_RETRY_DELAY_MS = 60_000;
     private TradeListener listener;
 
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
@@ -44,15 +66,29 @@ public class TradeTapeManager {
         void onMarketModeChanged(boolean isAfterHours);
     }
 
+    public TradeTapeManager(MarketDataSession session) {
+        this(session, TradeRingBuffer.OverflowPolicy.CONFLATE);
+    }
+
+    /**
+     * @param overflowPolicy how the live trade pipeline behaves when the tape falls behind
+     */
+    public TradeTapeManager(MarketDataSession session, TradeRingBuffer.OverflowPolicy overflowPolicy) {
+        this.session = session;
+        this.tradePipeline = new TradeRingBuffer(PIPELINE_CAPACITY, overflowPolicy);
+    }
+
     public void setTradeListener(TradeListener listener) {
         this.listener = listener;
     }
 
     /**
      * Determines how to start the trade tape depending on market status.
-     * Initializes either WebSocket streaming or fallback simulation.
+     * Initializes either WebSocket streaming or fallback simulation. Never waits on the
+     * network, so it is safe to call from the EDT.
      */
     public void connect() {
+        startPipelineConsumer();
         if (isMarketOpen()) {
             connectLiveWebSocket();
         } else {
@@ -71,7 +107,7 @@ public class TradeTapeManager {
                 lastMarketStatus = currentStatus;
 
                 if (currentStatus) {
-                    if (client == null || !client.isOpen()) {
+                    if (liveSymbols.isEmpty()) {
                         connectLiveWebSocket();
                     }
                     if (listener != null) listener.onMarketModeChanged(false);
@@ -86,8 +122,11 @@ public class TradeTapeManager {
 
     /**
      * Determines if the market is currently open based on NYSE hours.
+     * A local mock market, or a replayed day, is always open.
      */
     public boolean isMarketOpen() {
+        if (MarketEndpoints.isMock() || session.isReplaying()) return true;
+
         ZonedDateTime now = ZonedDateTime.now(ZoneId.of("America/New_York"));
         LocalTime currentTime = now.toLocalTime();
         int dayOfWeek = now.getDayOfWeek().getValue(); // 1 = Monday, 7 = Sunday
@@ -99,87 +138,92 @@ public class TradeTapeManager {
     }
 
     /**
-     * Connects to Finnhub WebSocket for real-time trades and subscribes to tickers.
+     * Streams real-time trades for the top tickers over the shared WebSocket session.
      */
     private void connectLiveWebSocket() {
-        Dotenv dotenv = Dotenv.load();
-        String apiKey = dotenv.get("WEBSOCKET_API_KEY");
-
-        try {
-            client = new WebSocketClient(new URI("wss://ws.finnhub.io?token=" + apiKey)) {
-                @Override
-                public void onOpen(ServerHandshake handshake) {
-                    subscribeToTopTickers();
-                }
+        session.connect();
+        subscribeToTopTickers();
+    }
 
-                @Override
-                public void onMessage(String message) {
-                    JSONObject json = new JSONObject(message);
-                    if (!json.has("data")) return;
-
-                    JSONArray dataArray = json.getJSONArray("data");
-                    for (int i = 0; i < dataArray.length(); i++) {
-                        JSONObject trade = dataArray.getJSONObject(i);
-                        TradeItem item = new TradeItem(
-                                trade.getString("s"),
-                                trade.getDouble("p"),
-                                trade.getDouble("v"),
-                                trade.getLong("t"),
-                                TradeType.REALTIME
-                        );
-                        boolean added = tradeQueue.offer(item);
-                        if (!added) {
-                            System.err.println("[TradeTapeManager] Warning: tradeQueue full. Dropping item: " + item);
-                        }
-
-                        if (listener != null) listener.onTrade(item);
-                    }
+    /**
+     * Starts the dedicated thread that drains the live trade pipeline into the listener,
+     * keeping UI hand-off work off the socket thread.
+     */
+    private synchronized void startPipelineConsumer() {
+        if (consumerThread != null) return;
+
+        consumerThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Parks while the feed is quiet; the socket thread wakes it on the next trade
+                if (tradePipeline.drain(pipelineConsumer, DRAIN_BATCH) == 0) {
+                    tradePipeline.awaitTrades(IDLE_WAIT_NANOS);
                 }
+            }
+        }, "trade-tape-consumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
 
-                @Override public void onClose(int code, String reason, boolean remote) {
-                    System.out.println("WebSocket closed: " + reason);
-                }
+    /**
+     * Converts a trade drained from the pipeline into a tape item.
+     */
+    private void deliverLiveTrade(String symbol, double price, double volume, long timestamp) {
+        if (listener != null) {
+            listener.onTrade(new TradeItem(symbol, price, volume, timestamp, TradeType.REALTIME));
+        }
+    }
 
-                @Override public void onError(Exception e) {
-                    System.err.println("[TradeTapeManager] WebSocket error: " + e.getMessage());
-                }
-            };
+    /**
+     * Live pipeline counters: trades enqueued, dropped on overflow, and conflated per frame.
+     */
+    public long getEnqueuedTradeCount() {
+        return tradePipeline.getEnqueuedCount();
+    }
 
-            client.connect();
-        } catch (Exception e) {
-            System.err.println("[TradeTapeManager] Failed to connect WebSocket: " + e.getMessage());
-        }
+    public long getDroppedTradeCount() {
+        return tradePipeline.getDroppedCount();
+    }
+
+    public long getConflatedTradeCount() {
+        return tradePipeline.getConflatedCount();
     }
 
     /**
-     * Gracefully closes WebSocket connection when market closes.
+     * Releases the tape's live subscriptions when the market closes.
+     * The shared session stays open for other consumers.
      */
     private void closeWebSocket() {
-        if (client != null && client.isOpen()) {
-            client.close();
+        for (String symbol : liveSymbols) {
+            session.unsubscribe(symbol, tradeHandler);
         }
+        liveSymbols.clear();
     }
 
     /**
-     * Subscribes to all tickers identified from API.
+     * Subscribes to all tickers identified from API, or to the recorded tickers when replaying.
+     * Returns at once; the subscriptions are made when the ticker list arrives.
      */
     private void subscribeToTopTickers() {
-        try {
-            for (String symbol : fetchTopTickersFromAPI()) {
+        CompletableFuture<Set<String>> symbols = session.isReplaying()
+                ? CompletableFuture.completedFuture(session.getReplaySymbols())
+                : fetchTopTickersFromAPI();
+        symbols.thenAccept(found -> {
+            prefetchPreviousCloses(found);
+            for (String symbol : found) {
                 subscribe(symbol);
             }
-        } catch (Exception e) {
-            System.err.println("Error subscribing to top tickers: " + e.getMessage());
-        }
+        }).exceptionally(e -> {
+            System.err.println("Error subscribing to top tickers: " + HttpService.asIOException(e).getMessage());
+            return null;
+        });
     }
 
     /**
      * Switches to simulated trade feed by polling Alpha Vantage.
-     * Runs in a loop on a background thread.
+     * Returns at once; the loop starts on a background thread when the data arrives.
      */
     private void loadTopTickersFromAPI() {
-        try {
-            JSONObject response = fetchTopTickersJSON();
+        fetchTopTickersJSON().thenAccept(response -> {
             JSONArray gainers = response.getJSONArray("top_gainers");
             JSONArray losers = response.getJSONArray("top_losers");
             JSONArray active = response.getJSONArray("most_actively_traded");
@@ -199,10 +243,10 @@ public class TradeTapeManager {
                     System.err.println("Error simulating after-hours loop: " + e.getMessage());
                 }
             }).start();
-
-        } catch (Exception e) {
-            System.err.println("Failed to load fallback tickers: " + e.getMessage());
-        }
+        }).exceptionally(e -> {
+            System.err.println("Failed to load fallback tickers: " + HttpService.asIOException(e).getMessage());
+            return null;
+        });
     }
 
     /**
@@ -229,24 +273,23 @@ public class TradeTapeManager {
     /**
      * Fetches JSON data for top gainers, losers, and active stocks from Alpha Vantage.
      */
-    private JSONObject fetchTopTickersJSON() throws Exception {
-        Dotenv dotenv = Dotenv.load();
+    private CompletableFuture<JSONObject> fetchTopTickersJSON() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
         String apiKey = dotenv.get("ALPHA_API_KEY");
-        String url = "https://www.alphavantage.co/query?function=TOP_GAINERS_LOSERS&apikey=" + apiKey;
-
-        Scanner scanner = new Scanner(new URL(url).openStream());
-        StringBuilder json = new StringBuilder();
-        while (scanner.hasNext()) json.append(scanner.nextLine());
-        scanner.close();
+        String url = MarketEndpoints.alphaVantage() + "?function=TOP_GAINERS_LOSERS&apikey=" + apiKey;
 
-        return new JSONObject(json.toString());
+        return RequestScheduler.submit(Provider.ALPHA_VANTAGE, Priority.BACKGROUND,
+                "alpha:TOP_GAINERS_LOSERS", () -> HttpService.getJsonObject(url));
     }
 
     /**
      * Extracts top 7 tickers from each category (gainers, losers, active).
      */
-    private Set<String> fetchTopTickersFromAPI() throws Exception {
-        JSONObject response = fetchTopTickersJSON();
+    private CompletableFuture<Set<String>> fetchTopTickersFromAPI() {
+        return fetchTopTickersJSON().thenApply(TradeTapeManager::topTickers);
+    }
+
+    private static Set<String> topTickers(JSONObject response) {
         JSONArray gainers = response.getJSONArray("top_gainers");
         JSONArray losers = response.getJSONArray("top_losers");
         JSONArray active = response.getJSONArray("most_actively_traded");
@@ -263,16 +306,18 @@ public class TradeTapeManager {
     }
 
     /**
-     * Sends a subscription request to the WebSocket.
+     * Registers the tape for a symbol on the shared WebSocket session.
      */
     public void subscribe(String symbol) {
-        if (client != null && client.isOpen()) {
-            client.send("{\"type\":\"subscribe\",\"symbol\":\"" + symbol + "\"}");
+        if (liveSymbols.add(symbol)) {
+            session.subscribe(symbol, tradeHandler);
         }
     }
 
     /**
      * Returns a color-coded value based on the trade type and comparison to previous close.
+     * Never blocks: a REALTIME trade whose previous close is not known yet is shown in white
+     * while the close is fetched in the background.
      */
     public Color getTradeColor(TradeItem item) {
         return switch (item.type) {
@@ -280,8 +325,11 @@ public class TradeTapeManager {
             case LOSER -> Color.RED;
             case HEADER, ACTIVE -> Color.WHITE;
             case REALTIME -> {
-                double previousClose = getPreviousClose(item.symbol);
-                if (previousClose < 0) yield Color.WHITE;
+                Double previousClose = previousCloseCache.get(item.symbol);
+                if (previousClose == null) {
+                    requestPreviousClose(item.symbol);
+                    yield Color.WHITE;
+                }
                 if (item.price > previousClose) yield Color.GREEN;
                 if (item.price < previousClose) yield Color.RED;
                 yield Color.WHITE;
@@ -290,39 +338,37 @@ public class TradeTapeManager {
     }
 
     /**
-     * Caches and returns the previous close price for a symbol.
+     * Starts fetching previous closes for all given symbols at once, so the tape can colour
+     * their first trades without waiting.
      */
-    private double getPreviousClose(String symbol) {
-        if (!previousCloseCache.containsKey(symbol)) {
-            double close = fetchPreviousClose(symbol);
-            if (close > 0) previousCloseCache.put(symbol, close);
+    private void prefetchPreviousCloses(Collection<String> symbols) {
+        for (String symbol : symbols) {
+            requestPreviousClose(symbol);
         }
-        return previousCloseCache.getOrDefault(symbol, -1.0);
     }
 
     /**
-     * Fetches the previous close value from Alpha Vantage API.
+     * Fetches a symbol's previous close in the background unless it is cached or already in flight.
+     * Uses the Finnhub quote ("pc"), which allows far more calls per minute than Alpha Vantage.
      */
-    private double fetchPreviousClose(String symbol) {
-        try {
-            Dotenv dotenv = Dotenv.load();
-            String apiKey = dotenv.get("ALPHA_API_KEY");
-            String url = "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol=" + symbol + "&apikey=" + apiKey;
-
-            Scanner scanner = new Scanner(new URL(url).openStream());
-            StringBuilder json = new StringBuilder();
-            while (scanner.hasNext()) json.append(scanner.nextLine());
-            scanner.close();
-
-            JSONObject response = new JSONObject(json.toString());
-            JSONObject quote = response.getJSONObject("Global Quote");
-            String closeStr = quote.getString("08. previous close");
-            return Double.parseDouble(closeStr);
-
-        } catch (Exception e) {
-            System.err.println("Failed to fetch previous close for " + symbol + ": " + e.getMessage());
-            return -1.0;
-        }
+    private void requestPreviousClose(String symbol) {
+        if (previousCloseCache.containsKey(symbol)) return;
+        Long retryAt = closeRetryAt.get(symbol);
+        if (retryAt != null && System.currentTimeMillis() < retryAt) return;
+        if (!pendingCloses.add(symbol)) return;
+
+        StockDataFetcher.fetchQuoteAsync(symbol, Priority.BACKGROUND).whenComplete((quote, error) -> {
+            double close = quote != null ? quote.optDouble("pc", -1.0) : -1.0;
+            if (close > 0) {
+                previousCloseCache.put(symbol, close);
+                closeRetryAt.remove(symbol);
+            } else {
+                // Back off so a failing symbol is not re-requested on every trade
+                closeRetryAt.put(symbol, System.currentTimeMillis() + CLOSE_RETRY_DELAY_MS);
+                System.err.println("Failed to fetch previous close for " + symbol);
+            }
+            pendingCloses.remove(symbol);
+        });
     }
 
     /**
@@ -0,0 +1,80 @@
+package com.minibloomberg.logic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Remembers the watchlist between runs: one symbol per line, in the order they were added.
+ */
+public class WatchlistStore {
+
+    private final Path file;
+
+    public WatchlistStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Default location under the user's home directory.
+     */
+    public static Path defaultFile() {
+        return MarketEndpoints.dataDirectory().resolve("watchlist.txt");
+    }
+
+    /**
+     * Returns the saved symbols, or an empty list if nothing has been saved yet.
+     */
+    public List<String> load() {
+        if (!Files.isRegularFile(file)) return List.of();
+
+        try {
+            List<String> symbols = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String symbol = line.trim();
+                if (!symbol.isEmpty() && !symbols.contains(symbol)) symbols.add(symbol);
+            }
+            return symbols;
+        } catch (IOException e) {
+            System.err.println("[WatchlistStore] Failed to read " + file + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Replaces the saved watchlist. The file is written to a temporary sibling and moved
+     * into place so a crash never leaves it half-written.
+     */
+    public synchronized void save(Collection<String> symbols) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(temp, symbols, StandardCharsets.UTF_8);
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+
+        } catch (IOException e) {
+            System.err.println("[WatchlistStore] Failed to write " + file + ": " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort; a stray temp file is harmless
+                }
+            }
+        }
+    }
+}
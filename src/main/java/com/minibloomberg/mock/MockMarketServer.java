@@ -0,0 +1,494 @@
+package com.minibloomberg.mock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.minibloomberg.logic.MarketEndpoints;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * In-process stand-in for Finnhub and Alpha Vantage, for offline use and load testing.
+ *
+ * Serves the REST endpoints the app calls (Finnhub quote, stock/profile2 and news;
+ * Alpha Vantage TIME_SERIES_DAILY_ADJUSTED, TOP_GAINERS_LOSERS and GLOBAL_QUOTE) and a
+ * Finnhub-style WebSocket trade feed ({@link MockTradeFeed}) at a configurable rate.
+ *
+ * Any 1-5 letter symbol is valid. Each symbol gets a deterministic price level, and its
+ * daily history replays the day-to-day moves of src/main/resources/mock_data.json from
+ * a symbol-specific offset, so full and compact downloads always agree.
+ *
+ * Enable with MOCK_MARKET=true in .env (or the --mock argument). MOCK_REST_PORT,
+ * MOCK_WS_PORT and MOCK_TRADES_PER_SECOND tune it.
+ */
+public class MockMarketServer {
+
+    private static final String[] UNIVERSE = {
+            "AAPL", "MSFT", "NVDA", "AMZN", "GOOGL", "META", "TSLA", "AVGO", "JPM", "V",
+            "UNH", "XOM", "MA", "HD", "PG", "COST", "JNJ", "NFLX", "AMD", "CRM",
+            "BAC", "KO", "PEP", "ADBE", "WMT", "ORCL", "INTC", "DIS", "CSCO", "QCOM"
+    };
+
+    private static final int FULL_HISTORY_BARS = 2500;
+    private static final int COMPACT_HISTORY_BARS = 100;
+    private static final int NEWS_ARTICLES = 60;
+
+    private final int restPort;
+    private final int socketPort;
+    private final double tradesPerSecond;
+
+    // Day-over-day close ratios from the seed file, oldest first
+    private final double[] seedReturns;
+    private final double seedLastClose;
+
+    private final Map<String, SymbolState> symbols = new ConcurrentHashMap<>();
+    private final Map<String, double[][]> histories = new ConcurrentHashMap<>();
+    private final LocalDate lastSession = latestWeekday();
+
+    private HttpServer restServer;
+    private ExecutorService restExecutor;
+    private MockTradeFeed tradeFeed;
+
+    public MockMarketServer(int restPort, int socketPort, double tradesPerSecond) {
+        this.restPort = restPort;
+        this.socketPort = socketPort;
+        this.tradesPerSecond = tradesPerSecond;
+
+        double[] closes = loadSeedCloses();
+        this.seedLastClose = closes[closes.length - 1];
+        this.seedReturns = new double[closes.length - 1];
+        for (int i = 1; i < closes.length; i++) {
+            seedReturns[i - 1] = closes[i] / closes[i - 1];
+        }
+
+        for (String symbol : UNIVERSE) {
+            stateFor(symbol);
+        }
+    }
+
+    /**
+     * Whether the mock market was requested through .env or the command line.
+     */
+    public static boolean isEnabled(String[] args) {
+        if (Arrays.asList(args).contains("--mock")) return true;
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        return Boolean.parseBoolean(dotenv.get("MOCK_MARKET", "false"));
+    }
+
+    /**
+     * Starts a server configured from .env and points {@link MarketEndpoints} at it.
+     *
+     * @throws IllegalArgumentException if a MOCK_* setting is not a valid fixed port or rate
+     */
+    public static MockMarketServer startFromEnvironment() throws IOException {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        int restPort = portSetting(dotenv, "MOCK_REST_PORT", "8787");
+        int socketPort = portSetting(dotenv, "MOCK_WS_PORT", "8788");
+        double rate = rateSetting(dotenv, "MOCK_TRADES_PER_SECOND", "50");
+
+        MockMarketServer server = new MockMarketServer(restPort, socketPort, rate);
+        server.start();
+        MarketEndpoints.useMockServer("localhost", restPort, socketPort);
+        System.out.printf("[MockMarketServer] REST on %d, trades on %d at %.0f/s%n", restPort, socketPort, rate);
+        return server;
+    }
+
+    private static int portSetting(Dotenv dotenv, String name, String defaultValue) {
+        String value = dotenv.get(name, defaultValue).trim();
+        try {
+            int port = Integer.parseInt(value);
+            // Port 0 would bind somewhere random while the app still dialled port 0
+            if (port >= 1 && port <= 65_535) return port;
+        } catch (NumberFormatException ignored) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(name + " must be a port number from 1 to 65535, not \"" + value + "\"");
+    }
+
+    private static double rateSetting(Dotenv dotenv, String name, String defaultValue) {
+        String value = dotenv.get(name, defaultValue).trim();
+        try {
+            double rate = Double.parseDouble(value);
+            if (rate > 0 && !Double.isInfinite(rate)) return rate;
+        } catch (NumberFormatException ignored) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(name + " must be a positive number, not \"" + value + "\"");
+    }
+
+    public void start() throws IOException {
+        restExecutor = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "mock-rest");
+            t.setDaemon(true);
+            return t;
+        });
+        restServer = HttpServer.create(new InetSocketAddress("localhost", restPort), 0);
+        restServer.setExecutor(restExecutor);
+        restServer.createContext("/api/v1/quote", exchange -> respond(exchange, quote(param(exchange, "symbol"))));
+        restServer.createContext("/api/v1/stock/profile2", exchange -> respond(exchange, profile(param(exchange, "symbol"))));
+        restServer.createContext("/api/v1/news", exchange -> respond(exchange, news()));
+        restServer.createContext("/query", this::handleAlphaVantage);
+        restServer.start();
+
+        tradeFeed = new MockTradeFeed(new InetSocketAddress("localhost", socketPort), this, tradesPerSecond);
+        tradeFeed.startFeed();
+    }
+
+    public void stop() {
+        if (tradeFeed != null) tradeFeed.stopFeed();
+        if (restServer != null) restServer.stop(0);
+        if (restExecutor != null) restExecutor.shutdownNow();
+    }
+
+    /**
+     * Trades pushed to WebSocket clients so far.
+     */
+    public long getTradesSent() {
+        return tradeFeed != null ? tradeFeed.getTradesSent() : 0;
+    }
+
+    // ---- Market state ----
+
+    /**
+     * Returns the live state of a symbol, creating it on first use.
+     */
+    SymbolState stateFor(String symbol) {
+        return symbols.computeIfAbsent(symbol, s -> {
+            double[][] history = historyFor(s);
+            double previousClose = history[4][history[4].length - 1];
+            return new SymbolState(s, previousClose);
+        });
+    }
+
+    private static boolean isValidSymbol(String symbol) {
+        return symbol != null && symbol.matches("[A-Z]{1,5}");
+    }
+
+    /**
+     * Deterministic daily bars for a symbol as columns {open, high, low, close, adjClose, volume},
+     * oldest first, ending at the latest weekday.
+     */
+    private double[][] historyFor(String symbol) {
+        return histories.computeIfAbsent(symbol, s -> {
+            int n = FULL_HISTORY_BARS;
+            int hash = s.hashCode() & 0x7fffffff;
+            Random random = new Random(hash);
+            double level = seedLastClose * (0.25 + (hash % 400) / 100.0);
+
+            double[] close = new double[n];
+            close[n - 1] = level;
+            for (int i = n - 1; i > 0; i--) {
+                close[i - 1] = close[i] / seedReturns[(i + hash) % seedReturns.length];
+            }
+
+            double[] open = new double[n];
+            double[] high = new double[n];
+            double[] low = new double[n];
+            double[] volume = new double[n];
+            for (int i = 0; i < n; i++) {
+                open[i] = i == 0 ? close[i] : close[i - 1] * (1 + (random.nextDouble() - 0.5) * 0.01);
+                high[i] = Math.max(open[i], close[i]) * (1 + random.nextDouble() * 0.01);
+                low[i] = Math.min(open[i], close[i]) * (1 - random.nextDouble() * 0.01);
+                volume[i] = Math.round(5_000_000 + random.nextDouble() * 45_000_000);
+            }
+            return new double[][]{open, high, low, close, close, volume};
+        });
+    }
+
+    private double[] loadSeedCloses() {
+        try (InputStream in = MockMarketServer.class.getResourceAsStream("/mock_data.json")) {
+            if (in == null) throw new IllegalStateException("mock_data.json not found on the classpath");
+
+            JSONObject series = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .getJSONObject("Time Series (Daily)");
+            List<String> dates = new ArrayList<>(series.keySet());
+            dates.sort(Comparator.naturalOrder());
+
+            double[] closes = new double[dates.size()];
+            for (int i = 0; i < closes.length; i++) {
+                closes[i] = Double.parseDouble(series.getJSONObject(dates.get(i)).getString("4. close"));
+            }
+            return closes;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read mock_data.json", e);
+        }
+    }
+
+    private static LocalDate latestWeekday() {
+        LocalDate date = LocalDate.now(ZoneId.of("America/New_York"));
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.minusDays(1);
+        }
+        return date;
+    }
+
+    // ---- Finnhub endpoints ----
+
+    private String quote(String symbol) {
+        if (!isValidSymbol(symbol)) {
+            return "{\"c\":0,\"d\":null,\"dp\":null,\"h\":0,\"l\":0,\"o\":0,\"pc\":0,\"t\":0}";
+        }
+        SymbolState state = stateFor(symbol);
+        synchronized (state) {
+            double change = state.price - state.previousClose;
+            return new JSONObject()
+                    .put("c", round(state.price))
+                    .put("d", round(change))
+                    .put("dp", round(change / state.previousClose * 100))
+                    .put("h", round(state.dayHigh))
+                    .put("l", round(state.dayLow))
+                    .put("o", round(state.open))
+                    .put("pc", round(state.previousClose))
+                    .put("t", System.currentTimeMillis() / 1000)
+                    .toString();
+        }
+    }
+
+    private String profile(String symbol) {
+        if (!isValidSymbol(symbol)) return "{}";
+        int hash = symbol.hashCode() & 0x7fffffff;
+        return new JSONObject()
+                .put("country", "US")
+                .put("currency", "USD")
+                .put("exchange", "MOCK EXCHANGE")
+                .put("finnhubIndustry", "Technology")
+                .put("ipo", "2000-01-03")
+                .put("marketCapitalization", 1_000 + hash % 2_000_000)
+                .put("name", symbol + " Mock Holdings Inc")
+                .put("ticker", symbol)
+                .put("weburl", "http://localhost/" + symbol)
+                .toString();
+    }
+
+    private String news() {
+        JSONArray articles = new JSONArray();
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < NEWS_ARTICLES; i++) {
+            String symbol = UNIVERSE[i % UNIVERSE.length];
+            articles.put(new JSONObject()
+                    .put("category", "general")
+                    .put("datetime", now - i * 600L)
+                    .put("headline", symbol + " shares move as mock session item " + (i + 1) + " crosses the wire")
+                    .put("id", i + 1)
+                    .put("image", "")
+                    .put("related", symbol)
+                    .put("source", "MockWire")
+                    .put("summary", "Synthetic article generated by the local mock market server for offline testing.")
+                    .put("url", "http://localhost/news/" + (i + 1)));
+        }
+        return articles.toString();
+    }
+
+    // ---- Alpha Vantage endpoints ----
+
+    private void handleAlphaVantage(HttpExchange exchange) throws IOException {
+        String function = param(exchange, "function");
+        String symbol = param(exchange, "symbol");
+        String body = switch (function == null ? "" : function) {
+            case "TIME_SERIES_DAILY_ADJUSTED" -> isValidSymbol(symbol)
+                    ? dailyAdjusted(symbol, "full".equals(param(exchange, "outputsize")) ? FULL_HISTORY_BARS : COMPACT_HISTORY_BARS)
+                    : "{\"Error Message\":\"Invalid API call.\"}";
+            case "TOP_GAINERS_LOSERS" -> topGainersLosers();
+            case "GLOBAL_QUOTE" -> isValidSymbol(symbol) ? globalQuote(symbol) : "{\"Global Quote\":{}}";
+            default -> "{\"Error Message\":\"Unsupported function in mock server.\"}";
+        };
+        respond(exchange, body);
+    }
+
+    private String dailyAdjusted(String symbol, int bars) {
+        double[][] history = historyFor(symbol);
+        int n = history[0].length;
+        int count = Math.min(bars, n);
+
+        StringBuilder json = new StringBuilder(count * 260);
+        json.append("{\"Meta Data\":{\"1. Information\":\"Daily Time Series with Splits and Dividend Events\",")
+                .append("\"2. Symbol\":\"").append(symbol).append("\"},\"Time Series (Daily)\":{");
+
+        // Newest first, one weekday apart, like the real API
+        LocalDate date = lastSession;
+        for (int k = 0; k < count; k++) {
+            int i = n - 1 - k;
+            if (k > 0) json.append(',');
+            json.append('"').append(date).append("\":{")
+                    .append("\"1. open\":\"").append(fixed(history[0][i])).append("\",")
+                    .append("\"2. high\":\"").append(fixed(history[1][i])).append("\",")
+                    .append("\"3. low\":\"").append(fixed(history[2][i])).append("\",")
+                    .append("\"4. close\":\"").append(fixed(history[3][i])).append("\",")
+                    .append("\"5. adjusted close\":\"").append(fixed(history[4][i])).append("\",")
+                    .append("\"6. volume\":\"").append((long) history[5][i]).append("\",")
+                    .append("\"7. dividend amount\":\"0.0000\",")
+                    .append("\"8. split coefficient\":\"1.0\"}");
+
+            date = date.minusDays(1);
+            while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                date = date.minusDays(1);
+            }
+        }
+        return json.append("}}").toString();
+    }
+
+    private String topGainersLosers() {
+        List<SymbolState> states = new ArrayList<>();
+        for (String symbol : UNIVERSE) states.add(stateFor(symbol));
+
+        List<SymbolState> byChange = new ArrayList<>(states);
+        byChange.sort(Comparator.comparingDouble(SymbolState::changePercent).reversed());
+        List<SymbolState> byVolume = new ArrayList<>(states);
+        byVolume.sort(Comparator.comparingDouble(SymbolState::volume).reversed());
+
+        JSONArray gainers = new JSONArray();
+        JSONArray losers = new JSONArray();
+        JSONArray active = new JSONArray();
+        for (int i = 0; i < 10; i++) {
+            gainers.put(moverJson(byChange.get(i)));
+            losers.put(moverJson(byChange.get(byChange.size() - 1 - i)));
+            active.put(moverJson(byVolume.get(i)));
+        }
+
+        return new JSONObject()
+                .put("metadata", "Top gainers, losers, and most actively traded US tickers (mock)")
+                .put("last_updated", lastSession.toString())
+                .put("top_gainers", gainers)
+                .put("top_losers", losers)
+                .put("most_actively_traded", active)
+                .toString();
+    }
+
+    private JSONObject moverJson(SymbolState state) {
+        synchronized (state) {
+            return new JSONObject()
+                    .put("ticker", state.symbol)
+                    .put("price", fixed(state.price))
+                    .put("change_amount", fixed(state.price - state.previousClose))
+                    .put("change_percentage", fixed(state.changePercent()) + "%")
+                    .put("volume", String.valueOf((long) state.volume));
+        }
+    }
+
+    private String globalQuote(String symbol) {
+        SymbolState state = stateFor(symbol);
+        synchronized (state) {
+            JSONObject quote = new JSONObject()
+                    .put("01. symbol", symbol)
+                    .put("02. open", fixed(state.open))
+                    .put("03. high", fixed(state.dayHigh))
+                    .put("04. low", fixed(state.dayLow))
+                    .put("05. price", fixed(state.price))
+                    .put("06. volume", String.valueOf((long) state.volume))
+                    .put("07. latest trading day", lastSession.toString())
+                    .put("08. previous close", fixed(state.previousClose))
+                    .put("09. change", fixed(state.price - state.previousClose))
+                    .put("10. change percent", fixed(state.changePercent()) + "%");
+            return new JSONObject().put("Global Quote", quote).toString();
+        }
+    }
+
+    // ---- HTTP helpers ----
+
+    private static String param(HttpExchange exchange, String name) {
+        URI uri = exchange.getRequestURI();
+        String query = uri.getRawQuery();
+        if (query == null) return null;
+
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params.get(name);
+    }
+
+    /**
+     * Sends a JSON body, gzip-compressed when the client asks for it.
+     */
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream out = gzip ? new GZIPOutputStream(exchange.getResponseBody()) : exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String fixed(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    /**
+     * Intraday state of one symbol, advanced by the trade feed. Guarded by its own monitor.
+     */
+    static final class SymbolState {
+        final String symbol;
+        final double previousClose;
+        double open;
+        double price;
+        double dayHigh;
+        double dayLow;
+        double volume;
+
+        SymbolState(String symbol, double previousClose) {
+            this.symbol = symbol;
+            this.previousClose = previousClose;
+            this.open = previousClose;
+            this.price = previousClose;
+            this.dayHigh = previousClose;
+            this.dayLow = previousClose;
+        }
+
+        synchronized double changePercent() {
+            return (price - previousClose) / previousClose * 100;
+        }
+
+        synchronized double volume() {
+            return volume;
+        }
+
+        /**
+         * Applies one trade and returns its price.
+         */
+        synchronized double trade(double move, double size) {
+            price = Math.max(0.01, price * (1 + move));
+            if (price > dayHigh) dayHigh = price;
+            if (price < dayLow) dayLow = price;
+            volume += size;
+            return price;
+        }
+    }
+}
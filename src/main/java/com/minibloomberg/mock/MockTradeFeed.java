@@ -0,0 +1,170 @@
+package com.minibloomberg.mock;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.json.JSONObject;
+
+/**
+ * Finnhub-compatible trade WebSocket for {@link MockMarketServer}.
+ *
+ * Clients subscribe and unsubscribe with the same JSON messages Finnhub accepts. A generator
+ * thread produces trades for the subscribed symbols at a steady overall rate, random-walking
+ * each symbol's price, and sends them in Finnhub's frame format with up to
+ * {@value #MAX_TRADES_PER_FRAME} trades per frame.
+ */
+class MockTradeFeed extends WebSocketServer {
+
+    private static final int MAX_TRADES_PER_FRAME = 50;
+    private static final long TICK_MS = 20;
+
+    // Per-trade price move is drawn from +/- this fraction
+    private static final double MAX_MOVE = 0.0015;
+
+    private final MockMarketServer market;
+    private final double tradesPerSecond;
+    private final AtomicLong tradesSent = new AtomicLong();
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private volatile boolean running;
+    private Thread generator;
+
+    MockTradeFeed(InetSocketAddress address, MockMarketServer market, double tradesPerSecond) {
+        super(address);
+        this.market = market;
+        this.tradesPerSecond = tradesPerSecond;
+        setReuseAddr(true);
+    }
+
+    void startFeed() {
+        running = true;
+        start();
+        generator = new Thread(this::generate, "mock-trade-feed");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    void stopFeed() {
+        running = false;
+        if (generator != null) generator.interrupt();
+        try {
+            stop(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getTradesSent() {
+        return tradesSent.get();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        conn.setAttachment(ConcurrentHashMap.newKeySet());
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        if ("ping".equals(message)) return;
+
+        try {
+            JSONObject json = new JSONObject(message);
+            String symbol = json.optString("symbol");
+            Set<String> symbols = conn.getAttachment();
+            if (symbols == null || symbol.isEmpty()) return;
+
+            switch (json.optString("type")) {
+                case "subscribe" -> {
+                    market.stateFor(symbol);
+                    symbols.add(symbol);
+                }
+                case "unsubscribe" -> symbols.remove(symbol);
+                default -> conn.send("{\"type\":\"error\",\"msg\":\"Unknown message type\"}");
+            }
+        } catch (RuntimeException e) {
+            conn.send("{\"type\":\"error\",\"msg\":\"Invalid message\"}");
+        }
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        System.err.println("[MockTradeFeed] WebSocket error: " + ex.getMessage());
+    }
+
+    @Override
+    public void onStart() {
+    }
+
+    /**
+     * Emits trades on a fixed tick. Trades owed from a late tick are caught up, but never
+     * more than one second's worth, so a stalled machine does not trigger a burst.
+     */
+    private void generate() {
+        double owed = 0;
+        long last = System.nanoTime();
+
+        while (running) {
+            try {
+                Thread.sleep(TICK_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            owed = Math.min(tradesPerSecond, owed + (now - last) / 1e9 * tradesPerSecond);
+            last = now;
+
+            int due = (int) owed;
+            if (due == 0) continue;
+            owed -= due;
+
+            for (WebSocket conn : getConnections()) {
+                Set<String> symbols = conn.getAttachment();
+                if (conn.isOpen() && symbols != null && !symbols.isEmpty()) {
+                    sendTrades(conn, new ArrayList<>(symbols), due);
+                }
+            }
+        }
+    }
+
+    private void sendTrades(WebSocket conn, List<String> symbols, int count) {
+        long timestamp = System.currentTimeMillis();
+        StringBuilder frame = new StringBuilder(MAX_TRADES_PER_FRAME * 64);
+
+        int sent = 0;
+        while (sent < count) {
+            int batch = Math.min(MAX_TRADES_PER_FRAME, count - sent);
+            frame.setLength(0);
+            frame.append("{\"data\":[");
+            for (int i = 0; i < batch; i++) {
+                String symbol = symbols.get(random.nextInt(symbols.size()));
+                double move = (random.nextDouble() * 2 - 1) * MAX_MOVE;
+                int size = 1 + random.nextInt(500);
+                double price = market.stateFor(symbol).trade(move, size);
+
+                if (i > 0) frame.append(',');
+                frame.append("{\"c\":null,\"p\":").append(Math.round(price * 100) / 100.0)
+                        .append(",\"s\":\"").append(symbol)
+                        .append("\",\"t\":").append(timestamp)
+                        .append(",\"v\":").append(size).append('}');
+            }
+            frame.append("],\"type\":\"trade\"}");
+
+            conn.send(frame.toString());
+            sent += batch;
+        }
+        tradesSent.addAndGet(sent);
+    }
+}
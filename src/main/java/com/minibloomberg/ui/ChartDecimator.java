@@ -0,0 +1,183 @@
+package com.minibloomberg.ui;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.minibloomberg.data.HistoricalData;
+
+/**
+ * Level-of-detail reduction for line charts using the M4 method: for every pixel column
+ * the first, minimum, maximum and last bar are kept, so spikes survive decimation and
+ * drawing cost is bounded by the chart width rather than the series length.
+ *
+ * A min/max pyramid over the adjusted closes is built once per series. Level k stores the
+ * min and max bar index of each aligned block of 2^k bars, so the extrema of any bucket are
+ * found in O(log n) and any zoom window can be decimated without rescanning raw bars.
+ * Results are cached per (range, width).
+ */
+public class ChartDecimator {
+
+    private static final int CACHE_SIZE = 16;
+
+    private HistoricalData series;
+
+    // minIndex[k][j] / maxIndex[k][j]: extrema of block j at level k (block size 2^(k+1))
+    private final int[][] minIndex;
+    private final int[][] maxIndex;
+
+    private final Map<CacheKey, int[]> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, int[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public ChartDecimator(HistoricalData series) {
+        this.series = series;
+
+        int n = series.size();
+        int levels = 0;
+        while ((2L << levels) <= n) levels++;
+        minIndex = new int[levels][];
+        maxIndex = new int[levels][];
+
+        for (int k = 0; k < levels; k++) {
+            int blocks = n >> (k + 1);
+            int[] mins = new int[blocks];
+            int[] maxs = new int[blocks];
+            for (int j = 0; j < blocks; j++) {
+                int a, b, c, d;
+                if (k == 0) {
+                    a = c = 2 * j;
+                    b = d = 2 * j + 1;
+                } else {
+                    a = minIndex[k - 1][2 * j];
+                    b = minIndex[k - 1][2 * j + 1];
+                    c = maxIndex[k - 1][2 * j];
+                    d = maxIndex[k - 1][2 * j + 1];
+                }
+                mins[j] = series.adjClose(b) < series.adjClose(a) ? b : a;
+                maxs[j] = series.adjClose(d) > series.adjClose(c) ? d : c;
+            }
+            minIndex[k] = mins;
+            maxIndex[k] = maxs;
+        }
+    }
+
+    /**
+     * Switches to a series that differs from the current one only in its last bar, such as
+     * the next snapshot of a live session whose forming bar has changed. Only the pyramid
+     * blocks containing that bar are recomputed, O(log n).
+     */
+    public synchronized void replaceLastBar(HistoricalData series) {
+        this.series = series;
+        int last = series.size() - 1;
+        for (int k = 0; k < minIndex.length; k++) {
+            int j = last >> (k + 1);
+            if (j >= minIndex[k].length) break;   // The last bar's block is incomplete here and above
+            int a, b, c, d;
+            if (k == 0) {
+                a = c = 2 * j;
+                b = d = 2 * j + 1;
+            } else {
+                a = minIndex[k - 1][2 * j];
+                b = minIndex[k - 1][2 * j + 1];
+                c = maxIndex[k - 1][2 * j];
+                d = maxIndex[k - 1][2 * j + 1];
+            }
+            minIndex[k][j] = series.adjClose(b) < series.adjClose(a) ? b : a;
+            maxIndex[k][j] = series.adjClose(d) > series.adjClose(c) ? d : c;
+        }
+        cache.clear();
+    }
+
+    /**
+     * Returns the ascending bar indices to draw for bars [from, to) across {@code columns} pixels.
+     * When there are no more bars than about two per column every bar is returned.
+     */
+    public synchronized int[] decimate(int from, int to, int columns) {
+        CacheKey key = new CacheKey(from, to, columns);
+        int[] cached = cache.get(key);
+        if (cached != null) return cached;
+
+        int[] result = computeM4(from, to, Math.max(1, columns));
+        cache.put(key, result);
+        return result;
+    }
+
+    private int[] computeM4(int from, int to, int columns) {
+        int count = to - from;
+        if (count <= 2 * columns) {
+            int[] all = new int[Math.max(0, count)];
+            for (int i = 0; i < all.length; i++) all[i] = from + i;
+            return all;
+        }
+
+        int[] out = new int[columns * 4];
+        int size = 0;
+        int[] extrema = new int[2];
+
+        for (int col = 0; col < columns; col++) {
+            int start = from + (int) ((long) col * count / columns);
+            int end = from + (int) ((long) (col + 1) * count / columns);
+            if (start >= end) continue;
+
+            extrema(start, end, extrema);
+            int lo = Math.min(extrema[0], extrema[1]);
+            int hi = Math.max(extrema[0], extrema[1]);
+
+            // first, min/max in time order, last — skipping duplicates
+            size = appendIfNew(out, size, start);
+            size = appendIfNew(out, size, lo);
+            size = appendIfNew(out, size, hi);
+            size = appendIfNew(out, size, end - 1);
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static int appendIfNew(int[] out, int size, int index) {
+        if (size > 0 && out[size - 1] >= index) return size;
+        out[size] = index;
+        return size + 1;
+    }
+
+    /**
+     * Finds the indices of the minimum and maximum adjusted close in [start, end)
+     * by walking the largest aligned pyramid blocks that fit.
+     */
+    private void extrema(int start, int end, int[] result) {
+        int min = start;
+        int max = start;
+        int i = start;
+
+        while (i < end) {
+            int level = -1;
+            while (level + 1 < minIndex.length
+                    && (i & ((2 << (level + 1)) - 1)) == 0
+                    && i + (2 << (level + 1)) <= end) {
+                level++;
+            }
+
+            int candidateMin, candidateMax;
+            if (level < 0) {
+                candidateMin = candidateMax = i;
+                i++;
+            } else {
+                int block = i >> (level + 1);
+                candidateMin = minIndex[level][block];
+                candidateMax = maxIndex[level][block];
+                i += 2 << level;
+            }
+
+            if (series.adjClose(candidateMin) < series.adjClose(min)) min = candidateMin;
+            if (series.adjClose(candidateMax) > series.adjClose(max)) max = candidateMax;
+        }
+
+        result[0] = min;
+        result[1] = max;
+    }
+
+    private record CacheKey(int from, int to, int columns) {
+    }
+}
@@ -1,19 +1,89 @@
 package com.minibloomberg.ui;
 
 import com.minibloomberg.data.HistoricalData;
+import com.minibloomberg.logic.IndicatorEngine;
+import com.minibloomberg.logic.IndicatorEngine.Output;
+import com.minibloomberg.logic.IndicatorEngine.Study;
+import com.minibloomberg.logic.RangeExtremaIndex;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.ZoneId;
-import java.util.List;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class ChartPanel extends JPanel {
-    private HistoricalData data;
+
+    /**
+     * How price is drawn: a close line, candlesticks, or OHLC bars.
+     */
+    public enum Style {
+        LINE, CANDLES, OHLC
+    }
+
+    private HistoricalData series;        // Full loaded series
+    private ChartDecimator decimator;     // Level-of-detail reduction over the full series
+    private RangeExtremaIndex closeMin, closeMax; // Autoscale any window without rescanning prices
+    private RangeExtremaIndex lowMin, highMax;    // Same for bar modes, over split-adjusted lows/highs
+    private double[] volumePrefix;        // volumePrefix[i] = total volume of bars [0, i)
+    private Style style = Style.LINE;
+    private IndicatorEngine indicators;   // Indicator columns aligned with the series, or null
+    private final Set<Study> studies = EnumSet.noneOf(Study.class);
+    private int visibleFrom, visibleTo;   // Visible bar window [from, to) within the series
+    private HistoricalData data;          // Zero-copy view of the visible window
     private Integer hoverX = null;
+    private int hoverIndex = -1;          // Bar under the cursor; hover repaints only when it changes
+    private boolean intraday;             // Bars are intraday, so the axis shows times rather than dates
+
+    private static final int MARGIN_X = 70, TOP_MARGIN = 35, BOTTOM_MARGIN = 70;
+    private static final Font LABEL_FONT = new Font("Consolas", Font.BOLD, 12);
+    private static final Font HOVER_FONT = new Font("Consolas", Font.PLAIN, 12);
+    private static final Color GRID_COLOR = new Color(200, 200, 200, 50);
+    private static final Color HOVER_BOX_COLOR = new Color(0, 0, 0, 200);
+    private static final BasicStroke PRICE_STROKE = new BasicStroke(2);
+    private static final BasicStroke BAR_STROKE = new BasicStroke(1);
+    private static final Color VOLUME_UP = new Color(0, 255, 0, 110);
+    private static final Color VOLUME_DOWN = new Color(255, 0, 0, 110);
+    private static final int MIN_BAR_PX = 3;      // Narrower bars are aggregated into wider ones
+    private static final int VOLUME_GAP = 8;
+    private static final BasicStroke OVERLAY_STROKE = new BasicStroke(1.2f);
+    private static final Color SMA_COLOR = ColorPalette.ORANGE_PEEL;
+    private static final Color EMA_COLOR = ColorPalette.ICTERINE;
+    private static final Color BOLLINGER_COLOR = new Color(187, 187, 187, 160);
+    private static final Color VWAP_COLOR = new Color(0, 191, 255);
+    private static final Color GUIDE_COLOR = new Color(200, 200, 200, 90);
+    private static final BasicStroke CROSSHAIR_STROKE =
+            new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0);
+    private static final DateTimeFormatter DAY_LABEL = DateTimeFormatter.ofPattern("MMM dd");
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM");
+    private static final DateTimeFormatter HOVER_DATE = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final DateTimeFormatter TIME_LABEL = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter HOVER_TIME = DateTimeFormatter.ofPattern("MMM dd, HH:mm:ss");
+    private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+    // Static layers (grid, axes, labels, price path) rendered once and reused until data or size changes
+    private BufferedImage staticLayer;
+    private boolean staticLayerDirty = true;
+
+    // Price scale of the cached layer, reused by the hover overlay
+    private double scaleMaxPrice, scaleRange;
+    private int scalePriceHeight;
+
+    // Bars as drawn (one per bar, or aggregated when they outnumber the pixels), reused across paints
+    private double[] bucketX = new double[0];
+    private double[] bucketOpen, bucketHigh, bucketLow, bucketClose, bucketVolume;
+    private int[] bucketLast;             // Series index of each bucket's last bar
+    private int bucketCount;
+    private double bucketWidth, bucketMaxVolume;
 
     public ChartPanel() {
         setBackground(ColorPalette.NIGHT);
@@ -22,7 +92,11 @@ public class ChartPanel extends JPanel {
             @Override
             public void mouseMoved(MouseEvent e) {
                 hoverX = e.getX();
-                repaint();
+                int idx = hoverIndexAt(hoverX);
+                if (idx != hoverIndex) {
+                    hoverIndex = idx;
+                    repaint();
+                }
             }
         });
 
@@ -30,37 +104,230 @@ public class ChartPanel extends JPanel {
             @Override
             public void mouseExited(MouseEvent e) {
                 hoverX = null;
+                hoverIndex = -1;
                 repaint();
             }
         });
     }
 
+    /**
+     * Shows a series in full. Equivalent to {@link #setSeries(HistoricalData)}.
+     */
     public void setHistoricalData(HistoricalData data) {
-        this.data = data;
+        setSeries(data);
+    }
+
+    /**
+     * Loads a new series, building its decimation pyramid once, and shows all of it.
+     */
+    public void setSeries(HistoricalData series) {
+        showSeries(series, false);
+    }
+
+    /**
+     * Shows a series of intraday bars (such as today's live session) in full, labelling
+     * the axis and hover with New York times.
+     */
+    public void setIntradaySeries(HistoricalData series) {
+        showSeries(series, true);
+    }
+
+    /**
+     * Shows the next snapshot of a live intraday series. If it holds the same bars as the
+     * series on screen, only the last (forming) bar is refreshed and the visible range and
+     * hover are kept; otherwise it is loaded as by {@link #setIntradaySeries(HistoricalData)}.
+     */
+    public void updateIntradaySeries(HistoricalData next) {
+        if (!intraday || !sameBars(series, next)) {
+            showSeries(next, true);
+            return;
+        }
+
+        int last = next.size() - 1;
+        this.series = next;
+        decimator.replaceLastBar(next);
+        closeMin.refresh(last);
+        closeMax.refresh(last);
+        lowMin.refresh(last);
+        highMax.refresh(last);
+        volumePrefix[last + 1] = volumePrefix[last] + next.volume(last);
+        data = next.range(visibleFrom, Math.max(visibleFrom, visibleTo));
+        invalidateStaticLayer();
+    }
+
+    private static boolean sameBars(HistoricalData a, HistoricalData b) {
+        if (a == null || b == null || a.size() != b.size() || a.isEmpty()) return false;
+        int last = a.size() - 1;
+        return a.timestamp(0) == b.timestamp(0) && a.timestamp(last) == b.timestamp(last);
+    }
+
+    private void showSeries(HistoricalData series, boolean intraday) {
+        this.series = series;
+        this.intraday = intraday;
+        if (series != null) {
+            // The indices read the current series, so a refreshed last bar needs no rebuild
+            int n = series.size();
+            this.decimator = new ChartDecimator(series);
+            this.closeMin = RangeExtremaIndex.min(i -> this.series.adjClose(i), n);
+            this.closeMax = RangeExtremaIndex.max(i -> this.series.adjClose(i), n);
+            this.lowMin = RangeExtremaIndex.min(i -> this.series.low(i) * adjustment(this.series, i), n);
+            this.highMax = RangeExtremaIndex.max(i -> this.series.high(i) * adjustment(this.series, i), n);
+            this.volumePrefix = volumePrefix(series);
+        } else {
+            this.decimator = null;
+            this.closeMin = this.closeMax = this.lowMin = this.highMax = null;
+            this.volumePrefix = null;
+        }
+        setVisibleRange(0, series != null ? series.size() : 0);
+    }
+
+    /**
+     * Switches between line, candlestick and OHLC drawing.
+     */
+    public void setStyle(Style style) {
+        this.style = style;
+        invalidateStaticLayer();
+    }
+
+    public Style getStyle() {
+        return style;
+    }
+
+    /**
+     * Draws indicators from an engine whose columns line up with the loaded series bar for
+     * bar. The engine is read at paint time, so after updating it call
+     * {@link #invalidateStaticLayer()}; range changes reuse its columns as they are.
+     */
+    public void setIndicators(IndicatorEngine indicators) {
+        this.indicators = indicators;
+        invalidateStaticLayer();
+    }
+
+    /**
+     * Chooses which indicators are drawn: SMA, EMA, Bollinger Bands and VWAP over the
+     * price, RSI and MACD in panes of their own.
+     */
+    public void setStudies(Set<Study> shown) {
+        studies.clear();
+        studies.addAll(shown);
+        invalidateStaticLayer();
+    }
+
+    /**
+     * Split/dividend factor for bar i. Raw open/high/low are scaled by it so bars line up
+     * with the adjusted close the line mode draws.
+     */
+    private static double adjustment(HistoricalData series, int i) {
+        double close = series.close(i);
+        return close > 0 ? series.adjClose(i) / close : 1;
+    }
+
+    private static double[] volumePrefix(HistoricalData series) {
+        double[] prefix = new double[series.size() + 1];
+        for (int i = 0; i < series.size(); i++) {
+            prefix[i + 1] = prefix[i] + series.volume(i);
+        }
+        return prefix;
+    }
+
+    /**
+     * Restricts the chart to bars [from, to) of the loaded series.
+     */
+    public void setVisibleRange(int from, int to) {
+        if (series == null) {
+            data = null;
+        } else {
+            visibleFrom = Math.max(0, from);
+            visibleTo = Math.min(series.size(), to);
+            data = series.range(visibleFrom, Math.max(visibleFrom, visibleTo));
+        }
+        hoverIndex = hoverX != null ? hoverIndexAt(hoverX) : -1;
+        invalidateStaticLayer();
+    }
+
+    /**
+     * Forces the cached grid/axes/price layer to be re-rendered on the next paint.
+     */
+    public void invalidateStaticLayer() {
+        staticLayerDirty = true;
         repaint();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (data == null || data.timestamps().isEmpty()) return;
+        if (data == null || data.isEmpty()) return;
 
         Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
         int width = getWidth();
         int height = getHeight();
-        int marginX = 70, topMargin = 35, bottomMargin = 70;
-        int usableHeight = height - topMargin - bottomMargin;
+        if (width <= 2 * MARGIN_X || height <= TOP_MARGIN + BOTTOM_MARGIN) return;
+
+        // Render at device resolution so the cached layer stays sharp on scaled displays
+        AffineTransform tx = g2.getTransform();
+        int deviceWidth = (int) Math.ceil(width * tx.getScaleX());
+        int deviceHeight = (int) Math.ceil(height * tx.getScaleY());
+        if (staticLayerDirty || staticLayer == null
+                || staticLayer.getWidth() != deviceWidth || staticLayer.getHeight() != deviceHeight) {
+            staticLayer = renderStaticLayer(width, height, deviceWidth, deviceHeight, tx.getScaleX(), tx.getScaleY());
+            staticLayerDirty = false;
+        }
+        g2.drawImage(staticLayer, 0, 0, width, height, null);
+
+        if (hoverIndex >= 0) {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            drawHoverCrosshair(g2, width, height, MARGIN_X, TOP_MARGIN, scalePriceHeight, data, scaleMaxPrice, scaleRange);
+        }
+    }
+
+    /**
+     * Draws everything that does not depend on the cursor into an offscreen image.
+     */
+    private BufferedImage renderStaticLayer(int width, int height, int deviceWidth, int deviceHeight,
+                                            double scaleX, double scaleY) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(deviceWidth, deviceHeight)
+                : new BufferedImage(deviceWidth, deviceHeight, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.scale(scaleX, scaleY);
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, width, height);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            paintStaticLayer(g2, width, height);
+        } finally {
+            g2.dispose();
+        }
+        return image;
+    }
 
-        List<Double> prices = data.closePrices();
+    private void paintStaticLayer(Graphics2D g2, int width, int height) {
+        int marginX = MARGIN_X, topMargin = TOP_MARGIN, bottomMargin = BOTTOM_MARGIN;
+        int usableHeight = height - topMargin - bottomMargin;
 
-        Font labelFont = new Font("Consolas", Font.BOLD, 12);
-        g2.setFont(labelFont);
+        g2.setFont(LABEL_FONT);
         FontMetrics fm = g2.getFontMetrics();
 
-        double minPrice = prices.stream().min(Double::compareTo).orElse(0.0);
-        double maxPrice = prices.stream().max(Double::compareTo).orElse(1.0);
+        int n = data.size();
+        boolean barStyle = style != Style.LINE;
+        double minPrice = (barStyle ? lowMin : closeMin).query(visibleFrom, visibleFrom + n);
+        double maxPrice = (barStyle ? highMax : closeMax).query(visibleFrom, visibleFrom + n);
+
+        // Volume gets the bottom fifth when the series has any
+        bucketize(width - 2 * marginX);
+        int volumeHeight = bucketMaxVolume > 0 ? usableHeight / 5 : 0;
+        if (volumeHeight > 0) usableHeight -= volumeHeight + VOLUME_GAP;
+
+        // Oscillators each get a pane between the price and the volume
+        boolean hasIndicators = indicators != null && indicators.size() == series.size();
+        boolean showRsi = hasIndicators && studies.contains(Study.RSI);
+        boolean showMacd = hasIndicators && studies.contains(Study.MACD);
+        int oscillatorHeight = (height - topMargin - bottomMargin) / 6;
+        if (showRsi) usableHeight -= oscillatorHeight + VOLUME_GAP;
+        if (showMacd) usableHeight -= oscillatorHeight + VOLUME_GAP;
         double priceRange = maxPrice - minPrice;
 
         if (priceRange < 0.01) {
@@ -88,11 +355,43 @@ public class ChartPanel extends JPanel {
             adjustedRange = maxPrice - minPrice;
         }
 
+        scaleMaxPrice = maxPrice;
+        scaleRange = adjustedRange;
+        scalePriceHeight = usableHeight;
+
         drawYAxis(g2, width, topMargin, marginX, usableHeight, minPrice, maxPrice, adjustedRange);
-        drawPriceLines(g2, prices, width, topMargin, marginX, usableHeight, maxPrice, adjustedRange);
-        drawXAxisLabels(g2, fm, width, height, marginX, data.timestamps());
-        if (hoverX != null)
-            drawHoverCrosshair(g2, width, height, marginX, topMargin, usableHeight, prices, maxPrice, adjustedRange);
+        if (barStyle) {
+            drawBars(g2, topMargin, usableHeight, maxPrice, adjustedRange);
+        } else {
+            drawPriceLines(g2, data, width, topMargin, marginX, usableHeight, maxPrice, adjustedRange);
+        }
+        if (hasIndicators) {
+            drawPriceOverlays(g2, topMargin, usableHeight, maxPrice, adjustedRange);
+        }
+
+        int paneTop = topMargin + usableHeight + VOLUME_GAP;
+        if (showRsi) {
+            drawRsi(g2, width, marginX, paneTop, oscillatorHeight);
+            paneTop += oscillatorHeight + VOLUME_GAP;
+        }
+        if (showMacd) {
+            drawMacd(g2, width, marginX, paneTop, oscillatorHeight);
+            paneTop += oscillatorHeight + VOLUME_GAP;
+        }
+        if (volumeHeight > 0) {
+            drawVolume(g2, paneTop, volumeHeight);
+        }
+        drawXAxisLabels(g2, fm, width, height, marginX, data);
+    }
+
+    /**
+     * Maps a cursor x position to the nearest visible bar, or -1 when there is no data.
+     */
+    private int hoverIndexAt(int x) {
+        if (data == null || data.isEmpty()) return -1;
+        int n = data.size();
+        int usableWidth = Math.max(1, getWidth() - 2 * MARGIN_X);
+        return Math.min(n - 1, Math.max(0, (int) ((long) (x - MARGIN_X) * (n - 1) / usableWidth)));
     }
 
     private void drawYAxis(Graphics2D g2, int width, int topMargin, int marginX, int usableHeight,
@@ -102,47 +401,304 @@ public class ChartPanel extends JPanel {
         for (double p = Math.ceil(minPrice / step) * step; p <= maxPrice; p += step) {
             int y = topMargin + (int) ((maxPrice - p) / adjustedRange * usableHeight);
             g2.drawString(String.format("%.2f", p), marginX / 4, y + 5);
-            g2.setColor(new Color(200, 200, 200, 50));
+            g2.setColor(GRID_COLOR);
             g2.drawLine(marginX, y, width - marginX, y);
             g2.setColor(ColorPalette.SILVER);
         }
     }
 
-    private void drawPriceLines(Graphics2D g2, List<Double> prices, int width, int topMargin, int marginX,
+    private void drawPriceLines(Graphics2D g2, HistoricalData series, int width, int topMargin, int marginX,
                                 int usableHeight, double maxPrice, double adjustedRange) {
-        int n = prices.size();
-        g2.setStroke(new BasicStroke(2));
-        for (int i = 1; i < n; i++) {
-            int x1 = marginX + (i - 1) * (width - 2 * marginX) / (n - 1);
-            int x2 = marginX + i * (width - 2 * marginX) / (n - 1);
-            int y1 = topMargin + (int) ((maxPrice - prices.get(i - 1)) / adjustedRange * usableHeight);
-            int y2 = topMargin + (int) ((maxPrice - prices.get(i)) / adjustedRange * usableHeight);
-            g2.setColor(prices.get(i) >= prices.get(i - 1) ? ColorPalette.GREEN : ColorPalette.RED);
-            g2.drawLine(x1, y1, x2, y2);
+        int n = series.size();
+        if (n < 2) return;
+
+        // At most a few points per pixel column, with spikes preserved
+        int usableWidth = width - 2 * marginX;
+        int[] indices = decimator.decimate(visibleFrom, visibleFrom + n, usableWidth);
+
+        // One path per colour instead of a colour change and drawLine per segment
+        Path2D.Double up = new Path2D.Double();
+        Path2D.Double down = new Path2D.Double();
+        for (int k = 1; k < indices.length; k++) {
+            int i1 = indices[k - 1] - visibleFrom;
+            int i2 = indices[k] - visibleFrom;
+            double p1 = series.adjClose(i1);
+            double p2 = series.adjClose(i2);
+            int x1 = marginX + (int) ((long) i1 * usableWidth / (n - 1));
+            int x2 = marginX + (int) ((long) i2 * usableWidth / (n - 1));
+            int y1 = topMargin + (int) ((maxPrice - p1) / adjustedRange * usableHeight);
+            int y2 = topMargin + (int) ((maxPrice - p2) / adjustedRange * usableHeight);
+
+            Path2D.Double path = p2 >= p1 ? up : down;
+            path.moveTo(x1, y1);
+            path.lineTo(x2, y2);
         }
+
+        g2.setStroke(PRICE_STROKE);
+        g2.setColor(ColorPalette.GREEN);
+        g2.draw(up);
+        g2.setColor(ColorPalette.RED);
+        g2.draw(down);
+    }
+
+    /**
+     * Fills the bucket arrays for the visible window. Every bar gets its own bucket while
+     * bars are at least {@value #MIN_BAR_PX} pixels wide; beyond that, consecutive bars are
+     * merged into one candle per bucket (first open, highest high, lowest low, last close,
+     * summed volume), using the extrema indexes and volume prefix sums rather than a rescan.
+     */
+    private void bucketize(int usableWidth) {
+        int n = data.size();
+        int m = Math.max(1, Math.min(n, usableWidth / MIN_BAR_PX));
+        if (bucketX.length < m) {
+            bucketX = new double[m];
+            bucketOpen = new double[m];
+            bucketHigh = new double[m];
+            bucketLow = new double[m];
+            bucketClose = new double[m];
+            bucketVolume = new double[m];
+            bucketLast = new int[m];
+        }
+
+        bucketMaxVolume = 0;
+        for (int b = 0; b < m; b++) {
+            int from = (int) ((long) n * b / m);
+            int to = (int) ((long) n * (b + 1) / m);
+            int last = to - 1;
+
+            bucketX[b] = MARGIN_X + (n > 1 ? (from + last) / 2.0 * usableWidth / (n - 1) : usableWidth / 2.0);
+            bucketOpen[b] = data.open(from) * adjustment(data, from);
+            bucketClose[b] = data.adjClose(last);
+            bucketHigh[b] = highMax.query(visibleFrom + from, visibleFrom + to);
+            bucketLow[b] = lowMin.query(visibleFrom + from, visibleFrom + to);
+            bucketVolume[b] = volumePrefix[visibleFrom + to] - volumePrefix[visibleFrom + from];
+            bucketLast[b] = visibleFrom + last;
+            bucketMaxVolume = Math.max(bucketMaxVolume, bucketVolume[b]);
+        }
+        bucketCount = m;
+        bucketWidth = Math.max(1, (double) usableWidth / m * 0.7);
+    }
+
+    /**
+     * Candlesticks or OHLC bars, batched into one wick path and one body path per colour.
+     */
+    private void drawBars(Graphics2D g2, int topMargin, int usableHeight, double maxPrice, double adjustedRange) {
+        Path2D.Double upLines = new Path2D.Double();
+        Path2D.Double downLines = new Path2D.Double();
+        Path2D.Double upBodies = new Path2D.Double();
+        Path2D.Double downBodies = new Path2D.Double();
+        double scale = usableHeight / adjustedRange;
+        double half = bucketWidth / 2;
+
+        for (int b = 0; b < bucketCount; b++) {
+            double x = bucketX[b];
+            double yOpen = topMargin + (maxPrice - bucketOpen[b]) * scale;
+            double yClose = topMargin + (maxPrice - bucketClose[b]) * scale;
+            double yHigh = topMargin + (maxPrice - bucketHigh[b]) * scale;
+            double yLow = topMargin + (maxPrice - bucketLow[b]) * scale;
+            boolean up = bucketClose[b] >= bucketOpen[b];
+            Path2D.Double lines = up ? upLines : downLines;
+
+            lines.moveTo(x, yHigh);
+            lines.lineTo(x, yLow);
+            if (style == Style.OHLC) {
+                lines.moveTo(x - half, yOpen);
+                lines.lineTo(x, yOpen);
+                lines.moveTo(x, yClose);
+                lines.lineTo(x + half, yClose);
+            } else {
+                double top = Math.min(yOpen, yClose);
+                appendRect(up ? upBodies : downBodies, x - half, top, bucketWidth, Math.max(1, Math.abs(yClose - yOpen)));
+            }
+        }
+
+        g2.setStroke(BAR_STROKE);
+        g2.setColor(ColorPalette.GREEN);
+        g2.draw(upLines);
+        g2.fill(upBodies);
+        g2.setColor(ColorPalette.RED);
+        g2.draw(downLines);
+        g2.fill(downBodies);
+    }
+
+    /**
+     * Volume sub-pane below the price area, one filled path per colour.
+     */
+    private void drawVolume(Graphics2D g2, int paneTop, int paneHeight) {
+        Path2D.Double up = new Path2D.Double();
+        Path2D.Double down = new Path2D.Double();
+        double half = bucketWidth / 2;
+        double bottom = paneTop + paneHeight;
+
+        for (int b = 0; b < bucketCount; b++) {
+            double h = bucketVolume[b] / bucketMaxVolume * paneHeight;
+            if (h <= 0) continue;
+            appendRect(bucketClose[b] >= bucketOpen[b] ? up : down, bucketX[b] - half, bottom - h, bucketWidth, h);
+        }
+
+        g2.setColor(VOLUME_UP);
+        g2.fill(up);
+        g2.setColor(VOLUME_DOWN);
+        g2.fill(down);
     }
 
-    private void drawXAxisLabels(Graphics2D g2, FontMetrics fm, int width, int height, int marginX, List<Long> timestamps) {
-        g2.setFont(new Font("Consolas", Font.BOLD, 12));
+    private void drawPriceOverlays(Graphics2D g2, int topMargin, int usableHeight, double maxPrice,
+                                   double adjustedRange) {
+        double scale = usableHeight / adjustedRange;
+        double offset = topMargin + maxPrice * scale;  // y = offset - value * scale
+
+        g2.setStroke(OVERLAY_STROKE);
+        if (studies.contains(Study.BOLLINGER)) {
+            g2.setColor(BOLLINGER_COLOR);
+            g2.draw(overlayPath(Output.BOLLINGER_UPPER, offset, -scale));
+            g2.draw(overlayPath(Output.BOLLINGER_MIDDLE, offset, -scale));
+            g2.draw(overlayPath(Output.BOLLINGER_LOWER, offset, -scale));
+        }
+        if (studies.contains(Study.SMA)) {
+            g2.setColor(SMA_COLOR);
+            g2.draw(overlayPath(Output.SMA, offset, -scale));
+        }
+        if (studies.contains(Study.EMA)) {
+            g2.setColor(EMA_COLOR);
+            g2.draw(overlayPath(Output.EMA, offset, -scale));
+        }
+        if (studies.contains(Study.VWAP)) {
+            g2.setColor(VWAP_COLOR);
+            g2.draw(overlayPath(Output.VWAP, offset, -scale));
+        }
+    }
+
+    /**
+     * RSI pane on a fixed 0-100 scale with the 30/70 guides.
+     */
+    private void drawRsi(Graphics2D g2, int width, int marginX, int paneTop, int paneHeight) {
+        double scale = paneHeight / 100.0;
+        drawPaneGuide(g2, width, marginX, paneTop + 30 * scale, "70");
+        drawPaneGuide(g2, width, marginX, paneTop + 70 * scale, "30");
+
+        g2.setStroke(OVERLAY_STROKE);
+        g2.setColor(ColorPalette.ORANGE_WEB);
+        g2.draw(overlayPath(Output.RSI, paneTop + paneHeight, -scale));
+        g2.setColor(ColorPalette.SILVER);
+        g2.drawString("RSI " + IndicatorEngine.RSI_PERIOD, marginX / 4, paneTop + 12);
+    }
+
+    /**
+     * MACD pane: histogram, MACD and signal lines, scaled symmetrically around zero.
+     */
+    private void drawMacd(Graphics2D g2, int width, int marginX, int paneTop, int paneHeight) {
+        double extent = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            int i = bucketLast[b];
+            extent = Math.max(extent, Math.abs(nanToZero(indicators.value(Output.MACD, i))));
+            extent = Math.max(extent, Math.abs(nanToZero(indicators.value(Output.MACD_SIGNAL, i))));
+            extent = Math.max(extent, Math.abs(nanToZero(indicators.value(Output.MACD_HISTOGRAM, i))));
+        }
+        if (extent == 0) return;
+
+        double scale = paneHeight / 2.0 / extent;
+        double zero = paneTop + paneHeight / 2.0;
+        drawPaneGuide(g2, width, marginX, zero, "0");
+
+        Path2D.Double up = new Path2D.Double();
+        Path2D.Double down = new Path2D.Double();
+        double half = bucketWidth / 2;
+        for (int b = 0; b < bucketCount; b++) {
+            double histogram = indicators.value(Output.MACD_HISTOGRAM, bucketLast[b]);
+            if (Double.isNaN(histogram) || histogram == 0) continue;
+            double h = Math.abs(histogram) * scale;
+            appendRect(histogram > 0 ? up : down, bucketX[b] - half, histogram > 0 ? zero - h : zero, bucketWidth, h);
+        }
+        g2.setColor(VOLUME_UP);
+        g2.fill(up);
+        g2.setColor(VOLUME_DOWN);
+        g2.fill(down);
+
+        g2.setStroke(OVERLAY_STROKE);
+        g2.setColor(ColorPalette.ICTERINE);
+        g2.draw(overlayPath(Output.MACD, zero, -scale));
+        g2.setColor(ColorPalette.ORANGE_PEEL);
+        g2.draw(overlayPath(Output.MACD_SIGNAL, zero, -scale));
+        g2.setColor(ColorPalette.SILVER);
+        g2.drawString("MACD " + IndicatorEngine.MACD_FAST + "," + IndicatorEngine.MACD_SLOW + ","
+                + IndicatorEngine.MACD_SIGNAL, marginX / 4, paneTop + 12);
+    }
+
+    private void drawPaneGuide(Graphics2D g2, int width, int marginX, double y, String label) {
+        g2.setStroke(BAR_STROKE);
+        g2.setColor(GUIDE_COLOR);
+        g2.drawLine(marginX, (int) y, width - marginX, (int) y);
+        g2.drawString(label, width - marginX + 5, (int) y + 4);
+    }
+
+    /**
+     * One point per drawn bucket at y = offset + value * scale, broken wherever the
+     * indicator has no value yet.
+     */
+    private Path2D.Double overlayPath(Output output, double offset, double scale) {
+        Path2D.Double path = new Path2D.Double();
+        boolean drawing = false;
+        for (int b = 0; b < bucketCount; b++) {
+            double value = indicators.value(output, bucketLast[b]);
+            if (Double.isNaN(value)) {
+                drawing = false;
+                continue;
+            }
+            double y = offset + value * scale;
+            if (drawing) {
+                path.lineTo(bucketX[b], y);
+            } else {
+                path.moveTo(bucketX[b], y);
+                drawing = true;
+            }
+        }
+        return path;
+    }
+
+    private static double nanToZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static void appendRect(Path2D.Double path, double x, double y, double w, double h) {
+        path.moveTo(x, y);
+        path.lineTo(x + w, y);
+        path.lineTo(x + w, y + h);
+        path.lineTo(x, y + h);
+        path.closePath();
+    }
+
+    private void drawXAxisLabels(Graphics2D g2, FontMetrics fm, int width, int height, int marginX, HistoricalData series) {
+        g2.setFont(LABEL_FONT);
         g2.setColor(ColorPalette.ANTI_FLASH_WHITE);
         int yLabel = height - 45 + fm.getAscent();
-        int n = timestamps.size();
+        int n = series.size();
+        if (n < 2) return;
+
+        if (intraday) {
+            drawTimeLabels(g2, fm, width, marginX, yLabel, series);
+            return;
+        }
 
-        int totalDays = (int) java.time.temporal.ChronoUnit.DAYS.between(
-                Instant.ofEpochSecond(timestamps.get(0)).atZone(ZoneId.systemDefault()).toLocalDate(),
-                Instant.ofEpochSecond(timestamps.get(n - 1)).atZone(ZoneId.systemDefault()).toLocalDate());
+        int totalDays = (int) (epochDay(series.timestamp(n - 1)) - epochDay(series.timestamp(0)));
 
+        // Dates are only materialised when the calendar day changes
         LocalDate lastLabeled = null;
+        long lastDay = Long.MIN_VALUE;
+        LocalDate date = null;
         for (int i = 0; i < n; i++) {
-            int x = marginX + i * (width - 2 * marginX) / (n - 1);
-            LocalDate date = Instant.ofEpochSecond(timestamps.get(i)).atZone(ZoneId.systemDefault()).toLocalDate();
+            int x = marginX + (int) ((long) i * (width - 2 * marginX) / (n - 1));
+            long day = epochDay(series.timestamp(i));
+            if (day != lastDay) {
+                date = LocalDate.ofEpochDay(day);
+                lastDay = day;
+            }
             String label = null;
 
             if (totalDays <= 10 && !date.equals(lastLabeled)) {
-                label = date.format(java.time.format.DateTimeFormatter.ofPattern("MMM dd"));
+                label = date.format(DAY_LABEL);
             } else if (totalDays <= 370 && (lastLabeled == null || !sameMonthYear(date, lastLabeled))) {
                 if (date.getDayOfMonth() > 5 && date.getDayOfMonth() < date.lengthOfMonth() - 5) {
-                    label = date.format(java.time.format.DateTimeFormatter.ofPattern("MMM"));
+                    label = date.format(MONTH_LABEL);
                 }
             } else if (totalDays > 370) {
                 int yearGap = (totalDays > 3650) ? 5 : (totalDays > 1825) ? 2 : 1;
@@ -159,26 +715,69 @@ public class ChartPanel extends JPanel {
         }
     }
 
+    /**
+     * Labels intraday bars on round clock times, spaced to suit how much of the day is shown.
+     */
+    private void drawTimeLabels(Graphics2D g2, FontMetrics fm, int width, int marginX, int yLabel,
+                                HistoricalData series) {
+        int n = series.size();
+        long span = series.timestamp(n - 1) - series.timestamp(0);
+        long step = span <= 300 ? 60 : span <= 1_800 ? 300 : span <= 7_200 ? 900 : span <= 21_600 ? 3_600 : 7_200;
+
+        // Offset is fixed for the session, so local time is plain arithmetic on epoch seconds
+        int offset = MARKET_ZONE.getRules().getOffset(Instant.ofEpochSecond(series.timestamp(0))).getTotalSeconds();
+        long lastBucket = Long.MIN_VALUE;
+        int lastLabelEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            long bucket = Math.floorDiv(series.timestamp(i) + offset, step);
+            if (bucket == lastBucket) continue;
+            lastBucket = bucket;
+
+            int x = marginX + (int) ((long) i * (width - 2 * marginX) / (n - 1));
+            String label = LocalTime.ofSecondOfDay(Math.floorMod(bucket * step, 86_400L)).format(TIME_LABEL);
+            int strW = fm.stringWidth(label);
+            if (x - strW / 2 <= lastLabelEnd + 10) continue;
+
+            g2.drawString(label, x - strW / 2, yLabel);
+            lastLabelEnd = x + strW / 2;
+        }
+    }
+
+    // Bars are stamped at UTC midnight, so the calendar day is a plain division
+    private static long epochDay(long epochSecond) {
+        return Math.floorDiv(epochSecond, 86_400L);
+    }
+
     private void drawHoverCrosshair(Graphics2D g2, int width, int height, int marginX, int topMargin,
-                                    int usableHeight, List<Double> prices, double maxPrice, double adjustedRange) {
-        int n = prices.size();
+                                    int usableHeight, HistoricalData series, double maxPrice, double adjustedRange) {
+        int n = series.size();
         int usableWidth = width - 2 * marginX;
-        int idx = Math.min(n - 1, Math.max(0, (hoverX - marginX) * (n - 1) / usableWidth));
-        int x = marginX + idx * usableWidth / (n - 1);
-        int y = topMargin + (int) ((maxPrice - prices.get(idx)) / adjustedRange * usableHeight);
+        int idx = Math.min(n - 1, hoverIndex);
+        int x = n > 1 ? marginX + (int) ((long) idx * usableWidth / (n - 1)) : marginX;
+        double close = series.adjClose(idx);
+
+        // When several bars share a candle, the readout describes the whole candle
+        int bucket = style != Style.LINE ? bucketOf(idx) : -1;
+        int first = idx;
+        if (bucket >= 0) {
+            first = bucket > 0 ? bucketLast[bucket - 1] + 1 - visibleFrom : 0;
+            idx = bucketLast[bucket] - visibleFrom;
+            x = (int) bucketX[bucket];
+            close = bucketClose[bucket];
+        }
+        int y = topMargin + (int) ((maxPrice - close) / adjustedRange * usableHeight);
 
         g2.setColor(Color.GRAY);
-        g2.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0));
+        g2.setStroke(CROSSHAIR_STROKE);
         g2.drawLine(x, topMargin, x, topMargin + usableHeight);
         g2.drawLine(marginX, y, width - marginX, y);
 
-        String dateLabel = Instant.ofEpochSecond(data.timestamps().get(idx))
-                .atZone(ZoneId.systemDefault()).toLocalDate()
-                .format(java.time.format.DateTimeFormatter.ofPattern("MMM dd, yyyy"));
-        String priceLabel = String.format("$%.2f", prices.get(idx));
+        String dateLabel = first < idx
+                ? hoverLabel(series, first) + " – " + hoverLabel(series, idx)
+                : hoverLabel(series, idx);
+        String priceLabel = String.format("$%.2f", close);
 
-        Font hoverFont = new Font("Consolas", Font.PLAIN, 12);
-        g2.setFont(hoverFont);
+        g2.setFont(HOVER_FONT);
         FontMetrics hoverMetrics = g2.getFontMetrics();
 
         int labelWidth = hoverMetrics.stringWidth(dateLabel);
@@ -186,11 +785,39 @@ public class ChartPanel extends JPanel {
         int dateBoxX = Math.max(marginX, x - labelWidth / 2 - 5);
         int dateBoxY = height - 35 + 5;
 
-        g2.setColor(new Color(0, 0, 0, 200));
+        g2.setColor(HOVER_BOX_COLOR);
         g2.fillRect(dateBoxX, dateBoxY, labelWidth + 10, labelHeight);
         g2.setColor(Color.WHITE);
         g2.drawString(dateLabel, dateBoxX + 5, dateBoxY + hoverMetrics.getAscent());
         g2.drawString(priceLabel, width - marginX + 5, y);
+
+        if (bucket >= 0) {
+            String ohlc = String.format("O %.2f  H %.2f  L %.2f  C %.2f  V %,.0f",
+                    bucketOpen[bucket], bucketHigh[bucket], bucketLow[bucket],
+                    bucketClose[bucket], bucketVolume[bucket]);
+            g2.drawString(ohlc, marginX, topMargin - 10);
+        }
+    }
+
+    private String hoverLabel(HistoricalData series, int i) {
+        return intraday
+                ? Instant.ofEpochSecond(series.timestamp(i)).atZone(MARKET_ZONE).format(HOVER_TIME)
+                : LocalDate.ofEpochDay(epochDay(series.timestamp(i))).format(HOVER_DATE);
+    }
+
+    /**
+     * The drawn candle containing visible bar {@code i}, or -1 before the first bucketize.
+     */
+    private int bucketOf(int i) {
+        int target = visibleFrom + i;
+        int lo = 0, hi = bucketCount - 1;
+        if (hi < 0 || bucketLast[hi] < target) return -1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bucketLast[mid] < target) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
     }
 
     private boolean sameMonthYear(LocalDate d1, LocalDate d2) {
@@ -1,21 +1,24 @@
 package com.minibloomberg.ui;
 
 import com.minibloomberg.logic.LivePriceManager;
-import com.minibloomberg.data.Stock;
+import com.minibloomberg.logic.QuoteService;
 import com.minibloomberg.MainWindow;
 
 public class SearchController {
     private final FadeTransitionPanel centerContainer;
     private final TickerDetailPanel[] panelHolder;
     private final LivePriceManager livePriceManager;
+    private final QuoteService quoteService;
     private final MainWindow mainWindow;
 
     public SearchController(MainWindow mainWindow, FadeTransitionPanel centerContainer,
-                            TickerDetailPanel[] panelHolder, LivePriceManager manager) {
+                            TickerDetailPanel[] panelHolder, LivePriceManager manager,
+                            QuoteService quoteService) {
         this.mainWindow = mainWindow;
         this.centerContainer = centerContainer;
         this.panelHolder = panelHolder;
         this.livePriceManager = manager;
+        this.quoteService = quoteService;
     }
 
     public void search(String ticker) {
@@ -30,19 +33,20 @@ public class SearchController {
             return;
         }
 
-        Stock snapshot = com.minibloomberg.logic.StockDataFetcher.fetchStockSnapshot(ticker);
-
-        if (snapshot == null) {
-            ToastManager.showToast(mainWindow,
-                    "<b>\"" + ticker + "\" is not a valid stock ticker.</b><br>Please check the symbol and try again.",
-                    ToastType.ERROR);
-        } else {
-            TickerDetailPanel newPanel = new TickerDetailPanel(ticker, livePriceManager);
-            panelHolder[0] = newPanel;
-            centerContainer.removeAll();
-            centerContainer.showWithFade(newPanel);
-            centerContainer.revalidate();
-            centerContainer.repaint();
+        // Drop whatever is still loading for the previous ticker
+        if (panelHolder[0] != null) {
+            panelHolder[0].cancelLoad();
         }
+
+        String requested = ticker;
+        TickerDetailPanel newPanel = new TickerDetailPanel(ticker, livePriceManager, quoteService, () ->
+                ToastManager.showToast(mainWindow,
+                        "<b>\"" + requested + "\" is not a valid stock ticker.</b><br>Please check the symbol and try again.",
+                        ToastType.ERROR));
+        panelHolder[0] = newPanel;
+        centerContainer.removeAll();
+        centerContainer.showWithFade(newPanel);
+        centerContainer.revalidate();
+        centerContainer.repaint();
     }
 }
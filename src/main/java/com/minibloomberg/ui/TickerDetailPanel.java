@@ -8,7 +8,9 @@ import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
-import java.util.List;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -16,10 +18,17 @@ import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import org.json.JSONObject;
 
 import com.minibloomberg.data.HistoricalData;
 import com.minibloomberg.data.Stock;
+import com.minibloomberg.logic.BarAggregator;
+import com.minibloomberg.logic.IndicatorEngine;
 import com.minibloomberg.logic.LivePriceManager;
+import com.minibloomberg.logic.QuoteService;
 import com.minibloomberg.logic.StockDataFetcher;
 
 
@@ -39,20 +48,69 @@ public class TickerDetailPanel extends JPanel {
 
 
 
+    private static final String PLACEHOLDER = "…";
+
+    private static final String INTRADAY_RANGE = "1D";
+    private static final int INTRADAY_REFRESH_MS = 1_000;
+
     private final LivePriceManager livePriceManager;
+    private final QuoteService quoteService;
     private final String currentTicker;
-    private final Stock snapshot;
+    private final Runnable onInvalidTicker;
+    private Stock snapshot;
     private JButton addToWatchlist;
 
     private ChartPanel chartPanel;
-    private final HistoricalData fullData;
+    private HistoricalData fullData;
     private JButton activeRangeButton;
-
-    public TickerDetailPanel(String ticker, LivePriceManager manager) {
+    private String activeRange = "3D";
+
+    // Today's session, built from live trades while this panel is open
+    private final BarAggregator barAggregator;
+    private final Timer intradayTimer;
+    private boolean showingIntraday;
+
+    // Indicator columns for the daily history (computed once per load, reused across ranges)
+    // and for today's bars (extended bar by bar as the session goes on)
+    private final IndicatorEngine dailyIndicators = new IndicatorEngine(false);
+    private final IndicatorEngine intradayIndicators = new IndicatorEngine(true);
+    private final Set<IndicatorEngine.Study> shownStudies = EnumSet.noneOf(IndicatorEngine.Study.class);
+
+    // Info labels, filled in as the quote and profile arrive
+    private final JLabel companyLabel;
+    private final JLabel changeLabel;
+    private final JLabel percentChangeLabel;
+    private final JLabel previousCloseLabel;
+    private final JLabel currentPriceLabel;
+    private final JLabel dayLowLabel;
+    private final JLabel dayHighLabel;
+
+    // In-flight loads for this ticker; cancelled when the user moves on to another one
+    private final CompletableFuture<Stock> quoteFuture;
+    private final CompletableFuture<JSONObject> profileFuture;
+    private final CompletableFuture<HistoricalData> historyFuture;
+    private volatile boolean cancelled;
+    private boolean invalid;
+
+    /**
+     * Builds the panel immediately with placeholders and starts the quote, profile and
+     * history requests in parallel; each section fills in on the EDT as its request completes.
+     * {@code onInvalidTicker} runs on the EDT if the quote shows the ticker does not exist.
+     */
+    public TickerDetailPanel(String ticker, LivePriceManager manager, QuoteService quoteService,
+                             Runnable onInvalidTicker) {
         this.livePriceManager = manager;
+        this.quoteService = quoteService;
         this.currentTicker = ticker;
-        this.snapshot = com.minibloomberg.logic.StockDataFetcher.fetchStockSnapshot(ticker);
-        this.fullData =  StockDataFetcher.fetchHistoricalData(currentTicker);
+        this.onInvalidTicker = onInvalidTicker;
+
+        this.quoteFuture = quoteService.quote(ticker);
+        this.profileFuture = quoteService.profile(ticker);
+        this.historyFuture = StockDataFetcher.fetchHistoricalDataAsync(ticker);
+
+        this.barAggregator = manager.getBarAggregator();
+        barAggregator.track(ticker);
+        this.intradayTimer = new Timer(INTRADAY_REFRESH_MS, e -> showIntraday());
 
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         setBackground(ColorPalette.NIGHT);
@@ -64,29 +122,23 @@ public class TickerDetailPanel extends JPanel {
         infoPanel.setBackground(ColorPalette.NIGHT);
         infoContainer.add(infoPanel);
 
-        if (snapshot == null) {
-            JLabel errorLabel = new JLabel("Enter a valid ticker to display data.");
-            errorLabel.setForeground(Color.RED);
-            errorLabel.setFont(new Font("Consolas", Font.BOLD, 16));
-            add(errorLabel);
-            return;
-        }
+        companyLabel = createStyledLabel("Company:", PLACEHOLDER, ColorPalette.HEX_SILVER);
+        changeLabel = createStyledLabel("Change:", PLACEHOLDER, ColorPalette.HEX_SILVER);
+        percentChangeLabel = createStyledLabel("Percent Change:", PLACEHOLDER, ColorPalette.HEX_SILVER);
+        previousCloseLabel = createStyledLabel("Previous Close:", PLACEHOLDER, ColorPalette.HEX_SILVER);
+        currentPriceLabel = createStyledLabel("Current Price:", PLACEHOLDER, ColorPalette.HEX_SILVER);
+        dayLowLabel = createStyledLabel("Day Low:", PLACEHOLDER, ColorPalette.HEX_SILVER);
+        dayHighLabel = createStyledLabel("Day High:", PLACEHOLDER, ColorPalette.HEX_SILVER);
+
+        infoPanel.add(createStyledLabel("Symbol:", ticker, ColorPalette.HEX_ICTERINE));
+        infoPanel.add(companyLabel);
+        infoPanel.add(changeLabel);
+        infoPanel.add(percentChangeLabel);
+        infoPanel.add(previousCloseLabel);
+        infoPanel.add(currentPriceLabel);
+        infoPanel.add(dayLowLabel);
+        infoPanel.add(dayHighLabel);
 
-        double change = snapshot.change();
-        String formattedChange = String.format("%s$%.2f", change < 0 ? "-" : "", Math.abs(change));
-        
-        infoPanel.add(createStyledLabel("Symbol:", snapshot.symbol(), ColorPalette.HEX_ICTERINE));
-        infoPanel.add(createStyledLabel("Company:", snapshot.companyName(), ColorPalette.HEX_SILVER));
-        infoPanel.add(createStyledLabel("Change:", formattedChange,
-            change >= 0 ? ColorPalette.HEX_GREEN : ColorPalette.HEX_RED));
-        infoPanel.add(createStyledLabel("Percent Change:", snapshot.percentChange() + "%",
-            change >= 0 ? ColorPalette.HEX_GREEN : ColorPalette.HEX_RED));
-        infoPanel.add(createStyledLabel("Previous Close:", "$" + snapshot.previousClose(), ColorPalette.HEX_SILVER));
-        infoPanel.add(createStyledLabel("Current Price:", "$" + snapshot.currentPrice(), ColorPalette.HEX_SILVER));
-        infoPanel.add(createStyledLabel("Day Low:", "$" + snapshot.dayLow(), ColorPalette.HEX_SILVER));
-        infoPanel.add(createStyledLabel("Day High:", "$" + snapshot.dayHigh(), ColorPalette.HEX_SILVER));
-        
-        
         infoPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 100));
         add(infoContainer);
         add(Box.createVerticalStrut(15));
@@ -101,7 +153,7 @@ public class TickerDetailPanel extends JPanel {
         JPanel rangeButtonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
         rangeButtonPanel.setOpaque(false);
 
-        String[] ranges = {"All", "1Y", "6M", "3M", "1M", "1W", "3D"};
+        String[] ranges = {"All", "1Y", "6M", "3M", "1M", "1W", "3D", INTRADAY_RANGE};
         for (String range : ranges) {
             JButton button = getjButton(range);
 
@@ -113,14 +165,23 @@ public class TickerDetailPanel extends JPanel {
             }
         }
 
+        rangeButtonPanel.add(Box.createHorizontalStrut(20));
+        rangeButtonPanel.add(getStyleButton());
+
+        JPanel studyButtonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        studyButtonPanel.setOpaque(false);
+        for (IndicatorEngine.Study study : IndicatorEngine.Study.values()) {
+            studyButtonPanel.add(getStudyButton(study));
+        }
+
         innerPanel.add(rangeButtonPanel);
         innerPanel.add(Box.createVerticalStrut(10));
+        innerPanel.add(studyButtonPanel);
+        innerPanel.add(Box.createVerticalStrut(10));
 
         chartPanel = new ChartPanel();
-        chartPanel.setHistoricalData(fullData);
         chartPanel.setPreferredSize(new Dimension(800, 400));
         innerPanel.add(chartPanel);
-        updateChartForRange("3D");
 
         chartContainer.add(innerPanel);
 
@@ -185,45 +246,150 @@ public class TickerDetailPanel extends JPanel {
         buttonPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 60));
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 50, 0));
         add(buttonPanel);
+
+        quoteFuture.whenComplete((quote, error) -> onEdt(() -> {
+            if (error != null) showQuoteUnavailable(error);
+            else showQuote(quote);
+        }));
+        profileFuture.whenComplete((profile, error) -> onEdt(() -> showProfile(error == null ? profile : null)));
+        historyFuture.whenComplete((data, error) -> onEdt(() -> showHistory(data)));
     }
 
     public String getCurrentTicker() {
-        return snapshot != null ? snapshot.symbol() : null;
+        return invalid ? null : currentTicker;
+    }
+
+    /**
+     * Abandons any requests still in flight for this ticker.
+     */
+    public void cancelLoad() {
+        if (!cancelled) barAggregator.untrack(currentTicker);
+        cancelled = true;
+        intradayTimer.stop();
+        quoteFuture.cancel(true);
+        profileFuture.cancel(true);
+        historyFuture.cancel(true);
+    }
+
+    private void onEdt(Runnable update) {
+        if (cancelled) return;
+        SwingUtilities.invokeLater(() -> {
+            if (!cancelled) update.run();
+        });
+    }
+
+    private void showQuote(Stock stock) {
+        if (stock == null) {
+            showInvalidTicker();
+            return;
+        }
+
+        double change = stock.change();
+        String formattedChange = String.format("%s$%.2f", change < 0 ? "-" : "", Math.abs(change));
+        String changeColor = change >= 0 ? ColorPalette.HEX_GREEN : ColorPalette.HEX_RED;
+
+        changeLabel.setText(styledText("Change:", formattedChange, changeColor));
+        percentChangeLabel.setText(styledText("Percent Change:", stock.percentChange() + "%", changeColor));
+        previousCloseLabel.setText(styledText("Previous Close:", "$" + stock.previousClose(), ColorPalette.HEX_SILVER));
+        currentPriceLabel.setText(styledText("Current Price:", "$" + stock.currentPrice(), ColorPalette.HEX_SILVER));
+        dayLowLabel.setText(styledText("Day Low:", "$" + stock.dayLow(), ColorPalette.HEX_SILVER));
+        dayHighLabel.setText(styledText("Day High:", "$" + stock.dayHigh(), ColorPalette.HEX_SILVER));
+
+        profileFuture.whenComplete((profile, error) -> onEdt(() -> {
+            snapshot = profile != null && error == null ? QuoteService.withProfile(stock, profile) : stock;
+            updateWatchlistButton();
+        }));
+    }
+
+    /**
+     * The quote request failed rather than finding no such ticker: say so instead of
+     * leaving the placeholders up.
+     */
+    private void showQuoteUnavailable(Throwable error) {
+        System.err.println("[TickerDetailPanel] Quote for " + currentTicker + " failed: " + error.getMessage());
+        String unavailable = "Unavailable";
+        changeLabel.setText(styledText("Change:", unavailable, ColorPalette.HEX_RED));
+        percentChangeLabel.setText(styledText("Percent Change:", unavailable, ColorPalette.HEX_RED));
+        previousCloseLabel.setText(styledText("Previous Close:", unavailable, ColorPalette.HEX_RED));
+        currentPriceLabel.setText(styledText("Current Price:", unavailable, ColorPalette.HEX_RED));
+        dayLowLabel.setText(styledText("Day Low:", unavailable, ColorPalette.HEX_RED));
+        dayHighLabel.setText(styledText("Day High:", unavailable, ColorPalette.HEX_RED));
+    }
+
+    private void showProfile(JSONObject profile) {
+        if (invalid) return;
+        String companyName = profile != null ? profile.optString("name", "N/A") : "N/A";
+        companyLabel.setText(styledText("Company:", companyName, ColorPalette.HEX_SILVER));
+    }
+
+    private void showHistory(HistoricalData data) {
+        if (invalid) return;
+        fullData = data;
+        if (fullData != null) dailyIndicators.load(fullData);
+        if (!showingIntraday) showDaily();
+        updateChartForRange(activeRange);
+    }
+
+    private void showInvalidTicker() {
+        invalid = true;
+        cancelLoad();
+
+        removeAll();
+        JLabel errorLabel = new JLabel("Enter a valid ticker to display data.");
+        errorLabel.setForeground(Color.RED);
+        errorLabel.setFont(new Font("Consolas", Font.BOLD, 16));
+        add(errorLabel);
+        revalidate();
+        repaint();
+
+        if (onInvalidTicker != null) onInvalidTicker.run();
     }
 
     private JLabel createStyledLabel(String label, String value, String hexValueColor) {
-        String labelHtml = String.format(
+        JLabel styledLabel = new JLabel(styledText(label, value, hexValueColor));
+        styledLabel.setFont(TERMINAL_FONT);
+        return styledLabel;
+    }
+
+    private static String styledText(String label, String value, String hexValueColor) {
+        return String.format(
             "<html><span style='color:%s;'>%s </span><span style='color:%s;'>%s</span></html>",
             ColorPalette.HEX_WHITE, label, hexValueColor, value
         );
-        JLabel styledLabel = new JLabel(labelHtml);
-        styledLabel.setFont(TERMINAL_FONT);
-        return styledLabel;
     }
     
 
     private void updateWatchlistButton() {
         if (livePriceManager.containsTicker(currentTicker)) {
             addToWatchlist.setText("Remove from Watchlist");
+            addToWatchlist.setEnabled(true);
         } else {
             addToWatchlist.setText("Add to Watchlist");
+            // Adding needs the quote and profile, so wait for the snapshot
+            addToWatchlist.setEnabled(snapshot != null);
         }
     }
 
     private void handleWatchlistButtonClick() {
         if (livePriceManager.containsTicker(currentTicker)) {
             livePriceManager.removeTicker(currentTicker);
-        } else {
+        } else if (snapshot != null) {
             livePriceManager.addTicker(snapshot);
         }
         updateWatchlistButton();
     }
 
     private void updateChartForRange(String selectedRange) {
-        if (fullData == null) return;
+        activeRange = selectedRange;
+        if (INTRADAY_RANGE.equals(selectedRange)) {
+            showIntraday();
+            intradayTimer.start();
+            return;
+        }
 
-        List<Long> timestamps = fullData.timestamps();
-        List<Double> closePrices = fullData.closePrices();
+        intradayTimer.stop();
+        if (fullData == null) return;
+        if (showingIntraday) showDaily();
 
         int daysBack = switch (selectedRange) {
             case "3D" -> 3;
@@ -235,16 +401,42 @@ public class TickerDetailPanel extends JPanel {
             default -> Integer.MAX_VALUE;
         };
 
-        int start = Math.max(0, timestamps.size() - daysBack);
+        // Window over the loaded series; the chart decimates it to its width
+        int total = fullData.size();
+        chartPanel.setVisibleRange((int) Math.max(0, (long) total - daysBack), total);
+    }
 
-        List<Long> filteredTimestamps = timestamps.subList(start, timestamps.size());
-        List<Double> filteredPrices = closePrices.subList(start, closePrices.size());
+    /**
+     * Redraws today's one-minute bars from the live aggregator; no REST call involved.
+     */
+    private void showIntraday() {
+        if (cancelled) return;
+        HistoricalData bars = barAggregator.sessionBars(currentTicker, BarAggregator.Resolution.MINUTE_1);
+        intradayIndicators.sync(bars);
+        chartPanel.updateIntradaySeries(bars);   // Rebuilds only when a bar was added
+        chartPanel.setIndicators(intradayIndicators);
+        showingIntraday = true;
+    }
 
-        chartPanel.setHistoricalData(new HistoricalData(filteredTimestamps, filteredPrices));
+    private void showDaily() {
+        chartPanel.setSeries(fullData);
+        chartPanel.setIndicators(dailyIndicators);
+        showingIntraday = false;
     }
 
     private JButton getjButton(String range) {
-        JButton button = new JButton(range);
+        JButton button = createChartButton(range);
+    
+        button.addActionListener(e -> {
+            updateChartForRange(range);
+            updateActiveButton(button);
+        });
+    
+        return button;
+    }
+
+    private JButton createChartButton(String text) {
+        JButton button = new JButton(text);
         button.setFocusPainted(false);
         button.setBackground(RANGE_BUTTON_BG);
         button.setForeground(RANGE_BUTTON_TEXT);
@@ -253,15 +445,53 @@ public class TickerDetailPanel extends JPanel {
         button.setBorder(BorderFactory.createLineBorder(RANGE_BUTTON_BORDER));
         button.setOpaque(true);
         button.setContentAreaFilled(true);
+        return button;
+    }
     
+    /**
+     * Cycles the chart through line, candlestick and OHLC drawing.
+     */
+    private JButton getStyleButton() {
+        JButton button = createChartButton("Line");
+
         button.addActionListener(e -> {
-            updateChartForRange(range);
-            updateActiveButton(button);
+            ChartPanel.Style[] styles = ChartPanel.Style.values();
+            ChartPanel.Style next = styles[(chartPanel.getStyle().ordinal() + 1) % styles.length];
+            chartPanel.setStyle(next);
+            button.setText(switch (next) {
+                case LINE -> "Line";
+                case CANDLES -> "Candles";
+                case OHLC -> "OHLC";
+            });
         });
-    
         return button;
     }
-    
+
+    /**
+     * Toggles one indicator on the chart.
+     */
+    private JButton getStudyButton(IndicatorEngine.Study study) {
+        JButton button = createChartButton(switch (study) {
+            case SMA -> "SMA " + IndicatorEngine.SMA_PERIOD;
+            case EMA -> "EMA " + IndicatorEngine.EMA_PERIOD;
+            case RSI -> "RSI";
+            case MACD -> "MACD";
+            case BOLLINGER -> "BB";
+            case VWAP -> "VWAP";
+        });
+
+        button.addActionListener(e -> {
+            if (shownStudies.remove(study)) {
+                resetButtonStyle(button);
+            } else {
+                shownStudies.add(study);
+                highlightButton(button);
+            }
+            chartPanel.setStudies(shownStudies);
+        });
+        return button;
+    }
+
     private void resetButtonStyle(JButton button) {
         button.setBackground(RANGE_BUTTON_BG);
         button.setForeground(RANGE_BUTTON_TEXT);
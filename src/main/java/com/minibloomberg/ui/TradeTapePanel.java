@@ -3,27 +3,62 @@ package com.minibloomberg.ui;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
-import javax.swing.border.EmptyBorder;
 
 import com.minibloomberg.logic.TradeTapeManager;
 import com.minibloomberg.logic.TradeTapeManager.TradeItem;
+import com.minibloomberg.logic.TradeTapeManager.TradeType;
 
+/**
+ * Scrolling trade tape painted directly onto a single component.
+ * Trades are kept in a fixed-capacity ring buffer of primitive columns; each entry has a
+ * position on an ever-growing tape coordinate, and the view is a scroll offset into it.
+ * Text is formatted into a reusable char buffer and measured with a pre-built glyph width
+ * cache, so no Swing components or strings are created per trade and painting only
+ * touches entries that are on screen.
+ */
 public class TradeTapePanel extends JPanel {
-    private final List<JLabel> tradeLabels = new ArrayList<>();
     private final TradeTapeManager tradeManager;
     private final JLabel afterHoursBanner = new JLabel("AFTER HOURS", SwingConstants.LEFT);
 
     private static final int LABEL_SPACING = 50;
+    private static final int CAPACITY = 128;
+    private static final int SCROLL_SPEED = 1;
+    private static final int AFTER_HOURS_OFFSET = 12;
+    private static final Font TAPE_FONT = new Font("Monospaced", Font.PLAIN, 14);
+
+    // Ring buffer columns; guarded by ringLock
+    private final Object ringLock = new Object();
+    private final String[] symbols = new String[CAPACITY];
+    private final double[] prices = new double[CAPACITY];
+    private final double[] volumes = new double[CAPACITY];
+    private final TradeType[] types = new TradeType[CAPACITY];
+    private final Color[] colors = new Color[CAPACITY];
+    private final long[] starts = new long[CAPACITY];   // Tape x coordinate of the entry's left edge
+    private final int[] widths = new int[CAPACITY];
+    private int head;      // Oldest entry
+    private int placed;    // Entries with a tape position, starting at head
+    private int count;     // All entries (placed + waiting to be placed)
+    private long droppedTrades;
+
+    // Scroll state (EDT only)
+    private long scrollOffset;
+    private long tapeEnd;  // Right edge of the last placed entry
+    private volatile boolean afterHours;
+
+    // Glyph and formatting caches (EDT only)
+    private FontMetrics metrics;
+    private final int[] asciiWidths = new int[128];
+    private final char[] textBuffer = new char[96];
 
     public TradeTapePanel(TradeTapeManager tradeManager) {
         this.tradeManager = tradeManager;
@@ -43,68 +78,206 @@ public class TradeTapePanel extends JPanel {
     }
 
     private void onTick() {
-        int speed = 1;
-        Iterator<JLabel> it = tradeLabels.iterator();
-        while (it.hasNext()) {
-            JLabel label = it.next();
-            Point pos = label.getLocation();
-            label.setLocation(pos.x - speed, pos.y);
-
-            if (label.getX() + label.getWidth() < 0) {
-                remove(label);
-                it.remove();
+        synchronized (ringLock) {
+            placePendingEntries();
+
+            // Nothing on the tape: skip the repaint entirely
+            if (placed == 0) return;
+
+            scrollOffset += SCROLL_SPEED;
+
+            // Retire entries that have scrolled off the left edge
+            while (placed > 0 && starts[head] + widths[head] < scrollOffset) {
+                symbols[head] = null;
+                colors[head] = null;
+                types[head] = null;
+                head = (head + 1) % CAPACITY;
+                placed--;
+                count--;
             }
         }
         repaint();
     }
 
-    private int getRightmostX() {
-        int rightmost = 0;
-        for (JLabel label : tradeLabels) {
-            int rightEdge = label.getX() + label.getWidth();
-            if (rightEdge > rightmost) rightmost = rightEdge;
+    /**
+     * Assigns tape positions to newly received entries, queuing each behind the previous one
+     * but never before the right edge of the visible area.
+     */
+    private void placePendingEntries() {
+        if (placed == count) return;
+        ensureMetrics();
+
+        long visibleRight = scrollOffset + getWidth();
+        while (placed < count) {
+            int slot = (head + placed) % CAPACITY;
+            int length = formatEntry(slot);
+            widths[slot] = measure(length);
+
+            long start = placed == 0 ? visibleRight : Math.max(tapeEnd + LABEL_SPACING, visibleRight);
+            starts[slot] = start;
+            tapeEnd = start + widths[slot];
+            placed++;
         }
-        return rightmost == 0 ? getWidth() : rightmost;
     }
 
-    public void displayTrade(TradeItem trade) {
-        SwingUtilities.invokeLater(() -> {
-            String text = formatTradeText(trade);
-            Color color = tradeManager.getTradeColor(trade);
-            JLabel tradeLabel = createTradeLabel(text, color);
-
-            int spawnX = getRightmostX() + LABEL_SPACING;
-            int y = (getHeight() - tradeLabel.getPreferredSize().height) / 2;
-            tradeLabel.setLocation(spawnX, y);
-
-            add(tradeLabel);
-            tradeLabels.add(tradeLabel);
-            repaint();
-        });
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        ensureMetrics();
+
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setFont(TAPE_FONT);
+
+        int baseline = (getHeight() - metrics.getHeight()) / 2 + metrics.getAscent()
+                + (afterHours ? AFTER_HOURS_OFFSET / 2 : 0);
+        long visibleRight = scrollOffset + getWidth();
+
+        synchronized (ringLock) {
+            for (int k = 0; k < placed; k++) {
+                int slot = (head + k) % CAPACITY;
+                if (starts[slot] > visibleRight) break;  // Entries are ordered along the tape
+                if (starts[slot] + widths[slot] < scrollOffset) continue;
+
+                int length = formatEntry(slot);
+                g2.setColor(colors[slot]);
+                g2.drawChars(textBuffer, 0, length, (int) (starts[slot] - scrollOffset), baseline);
+            }
+        }
     }
 
-    private String formatTradeText(TradeItem trade) {
-        return switch (trade.type()) {
-            case HEADER -> trade.symbol();
-            case GAINER, LOSER -> String.format("%s $%.2f (%.1f%%)", trade.symbol(), trade.price(), trade.volume());
-            case ACTIVE -> String.format("%s %.1fM", trade.symbol(), trade.volume() / 1_000_000.0);
-            case REALTIME -> String.format("%s $%.2f %.0f", trade.symbol(), trade.price(), trade.volume());
-        };
+    /**
+     * Queues a trade for display. Safe to call from any thread; drops the trade if the
+     * ring is full (the tape is already several minutes behind at that point).
+     */
+    public void displayTrade(TradeItem trade) {
+        Color color = tradeManager.getTradeColor(trade);
+
+        synchronized (ringLock) {
+            if (count == CAPACITY) {
+                droppedTrades++;
+                return;
+            }
+            int slot = (head + count) % CAPACITY;
+            symbols[slot] = trade.symbol();
+            prices[slot] = trade.price();
+            volumes[slot] = trade.volume();
+            types[slot] = trade.type();
+            colors[slot] = color;
+            count++;
+        }
     }
 
-    private JLabel createTradeLabel(String text, Color color) {
-        JLabel label = new JLabel(text);
-        label.setFont(new Font("Monospaced", Font.PLAIN, 14));
-        if (!tradeManager.isMarketOpen()) {
-            label.setBorder(new EmptyBorder(12, 0, 0, 0));
+    /**
+     * Number of trades discarded because the tape could not keep up.
+     */
+    public long getDroppedTrades() {
+        synchronized (ringLock) {
+            return droppedTrades;
         }
-        label.setForeground(color);
-        label.setSize(label.getPreferredSize());
-        label.setVerticalAlignment(SwingConstants.CENTER);
-        return label;
     }
 
     public void setAfterHoursMode(boolean isAfterHours) {
+        afterHours = isAfterHours;
         SwingUtilities.invokeLater(() -> afterHoursBanner.setVisible(isAfterHours));
     }
+
+    // ---- Text formatting and measurement ----
+
+    /**
+     * Writes the display text for an entry into the shared buffer and returns its length.
+     * Mirrors the previous String.format patterns:
+     * HEADER "SYM", GAINER/LOSER "SYM $p.pp (c.c%)", ACTIVE "SYM v.vM", REALTIME "SYM $p.pp v".
+     */
+    private int formatEntry(int slot) {
+        char[] buf = textBuffer;
+        int pos = appendText(buf, 0, symbols[slot]);
+
+        switch (types[slot]) {
+            case HEADER -> {
+            }
+            case GAINER, LOSER -> {
+                pos = appendText(buf, pos, " $");
+                pos = appendFixed(buf, pos, prices[slot], 2);
+                pos = appendText(buf, pos, " (");
+                pos = appendFixed(buf, pos, volumes[slot], 1);
+                pos = appendText(buf, pos, "%)");
+            }
+            case ACTIVE -> {
+                pos = appendText(buf, pos, " ");
+                pos = appendFixed(buf, pos, volumes[slot] / 1_000_000.0, 1);
+                pos = appendText(buf, pos, "M");
+            }
+            case REALTIME -> {
+                pos = appendText(buf, pos, " $");
+                pos = appendFixed(buf, pos, prices[slot], 2);
+                pos = appendText(buf, pos, " ");
+                pos = appendFixed(buf, pos, volumes[slot], 0);
+            }
+        }
+        return pos;
+    }
+
+    private static int appendText(char[] buf, int pos, String text) {
+        int n = Math.min(text.length(), buf.length - pos);
+        text.getChars(0, n, buf, pos);
+        return pos + n;
+    }
+
+    /**
+     * Appends a value rounded half-up to a fixed number of decimals, without allocating.
+     */
+    private static int appendFixed(char[] buf, int pos, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e15) {
+            return appendText(buf, pos, String.valueOf(value));
+        }
+
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0 && pos < buf.length) buf[pos++] = '-';
+
+        long integer = scaled / scale;
+        long fraction = scaled % scale;
+
+        // Integer digits, written backwards then reversed in place
+        int start = pos;
+        do {
+            if (pos >= buf.length) return pos;
+            buf[pos++] = (char) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer > 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            char t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+
+        if (decimals > 0 && pos + decimals + 1 <= buf.length) {
+            buf[pos++] = '.';
+            for (int i = decimals - 1; i >= 0; i--) {
+                buf[pos + i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            pos += decimals;
+        }
+        return pos;
+    }
+
+    private void ensureMetrics() {
+        if (metrics != null) return;
+        metrics = getFontMetrics(TAPE_FONT);
+        for (char c = 0; c < asciiWidths.length; c++) {
+            asciiWidths[c] = metrics.charWidth(c);
+        }
+    }
+
+    private int measure(int length) {
+        int width = 0;
+        for (int i = 0; i < length; i++) {
+            char c = textBuffer[i];
+            width += c < asciiWidths.length ? asciiWidths[c] : metrics.charWidth(c);
+        }
+        return width;
+    }
 }
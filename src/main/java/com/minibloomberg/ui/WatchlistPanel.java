@@ -1,25 +1,45 @@
 package com.minibloomberg.ui;
 
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
 import java.util.function.Consumer;
 
 import javax.swing.BorderFactory;
-import javax.swing.BoxLayout;
+import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.table.TableCellRenderer;
 
+/**
+ * Watchlist of live tickers backed by a {@link JTable}. Rows are painted by a single
+ * custom renderer straight from the table model, so updating a ticker reformats two short
+ * strings and repaints one row, and only rows inside the scroll viewport are ever painted.
+ */
 public class WatchlistPanel extends JPanel {
-    private final JPanel listPanel;
-    private final Map<String, JLabel> tickerLabels = new ConcurrentHashMap<>();
+    private static final Font SYMBOL_FONT = new Font("SansSerif", Font.BOLD, 14);
+    private static final Font VALUE_FONT = new Font("SansSerif", Font.PLAIN, 14);
+    private static final int ROW_PADDING = 10;
+
+    private final WatchlistTableModel model = new WatchlistTableModel();
+    private final JTable table = new JTable(model);
     private final Consumer<String> onTickerSelected;
+    private int hoverRow = -1;
 
     public WatchlistPanel(Consumer<String> onTickerSelected) {
         this.onTickerSelected = onTickerSelected;
@@ -37,86 +57,148 @@ public class WatchlistPanel extends JPanel {
         title.setHorizontalAlignment(SwingConstants.CENTER);
         add(title, BorderLayout.NORTH);
 
-        listPanel = new JPanel();
-        listPanel.setLayout(new BoxLayout(listPanel, BoxLayout.Y_AXIS));
-        listPanel.setBackground(ColorPalette.EERIE_BLACK);
-        add(listPanel, BorderLayout.CENTER);
+        table.setTableHeader(null);
+        table.setShowGrid(false);
+        table.setIntercellSpacing(new Dimension(0, 0));
+        table.setRowSelectionAllowed(false);
+        table.setFocusable(false);
+        table.setFillsViewportHeight(true);
+        table.setBackground(ColorPalette.EERIE_BLACK);
+        table.setRowHeight(getFontMetrics(SYMBOL_FONT).getHeight() + 2 * ROW_PADDING);
+        table.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        table.setDefaultRenderer(Object.class, new TickerCellRenderer());
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHoverRow(table.rowAtPoint(e.getPoint()));
+            }
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHoverRow(-1);
+            }
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                if (row >= 0) onTickerSelected.accept(model.symbolAt(row));
+            }
+        };
+        table.addMouseListener(mouseHandler);
+        table.addMouseMotionListener(mouseHandler);
+
+        JScrollPane scrollPane = new JScrollPane(table,
+                ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getViewport().setBackground(ColorPalette.EERIE_BLACK);
+        add(scrollPane, BorderLayout.CENTER);
     }
 
     /**
      * Updates the displayed price and change for a ticker. Adds it if not already present.
      */
     public void updateTicker(String ticker, double price, double changePercent) {
+        SwingUtilities.invokeLater(() -> model.update(ticker, price, changePercent));
+    }
+
+    /**
+     * Applies a batch of ticker updates in a single EDT task.
+     */
+    public void updateTickers(List<TickerUpdate> updates) {
         SwingUtilities.invokeLater(() -> {
-            JLabel label = tickerLabels.get(ticker);
-            if (label == null) {
-                label = createTickerLabel(ticker, price, changePercent);
-                tickerLabels.put(ticker, label);
-                listPanel.add(label);
-                revalidate();
-            } else {
-                label.setText(formatTicker(ticker, price, changePercent));
+            for (TickerUpdate update : updates) {
+                model.update(update.symbol(), update.price(), update.changePercent());
             }
         });
     }
 
     /**
-     * Creates a styled label for a ticker with hover effects and click handling.
+     * Removes a ticker from the watchlist display.
      */
-    private JLabel createTickerLabel(String ticker, double price, double changePercent) {
-        JLabel label = new JLabel(formatTicker(ticker, price, changePercent));
-        label.setOpaque(true);
-        label.setBackground(ColorPalette.EERIE_BLACK);
-        label.setForeground(ColorPalette.ANTI_FLASH_WHITE);
-        label.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        label.setFont(new Font("SansSerif", Font.PLAIN, 14));
-        label.setAlignmentX(Component.LEFT_ALIGNMENT);
-        label.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-
-        label.addMouseListener(new java.awt.event.MouseAdapter() {
-            @Override
-            public void mouseEntered(java.awt.event.MouseEvent evt) {
-                label.setBackground(ColorPalette.JET);
-            }
-            @Override
-            public void mouseExited(java.awt.event.MouseEvent evt) {
-                label.setBackground(ColorPalette.EERIE_BLACK);
-            }
-            @Override
-            public void mouseClicked(java.awt.event.MouseEvent evt) {
-                onTickerSelected.accept(ticker);
-            }
+    public void removeTicker(String ticker) {
+        SwingUtilities.invokeLater(() -> {
+            model.remove(ticker);
+            if (hoverRow >= model.getRowCount()) hoverRow = -1;
         });
+    }
+
+    private void setHoverRow(int row) {
+        if (row == hoverRow) return;
+        int previous = hoverRow;
+        hoverRow = row;
+        repaintRow(previous);
+        repaintRow(row);
+    }
 
-        return label;
+    private void repaintRow(int row) {
+        if (row >= 0 && row < model.getRowCount()) {
+            table.repaint(table.getCellRect(row, 0, true));
+        }
     }
 
     /**
-     * Formats the ticker label with HTML for color and arrow indicators.
+     * Latest price state for one ticker in a batched watchlist update.
      */
-    private String formatTicker(String ticker, double price, double changePercent) {
-        String arrow = changePercent > 0 ? "▲" : changePercent < 0 ? "▼" : "";
-        String color = changePercent > 0 ? ColorPalette.HEX_GREEN
-                      : changePercent < 0 ? ColorPalette.HEX_RED
-                      : ColorPalette.HEX_WHITE;
-
-        return String.format(
-            "<html><b style='color:%s;'>%s</b> $%.2f <font color='%s'>%s%.2f%%</font></html>",
-            ColorPalette.HEX_WHITE, ticker, price, color, arrow, Math.abs(changePercent)
-        );
+    public record TickerUpdate(String symbol, double price, double changePercent) {
     }
 
     /**
-     * Removes a ticker from the watchlist display.
+     * Paints a row as "SYMBOL $price ▲change%" with plain drawString calls.
+     * One instance is reused for every row.
      */
-    public void removeTicker(String ticker) {
-        SwingUtilities.invokeLater(() -> {
-            JLabel label = tickerLabels.remove(ticker);
-            if (label != null) {
-                listPanel.remove(label);
-                listPanel.revalidate();
-                listPanel.repaint();
-            }
-        });
+    private class TickerCellRenderer extends JComponent implements TableCellRenderer {
+        private int row;
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            this.row = row;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            g2.setColor(row == hoverRow ? ColorPalette.JET : ColorPalette.EERIE_BLACK);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+
+            FontMetrics symbolMetrics = g2.getFontMetrics(SYMBOL_FONT);
+            FontMetrics valueMetrics = g2.getFontMetrics(VALUE_FONT);
+            int baseline = (getHeight() - symbolMetrics.getHeight()) / 2 + symbolMetrics.getAscent();
+            int x = ROW_PADDING;
+
+            String symbol = model.symbolAt(row);
+            g2.setFont(SYMBOL_FONT);
+            g2.setColor(ColorPalette.ANTI_FLASH_WHITE);
+            g2.drawString(symbol, x, baseline);
+            x += symbolMetrics.stringWidth(symbol) + valueMetrics.charWidth(' ');
+
+            String price = model.priceTextAt(row);
+            g2.setFont(VALUE_FONT);
+            g2.drawString(price, x, baseline);
+            x += valueMetrics.stringWidth(price) + valueMetrics.charWidth(' ');
+
+            double change = model.changeAt(row);
+            Color changeColor = change > 0 ? ColorPalette.GREEN
+                    : change < 0 ? ColorPalette.RED
+                    : ColorPalette.ANTI_FLASH_WHITE;
+            g2.setColor(changeColor);
+            g2.drawString(model.changeTextAt(row), x, baseline);
+        }
+
+        // The table repaints rows itself; skip the invalidation work JComponent would do
+        @Override
+        public void invalidate() {
+        }
+
+        @Override
+        public void validate() {
+        }
+
+        @Override
+        public void revalidate() {
+        }
     }
 }
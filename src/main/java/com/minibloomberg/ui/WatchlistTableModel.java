@@ -0,0 +1,129 @@
+package com.minibloomberg.ui;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Single-column table model behind the watchlist. Row state lives in parallel primitive
+ * columns; the display strings for price and change are formatted once when a row's values
+ * change, so painting a row is just a few drawString calls.
+ *
+ * Must only be used on the EDT.
+ */
+class WatchlistTableModel extends AbstractTableModel {
+
+    private String[] symbols = new String[16];
+    private double[] prices = new double[16];
+    private double[] changes = new double[16];
+    private String[] priceTexts = new String[16];
+    private String[] changeTexts = new String[16];
+    private int size;
+
+    private final Map<String, Integer> rowsBySymbol = new HashMap<>();
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return 1;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return "Ticker";
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return symbols[row];
+    }
+
+    /**
+     * Sets the price and change of a ticker, appending a row if it is new.
+     * Fires an update only for the affected row, and nothing if the values are unchanged.
+     */
+    void update(String symbol, double price, double changePercent) {
+        Integer existing = rowsBySymbol.get(symbol);
+        if (existing == null) {
+            int row = size;
+            ensureCapacity(row + 1);
+            symbols[row] = symbol;
+            setValues(row, price, changePercent);
+            rowsBySymbol.put(symbol, row);
+            size++;
+            fireTableRowsInserted(row, row);
+            return;
+        }
+
+        int row = existing;
+        if (prices[row] == price && changes[row] == changePercent) return;
+        setValues(row, price, changePercent);
+        fireTableRowsUpdated(row, row);
+    }
+
+    /**
+     * Removes a ticker's row, shifting the rows below it up.
+     */
+    void remove(String symbol) {
+        Integer removed = rowsBySymbol.remove(symbol);
+        if (removed == null) return;
+
+        int row = removed;
+        int tail = size - row - 1;
+        System.arraycopy(symbols, row + 1, symbols, row, tail);
+        System.arraycopy(prices, row + 1, prices, row, tail);
+        System.arraycopy(changes, row + 1, changes, row, tail);
+        System.arraycopy(priceTexts, row + 1, priceTexts, row, tail);
+        System.arraycopy(changeTexts, row + 1, changeTexts, row, tail);
+        size--;
+        symbols[size] = null;
+        priceTexts[size] = null;
+        changeTexts[size] = null;
+
+        for (int i = row; i < size; i++) {
+            rowsBySymbol.put(symbols[i], i);
+        }
+        fireTableRowsDeleted(row, row);
+    }
+
+    String symbolAt(int row) {
+        return symbols[row];
+    }
+
+    double changeAt(int row) {
+        return changes[row];
+    }
+
+    String priceTextAt(int row) {
+        return priceTexts[row];
+    }
+
+    String changeTextAt(int row) {
+        return changeTexts[row];
+    }
+
+    private void setValues(int row, double price, double changePercent) {
+        prices[row] = price;
+        changes[row] = changePercent;
+
+        String arrow = changePercent > 0 ? "▲" : changePercent < 0 ? "▼" : "";
+        priceTexts[row] = String.format("$%.2f", price);
+        changeTexts[row] = String.format("%s%.2f%%", arrow, Math.abs(changePercent));
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= symbols.length) return;
+        int capacity = Math.max(required, symbols.length * 2);
+        symbols = Arrays.copyOf(symbols, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        changes = Arrays.copyOf(changes, capacity);
+        priceTexts = Arrays.copyOf(priceTexts, capacity);
+        changeTexts = Arrays.copyOf(changeTexts, capacity);
+    }
+}
@@ -0,0 +1,176 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.minibloomberg.data.HistoricalData;
+import com.minibloomberg.logic.BarAggregator.Resolution;
+
+public class BarAggregatorTest {
+
+    private static final String SYMBOL = "AAPL";
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private BarAggregator aggregator;
+
+    @Before
+    public void track() {
+        // Never connected: subscriptions are recorded but nothing is sent
+        aggregator = new BarAggregator(new MarketDataSession());
+        aggregator.track(SYMBOL);
+    }
+
+    /**
+     * Epoch millis of a New York wall-clock time.
+     */
+    private static long at(int day, int hour, int minute, int second) {
+        return LocalDateTime.of(2024, 3, day, hour, minute, second).atZone(NEW_YORK).toInstant().toEpochMilli();
+    }
+
+    private void trade(double price, double volume, long timestamp) {
+        aggregator.onTrade(SYMBOL, price, volume, timestamp);
+    }
+
+    private HistoricalData minutes() {
+        return aggregator.sessionBars(SYMBOL, Resolution.MINUTE_1);
+    }
+
+    @Test
+    public void barsRollWhenExchangeTimeCrossesTheBoundary() {
+        trade(10, 100, at(12, 9, 30, 5));
+        trade(12, 50, at(12, 9, 30, 40));
+        trade(9, 10, at(12, 9, 30, 59));
+        trade(11, 20, at(12, 9, 31, 0));
+
+        HistoricalData bars = minutes();
+        assertEquals(2, bars.size());
+        assertEquals(at(12, 9, 30, 0) / 1000, bars.timestamp(0));
+        assertEquals(10, bars.open(0), 0);
+        assertEquals(12, bars.high(0), 0);
+        assertEquals(9, bars.low(0), 0);
+        assertEquals(9, bars.close(0), 0);
+        assertEquals(160, bars.volume(0), 0);
+        assertEquals(at(12, 9, 31, 0) / 1000, bars.timestamp(1));
+        assertEquals(11, bars.close(1), 0);
+
+        assertEquals(1, aggregator.sessionBars(SYMBOL, Resolution.MINUTE_5).size());
+        assertEquals(4, aggregator.sessionBars(SYMBOL, Resolution.SECOND_1).size());
+    }
+
+    @Test
+    public void minutesWithoutTradesHaveNoBar() {
+        trade(10, 1, at(12, 9, 30, 0));
+        trade(11, 1, at(12, 9, 45, 0));
+
+        HistoricalData bars = minutes();
+        assertEquals(2, bars.size());
+        assertEquals(15 * 60, bars.timestamp(1) - bars.timestamp(0));
+    }
+
+    @Test
+    public void closeFollowsExchangeTimeNotArrivalOrder() {
+        trade(10, 1, at(12, 9, 30, 50));
+        trade(20, 1, at(12, 9, 30, 10));   // Arrives last but traded earlier
+
+        HistoricalData bars = minutes();
+        assertEquals(1, bars.size());
+        assertEquals(10, bars.close(0), 0);
+        assertEquals(20, bars.high(0), 0);
+        assertEquals(2, bars.volume(0), 0);
+    }
+
+    @Test
+    public void lateTradesJoinTheirOwnBar() {
+        trade(10, 1, at(12, 9, 30, 0));
+        trade(11, 1, at(12, 9, 31, 0));
+        trade(12, 1, at(12, 9, 32, 0));
+        trade(5, 7, at(12, 9, 30, 30));    // Late for the 09:30 bar
+
+        HistoricalData bars = minutes();
+        assertEquals(3, bars.size());
+        assertEquals(5, bars.low(0), 0);
+        assertEquals(5, bars.close(0), 0);
+        assertEquals(8, bars.volume(0), 0);
+        assertEquals(12, bars.close(2), 0);
+        assertEquals(1, bars.volume(2), 0);
+    }
+
+    @Test
+    public void lateTradesInAGapAreDropped() {
+        trade(10, 1, at(12, 9, 30, 0));
+        trade(12, 1, at(12, 9, 35, 0));
+        trade(99, 1, at(12, 9, 32, 0));    // No 09:32 bar to join
+
+        HistoricalData bars = minutes();
+        assertEquals(2, bars.size());
+        assertEquals(10, bars.high(0), 0);
+        assertEquals(12, bars.high(1), 0);
+    }
+
+    @Test
+    public void ringKeepsTheNewestBarsOnceFull() {
+        int capacity = Resolution.SECOND_1.capacity;
+        long start = at(12, 10, 0, 0);
+        for (int i = 0; i < capacity + 100; i++) {
+            trade(100 + i, 1, start + i * 1_000L);
+        }
+
+        HistoricalData bars = aggregator.sessionBars(SYMBOL, Resolution.SECOND_1);
+        assertEquals(capacity, bars.size());
+        assertEquals((start + 100 * 1_000L) / 1000, bars.timestamp(0));
+        assertEquals(100 + capacity + 99, bars.close(capacity - 1), 0);
+        for (int i = 1; i < bars.size(); i++) {
+            assertEquals(1, bars.timestamp(i) - bars.timestamp(i - 1));
+        }
+
+        // A trade older than the ring's oldest bar has nowhere to go
+        trade(1, 1, start);
+        assertEquals(200, aggregator.sessionBars(SYMBOL, Resolution.SECOND_1).low(0), 0);
+    }
+
+    @Test
+    public void sessionStartsAtNewYorkMidnight() {
+        trade(10, 1, at(12, 18, 0, 0));
+        trade(11, 1, at(12, 20, 30, 0));   // 00:30 UTC on the 13th, still the 12th in New York
+        assertEquals(2, minutes().size());
+
+        trade(12, 1, at(13, 0, 1, 0));
+        HistoricalData bars = minutes();
+        assertEquals(1, bars.size());
+        assertEquals(at(13, 0, 1, 0) / 1000, bars.timestamp(0));
+    }
+
+    @Test
+    public void sessionBoundaryFollowsDaylightSavingTime() {
+        // Clocks went forward on 2024-03-10, so that New York day was 23 hours long
+        trade(10, 1, at(9, 23, 59, 0));
+        trade(11, 1, at(10, 0, 0, 0));
+        trade(12, 1, at(10, 23, 59, 0));
+
+        HistoricalData bars = minutes();
+        assertEquals(2, bars.size());
+        assertEquals(11, bars.open(0), 0);
+    }
+
+    @Test
+    public void untrackingTheLastReferenceDiscardsBars() {
+        aggregator.track(SYMBOL);
+        trade(10, 1, at(12, 9, 30, 0));
+
+        aggregator.untrack(SYMBOL);
+        assertTrue(aggregator.isTracked(SYMBOL));
+        assertEquals(1, minutes().size());
+
+        aggregator.untrack(SYMBOL);
+        assertTrue(!aggregator.isTracked(SYMBOL));
+        assertTrue(minutes().isEmpty());
+        trade(11, 1, at(12, 9, 31, 0));
+        assertTrue(minutes().isEmpty());
+    }
+}
@@ -0,0 +1,214 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.minibloomberg.data.HistoricalData;
+
+public class HistoryStoreTest {
+
+    private static final long DAY = 86_400;
+    private static final long START = 1_700_006_400L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private HistoryStore store;
+
+    @Before
+    public void createStore() {
+        directory = folder.getRoot().toPath();
+        store = new HistoryStore(directory);
+    }
+
+    /**
+     * Bars on the given day offsets; every value is derived from the day and a tag so rows can be told apart.
+     */
+    private static HistoricalData bars(int tag, int... days) {
+        int n = days.length;
+        long[] timestamps = new long[n];
+        double[] open = new double[n], high = new double[n], low = new double[n];
+        double[] close = new double[n], adjClose = new double[n], volume = new double[n];
+        for (int i = 0; i < n; i++) {
+            timestamps[i] = START + days[i] * DAY;
+            open[i] = days[i] + tag;
+            high[i] = open[i] + 2;
+            low[i] = open[i] - 1;
+            close[i] = open[i] + 1;
+            adjClose[i] = close[i] / 2;
+            volume[i] = 1_000 * (days[i] + 1) + tag;
+        }
+        return new HistoricalData(timestamps, open, high, low, close, adjClose, volume);
+    }
+
+    private static void assertBars(HistoricalData expected, HistoricalData actual) {
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.timestamp(i), actual.timestamp(i));
+            assertEquals(expected.open(i), actual.open(i), 0);
+            assertEquals(expected.high(i), actual.high(i), 0);
+            assertEquals(expected.low(i), actual.low(i), 0);
+            assertEquals(expected.close(i), actual.close(i), 0);
+            assertEquals(expected.adjClose(i), actual.adjClose(i), 0);
+            assertEquals(expected.volume(i), actual.volume(i), 0);
+        }
+    }
+
+    private Path file(String symbol) {
+        return directory.resolve(symbol + ".bin");
+    }
+
+    private void writeHeaderInt(String symbol, int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(symbol), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+            buffer.flip();
+            channel.write(buffer, offset);
+        }
+    }
+
+    private long tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+
+    @Test
+    public void savedSeriesLoadsBackUnchanged() {
+        HistoricalData data = bars(0, 0, 1, 2, 5, 6);
+        store.save("AAPL", data);
+
+        assertTrue(store.contains("AAPL"));
+        assertBars(data, store.load("AAPL"));
+        assertBars(data, store.load("aapl"));
+    }
+
+    @Test
+    public void emptySeriesRoundTrips() {
+        store.save("EMPTY", bars(0));
+        HistoricalData loaded = store.load("EMPTY");
+        assertNotNull(loaded);
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void missingSymbolLoadsAsNull() {
+        assertFalse(store.contains("NONE"));
+        assertNull(store.load("NONE"));
+    }
+
+    @Test
+    public void saveReplacesTheWholeFile() {
+        store.save("MSFT", bars(0, 0, 1, 2, 3));
+        HistoricalData replacement = bars(7, 4, 5);
+        store.save("MSFT", replacement);
+
+        assertBars(replacement, store.load("MSFT"));
+    }
+
+    @Test
+    public void appendAddsOnlyNewerBars() {
+        store.save("IBM", bars(0, 0, 1, 2));
+
+        assertEquals(2, store.append("IBM", bars(9, 1, 2, 3, 4)));
+        assertBars(bars(0, 0, 1, 2).range(0, 3), store.load("IBM").range(0, 3));
+        assertBars(bars(9, 3, 4), store.load("IBM").range(3, 5));
+
+        assertEquals(0, store.append("IBM", bars(9, 2, 4)));
+        assertEquals(5, store.load("IBM").size());
+    }
+
+    @Test
+    public void appendWithoutAFileSavesTheSeries() {
+        HistoricalData data = bars(0, 0, 1);
+        assertEquals(2, store.append("NEW", data));
+        assertBars(data, store.load("NEW"));
+    }
+
+    @Test
+    public void compactSortsAndKeepsTheLaterDuplicate() {
+        store.save("TSLA", new HistoricalData(
+                new long[]{START + 2 * DAY, START, START + DAY, START},
+                new double[]{3, 1, 2, 10}, new double[]{3, 1, 2, 10}, new double[]{3, 1, 2, 10},
+                new double[]{3, 1, 2, 10}, new double[]{3, 1, 2, 10}, new double[]{30, 10, 20, 100}));
+
+        store.compact("TSLA");
+        HistoricalData compacted = store.load("TSLA");
+
+        assertEquals(3, compacted.size());
+        assertEquals(START, compacted.timestamp(0));
+        assertEquals(10, compacted.close(0), 0);
+        assertEquals(100, compacted.volume(0), 0);
+        assertEquals(2, compacted.close(1), 0);
+        assertEquals(3, compacted.close(2), 0);
+    }
+
+    @Test
+    public void compactDropsATrailingPartialRow() throws IOException {
+        store.save("NVDA", bars(0, 0, 1, 2));
+        try (FileChannel channel = FileChannel.open(file("NVDA"), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+        assertEquals(2, store.load("NVDA").size());
+
+        store.compact("NVDA");
+        assertBars(bars(0, 0, 1), store.load("NVDA"));
+        assertEquals(16 + 2 * 56, Files.size(file("NVDA")));
+    }
+
+    @Test
+    public void unsupportedFormatLoadsAsNull() throws IOException {
+        store.save("AMD", bars(0, 0, 1));
+        writeHeaderInt("AMD", 4, 99);          // Format version
+        assertNull(store.load("AMD"));
+    }
+
+    @Test
+    public void negativeRowCountLoadsAsNull() throws IOException {
+        store.save("INTC", bars(0, 0, 1));
+        writeHeaderInt("INTC", 8, -1);
+        assertNull(store.load("INTC"));
+    }
+
+    @Test
+    public void truncatedHeaderLoadsAsNull() throws IOException {
+        Files.write(file("ORCL"), new byte[8]);
+        assertNull(store.load("ORCL"));
+    }
+
+    @Test
+    public void failedSaveLeavesNoTempFile() throws IOException {
+        // A non-empty directory where the file should go makes the final move fail
+        Files.createDirectories(file("META"));
+        Files.write(file("META").resolve("blocker"), new byte[1]);
+
+        store.save("META", bars(0, 0, 1));
+        assertEquals(0, tempFiles());
+        assertNull(store.load("META"));
+    }
+
+    @Test
+    public void deleteRemovesTheFile() {
+        store.save("GOOG", bars(0, 0));
+        store.delete("GOOG");
+        assertFalse(store.contains("GOOG"));
+    }
+}
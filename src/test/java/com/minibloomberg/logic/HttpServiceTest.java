@@ -0,0 +1,131 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpServiceTest {
+
+    private static final Duration BODY_TIMEOUT = Duration.ofMillis(300);
+
+    private HttpServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    private String serve(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (Exception e) {
+                // The client hung up; nothing left to send
+            } finally {
+                exchange.close();
+            }
+        });
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static InputStream open(String url) throws IOException {
+        return HttpService.await(HttpService.getStream(url, BODY_TIMEOUT));
+    }
+
+    @Test
+    public void bodyIsStreamedAndDecompressed() throws IOException {
+        byte[] text = "{\"Meta Data\":{}}".repeat(1_000).getBytes(StandardCharsets.UTF_8);
+        String url = serve("/gzip", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(text);
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            exchange.getResponseBody().write(compressed.toByteArray());
+        });
+
+        try (InputStream in = open(url)) {
+            assertArrayEquals(text, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void slowButSteadyBodyIsNotCutOff() throws IOException {
+        // Takes well over the body timeout in total, but bytes keep arriving
+        String url = serve("/slow", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            for (int i = 0; i < 10; i++) {
+                out.write(new byte[10]);
+                out.flush();
+                Thread.sleep(100);
+            }
+        });
+
+        try (InputStream in = open(url)) {
+            assertEquals(100, in.readAllBytes().length);
+        }
+    }
+
+    @Test
+    public void stalledBodyFailsTheRead() throws IOException {
+        String url = serve("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write(new byte[100]);
+            out.flush();
+            Thread.sleep(30_000);
+        });
+
+        long start = System.nanoTime();
+        try (InputStream in = open(url)) {
+            in.readAllBytes();
+            fail("read past a stalled body");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("No response data for 300 ms"));
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void errorStatusFailsTheFuture() {
+        String url = serve("/missing", exchange -> exchange.sendResponseHeaders(404, -1));
+        try {
+            open(url).close();
+            fail("404 was returned as a body");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("HTTP 404"));
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.minibloomberg.data.HistoricalData;
+import com.minibloomberg.logic.IndicatorEngine.Output;
+
+public class IndicatorEngineTest {
+
+    private static final int BARS = 300;
+    private static final double TOLERANCE = 1e-7;
+    private static final long DAY = 86_400;
+
+    /**
+     * Random walk of daily bars; adjusted closes differ from closes so the split factor matters.
+     */
+    private static HistoricalData series(int n, long seed) {
+        Random random = new Random(seed);
+        long[] timestamps = new long[n];
+        double[] open = new double[n], high = new double[n], low = new double[n];
+        double[] close = new double[n], adjClose = new double[n], volume = new double[n];
+        double price = 100;
+        for (int i = 0; i < n; i++) {
+            double next = Math.max(1, price + random.nextGaussian() * 2);
+            timestamps[i] = 1_700_000_000L + i * DAY;
+            open[i] = price;
+            close[i] = next;
+            high[i] = Math.max(price, next) + random.nextDouble();
+            low[i] = Math.min(price, next) - random.nextDouble();
+            adjClose[i] = next * (i < n / 2 ? 0.5 : 1);
+            volume[i] = 1_000 + random.nextInt(10_000);
+            price = next;
+        }
+        return new HistoricalData(timestamps, open, high, low, close, adjClose, volume);
+    }
+
+    private static IndicatorEngine loaded(HistoricalData data) {
+        IndicatorEngine engine = new IndicatorEngine(false);
+        engine.load(data);
+        return engine;
+    }
+
+    private static void assertColumn(Output output, double[] expected, IndicatorEngine engine, double delta) {
+        assertEquals(expected.length, engine.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(output + " at bar " + i, expected[i], engine.value(output, i), delta);
+        }
+    }
+
+    private static double[] closes(HistoricalData data) {
+        double[] closes = new double[data.size()];
+        for (int i = 0; i < closes.length; i++) closes[i] = data.adjClose(i);
+        return closes;
+    }
+
+    private static double[] sma(double[] x, int period) {
+        double[] out = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            if (i < period - 1) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            double sum = 0;
+            for (int j = i - period + 1; j <= i; j++) sum += x[j];
+            out[i] = sum / period;
+        }
+        return out;
+    }
+
+    /**
+     * EMA seeded with the simple average of the first period values that are not NaN.
+     */
+    private static double[] ema(double[] x, int period) {
+        double[] out = new double[x.length];
+        double alpha = 2.0 / (period + 1);
+        int start = 0;
+        while (start < x.length && Double.isNaN(x[start])) start++;
+        for (int i = 0; i < x.length; i++) {
+            int seen = i - start + 1;
+            if (seen < period) {
+                out[i] = Double.NaN;
+            } else if (seen == period) {
+                double sum = 0;
+                for (int j = start; j <= i; j++) sum += x[j];
+                out[i] = sum / period;
+            } else {
+                out[i] = out[i - 1] + alpha * (x[i] - out[i - 1]);
+            }
+        }
+        return out;
+    }
+
+    private static double[] rsi(double[] x, int period) {
+        double[] out = new double[x.length];
+        double gain = 0, loss = 0;
+        for (int i = 0; i < x.length; i++) {
+            out[i] = Double.NaN;
+            if (i < period) continue;
+            if (i == period) {
+                gain = loss = 0;
+                for (int j = 1; j <= period; j++) {
+                    gain += Math.max(0, x[j] - x[j - 1]);
+                    loss += Math.max(0, x[j - 1] - x[j]);
+                }
+                gain /= period;
+                loss /= period;
+            } else {
+                gain = (gain * (period - 1) + Math.max(0, x[i] - x[i - 1])) / period;
+                loss = (loss * (period - 1) + Math.max(0, x[i - 1] - x[i])) / period;
+            }
+            out[i] = loss == 0 ? (gain == 0 ? 50 : 100) : 100 - 100 / (1 + gain / loss);
+        }
+        return out;
+    }
+
+    @Test
+    public void movingAveragesMatchTheirDefinitions() {
+        HistoricalData data = series(BARS, 1);
+        IndicatorEngine engine = loaded(data);
+        double[] closes = closes(data);
+
+        assertColumn(Output.SMA, sma(closes, IndicatorEngine.SMA_PERIOD), engine, TOLERANCE);
+        assertColumn(Output.EMA, ema(closes, IndicatorEngine.EMA_PERIOD), engine, TOLERANCE);
+        assertTrue(Double.isNaN(engine.value(Output.SMA, IndicatorEngine.SMA_PERIOD - 2)));
+        assertTrue(!Double.isNaN(engine.value(Output.SMA, IndicatorEngine.SMA_PERIOD - 1)));
+    }
+
+    @Test
+    public void rsiMatchesWildersDefinition() {
+        HistoricalData data = series(BARS, 2);
+        double[] expected = rsi(closes(data), IndicatorEngine.RSI_PERIOD);
+
+        assertColumn(Output.RSI, expected, loaded(data), TOLERANCE);
+        assertTrue(Double.isNaN(expected[IndicatorEngine.RSI_PERIOD - 1]));
+    }
+
+    @Test
+    public void macdMatchesItsDefinition() {
+        HistoricalData data = series(BARS, 3);
+        double[] closes = closes(data);
+        double[] fast = ema(closes, IndicatorEngine.MACD_FAST);
+        double[] slow = ema(closes, IndicatorEngine.MACD_SLOW);
+        double[] macd = new double[BARS];
+        for (int i = 0; i < BARS; i++) macd[i] = fast[i] - slow[i];
+        double[] signal = ema(macd, IndicatorEngine.MACD_SIGNAL);
+        double[] histogram = new double[BARS];
+        for (int i = 0; i < BARS; i++) histogram[i] = macd[i] - signal[i];
+
+        IndicatorEngine engine = loaded(data);
+        assertColumn(Output.MACD, macd, engine, TOLERANCE);
+        assertColumn(Output.MACD_SIGNAL, signal, engine, TOLERANCE);
+        assertColumn(Output.MACD_HISTOGRAM, histogram, engine, TOLERANCE);
+    }
+
+    @Test
+    public void bollingerBandsMatchTheirDefinition() {
+        HistoricalData data = series(BARS, 4);
+        double[] closes = closes(data);
+        int period = IndicatorEngine.BOLLINGER_PERIOD;
+        double[] middle = sma(closes, period);
+        double[] upper = new double[BARS], lower = new double[BARS];
+        for (int i = 0; i < BARS; i++) {
+            if (i < period - 1) {
+                upper[i] = lower[i] = Double.NaN;
+                continue;
+            }
+            double squares = 0;
+            for (int j = i - period + 1; j <= i; j++) squares += (closes[j] - middle[i]) * (closes[j] - middle[i]);
+            double band = IndicatorEngine.BOLLINGER_WIDTH * Math.sqrt(squares / period);
+            upper[i] = middle[i] + band;
+            lower[i] = middle[i] - band;
+        }
+
+        IndicatorEngine engine = loaded(data);
+        assertColumn(Output.BOLLINGER_MIDDLE, middle, engine, TOLERANCE);
+        assertColumn(Output.BOLLINGER_UPPER, upper, engine, TOLERANCE);
+        assertColumn(Output.BOLLINGER_LOWER, lower, engine, TOLERANCE);
+    }
+
+    @Test
+    public void vwapUsesSplitAdjustedTypicalPrices() {
+        HistoricalData data = series(BARS, 5);
+        double[] expected = new double[BARS];
+        double priceVolume = 0, volume = 0;
+        for (int i = 0; i < BARS; i++) {
+            double factor = data.adjClose(i) / data.close(i);
+            double typical = (data.high(i) * factor + data.low(i) * factor + data.adjClose(i)) / 3;
+            priceVolume += typical * data.volume(i);
+            volume += data.volume(i);
+            expected[i] = priceVolume / volume;
+        }
+
+        assertColumn(Output.VWAP, expected, loaded(data), TOLERANCE);
+    }
+
+    @Test
+    public void sessionVwapRestartsEachNewYorkDay() {
+        // 15:59 and 16:00 New York time on one day, then 09:30 the next (EST, UTC-5)
+        long close = 1_705_006_740L;   // 2024-01-11 20:59 UTC
+        long[] timestamps = {close, close + 60, close + 60 + 17 * 3_600 + 29 * 60};
+        double[] prices = {10, 20, 30};
+        double[] volume = {1, 1, 1};
+        HistoricalData data = new HistoricalData(timestamps, prices, prices, prices, prices, prices, volume);
+
+        IndicatorEngine engine = new IndicatorEngine(true);
+        engine.load(data);
+
+        assertEquals(15, engine.value(Output.VWAP, 1), 0);
+        assertEquals(30, engine.value(Output.VWAP, 2), 0);
+    }
+
+    @Test
+    public void formingThenAppendedBarsMatchABulkLoad() {
+        HistoricalData data = series(BARS, 6);
+        Random ticks = new Random(7);
+        IndicatorEngine incremental = new IndicatorEngine(false);
+
+        for (int i = 0; i < BARS; i++) {
+            double factor = data.adjClose(i) / data.close(i);
+            long timestamp = data.timestamp(i);
+            double high = data.high(i) * factor, low = data.low(i) * factor;
+            double close = data.adjClose(i), volume = data.volume(i);
+
+            // Intermediate ticks move the bar around before it settles on its final values
+            for (int t = 0; t < 5; t++) {
+                double price = low + ticks.nextDouble() * (high - low);
+                incremental.updateForming(timestamp, Math.max(price, close), Math.min(price, close), price, volume * t / 5);
+                assertEquals(i + 1, incremental.size());
+            }
+            incremental.updateForming(timestamp, high, low, close, volume);
+            incremental.append(timestamp, high, low, close, volume);
+        }
+
+        assertSameColumns(loaded(data), incremental);
+    }
+
+    @Test
+    public void syncMatchesABulkLoad() {
+        HistoricalData data = series(BARS, 8);
+        IndicatorEngine live = new IndicatorEngine(false);
+        for (int n = 1; n < BARS; n += 7) {
+            live.sync(data.range(0, n));
+            live.sync(data.range(0, n));   // Same bars again: only the forming bar is recomputed
+        }
+        live.sync(data);
+
+        assertSameColumns(loaded(data), live);
+    }
+
+    private static void assertSameColumns(IndicatorEngine expected, IndicatorEngine actual) {
+        for (Output output : Output.values()) {
+            double[] column = new double[expected.size()];
+            for (int i = 0; i < column.length; i++) column[i] = expected.value(output, i);
+            assertColumn(output, column, actual, 0);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.minibloomberg.data.Stock;
+import com.minibloomberg.logic.LivePriceManager.TradeData;
+import com.minibloomberg.ui.WatchlistPanel;
+
+public class LivePriceManagerTest {
+
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 12);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static long at(LocalDate day, int hour, int minute) {
+        return LocalDateTime.of(day, LocalTime.of(hour, minute)).atZone(NEW_YORK).toInstant().toEpochMilli();
+    }
+
+    private static TradeData addedAt(long now) {
+        // Snapshot: last 100, previous close 95, range 94-101
+        return new TradeData("Apple Inc", 100, 5.263, 95, 101, 94, now);
+    }
+
+    @Test
+    public void tradesDuringTheSessionExtendTheSnapshot() {
+        TradeData trade = addedAt(at(DAY, 11, 0));
+        trade.apply(102, at(DAY, 11, 5));
+        trade.apply(99, at(DAY, 11, 6));
+
+        assertEquals(99, trade.price(), 0);
+        assertEquals((99 - 95) / 95.0 * 100, trade.changePercent(), 1e-9);
+        assertEquals(102, trade.dayHigh, 0);
+        assertEquals(94, trade.dayLow, 0);
+    }
+
+    @Test
+    public void snapshotTakenBeforeTheOpenRollsOverOnTheFirstTrade() {
+        // At 8:00 the snapshot still describes yesterday, so its price is the base for today
+        TradeData trade = addedAt(at(DAY, 8, 0));
+        trade.apply(98, at(DAY, 8, 1));
+
+        assertEquals(100, trade.basePrice, 0);
+        assertEquals(-2, trade.changePercent(), 1e-9);
+        assertEquals(98, trade.dayHigh, 0);
+        assertEquals(98, trade.dayLow, 0);
+    }
+
+    @Test
+    public void firstTradeOfTheNextDayRollsOverOntoTheRegularClose() {
+        TradeData trade = addedAt(at(DAY, 11, 0));
+        trade.apply(110, at(DAY, 15, 59));
+        trade.apply(111, at(DAY, 17, 30));     // After hours: moves the price, not the close
+        trade.apply(108, at(DAY.plusDays(1), 4, 0));
+
+        assertEquals(110, trade.basePrice, 0);
+        assertEquals((108 - 110) / 110.0 * 100, trade.changePercent(), 1e-9);
+        assertEquals(108, trade.dayHigh, 0);
+        assertEquals(108, trade.dayLow, 0);
+
+        trade.apply(112, at(DAY.plusDays(1), 10, 0));
+        assertEquals(110, trade.basePrice, 0);
+        assertEquals(112, trade.dayHigh, 0);
+    }
+
+    @Test
+    public void replayedTradesFromAnEarlierDayStillUpdateTheWatchlist() {
+        LivePriceManager manager = new LivePriceManager(new WatchlistPanel(symbol -> { }), new MarketDataSession(),
+                new WatchlistStore(folder.getRoot().toPath().resolve("watchlist.txt")));
+        manager.addTicker(new Stock("AAPL", "Apple Inc", 100, 5, 5.263, 95, 101, 94));
+
+        // A replay hands over the recorded exchange times, days before the wall clock
+        manager.onTrade("AAPL", 104, 10, at(DAY, 10, 0));
+
+        Stock live = manager.getLiveSnapshot("AAPL");
+        assertEquals(104, live.currentPrice(), 0);
+        assertEquals(104, live.dayHigh(), 0);
+    }
+}
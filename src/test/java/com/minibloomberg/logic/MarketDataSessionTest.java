@@ -0,0 +1,121 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.junit.After;
+import org.junit.Test;
+
+public class MarketDataSessionTest {
+
+    private static final long MIN_DELAY_MS = 50;
+    private static final long MAX_DELAY_MS = 400;
+
+    private FeedServer server;
+
+    /**
+     * Records every message it receives and answers each subscribe with one trade.
+     */
+    private static final class FeedServer extends WebSocketServer {
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        FeedServer(int port) {
+            super(new InetSocketAddress("127.0.0.1", port));
+            setReuseAddr(true);
+        }
+
+        @Override
+        public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        }
+
+        @Override
+        public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onMessage(WebSocket conn, String message) {
+            received.add(message);
+            if (message.contains("\"subscribe\"")) {
+                conn.send("{\"type\":\"trade\",\"data\":[{\"s\":\"AAPL\",\"p\":1.5,\"v\":2,\"t\":3}]}");
+            }
+        }
+
+        @Override
+        public void onError(WebSocket conn, Exception ex) {
+        }
+
+        @Override
+        public void onStart() {
+        }
+    }
+
+    @After
+    public void stopServer() throws InterruptedException {
+        if (server != null) server.stop(1_000);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out waiting until " + what, System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void backsOffWhileUnreachableThenResetsAndResubscribesOnOpen() throws Exception {
+        int port = freePort();
+        MarketDataSession session = new MarketDataSession("ws://127.0.0.1:" + port, MIN_DELAY_MS, MAX_DELAY_MS);
+        BlockingQueue<Double> prices = new LinkedBlockingQueue<>();
+        session.subscribe("AAPL", new TradeFrameParser.TradeHandler() {
+            @Override
+            public void onTrade(String symbol, double price, double volume, long timestamp) {
+                prices.add(price);
+            }
+
+            @Override
+            public void onFrameEnd() {
+            }
+        });
+
+        // Nothing listens yet: every attempt is refused, and the delay doubles up to the cap
+        session.connect();
+        await("the backoff reaches its cap", () -> session.getReconnectDelayMs() == MAX_DELAY_MS);
+        assertTrue(!session.isOpen());
+
+        server = new FeedServer(port);
+        server.start();
+
+        String message = server.received.poll(10, TimeUnit.SECONDS);
+        assertNotNull("no subscription after the server came up", message);
+        assertEquals("{\"type\":\"subscribe\",\"symbol\":\"AAPL\"}", message);
+        assertEquals(1.5, prices.poll(10, TimeUnit.SECONDS), 0);
+        assertTrue(session.isOpen());
+        assertEquals(MIN_DELAY_MS, session.getReconnectDelayMs());
+
+        // A later drop starts again from the shortest delay
+        server.stop(1_000);
+        server = null;
+        await("the session notices the drop", () -> !session.isOpen());
+        await("the next attempt is scheduled", () -> session.getReconnectDelayMs() > MIN_DELAY_MS);
+        assertTrue(session.getReconnectDelayMs() <= 4 * MIN_DELAY_MS);
+    }
+}
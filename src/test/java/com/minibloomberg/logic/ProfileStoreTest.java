@@ -0,0 +1,109 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProfileStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+
+    @Before
+    public void locateFile() {
+        file = folder.getRoot().toPath().resolve("profiles.bin");
+    }
+
+    private long tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+
+    @Test
+    public void profilesSurviveARestart() {
+        ProfileStore store = new ProfileStore(file);
+        store.put("AAPL", new JSONObject().put("name", "Apple Inc").put("country", "US"));
+        store.put("SAP", new JSONObject().put("name", "SAP SE — Walldorf"));
+        store.flush();
+
+        ProfileStore reopened = new ProfileStore(file);
+        assertEquals(2, reopened.preload());
+        assertEquals("Apple Inc", reopened.get("AAPL").getString("name"));
+        assertEquals("SAP SE — Walldorf", reopened.get("SAP").getString("name"));
+        assertFalse(reopened.needsRevalidation("AAPL"));
+    }
+
+    @Test
+    public void profilesOverSixtyFourKilobytesRoundTrip() throws IOException {
+        String description = "x".repeat(100_000);
+        ProfileStore store = new ProfileStore(file);
+        store.put("BIG", new JSONObject().put("name", "Big Co").put("description", description));
+        store.flush();
+
+        ProfileStore reopened = new ProfileStore(file);
+        assertEquals(1, reopened.preload());
+        assertEquals(description, reopened.get("BIG").getString("description"));
+        assertEquals(0, tempFiles());
+    }
+
+    @Test
+    public void versionOneFilesAreStillRead() throws IOException {
+        try (OutputStream os = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(os)) {
+            out.writeInt(0x4D425053);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeUTF("MSFT");
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF("{\"name\":\"Microsoft\"}");
+        }
+
+        ProfileStore store = new ProfileStore(file);
+        assertEquals(1, store.preload());
+        assertEquals("Microsoft", store.get("MSFT").getString("name"));
+    }
+
+    @Test
+    public void corruptLengthIsNotTrusted() throws IOException {
+        try (OutputStream os = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(os)) {
+            out.writeInt(0x4D425053);
+            out.writeInt(2);
+            out.writeInt(1);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        ProfileStore store = new ProfileStore(file);
+        assertEquals(0, store.preload());
+        assertNull(store.get("MSFT"));
+    }
+
+    @Test
+    public void failedWriteLeavesNoTempFile() throws IOException {
+        // A non-empty directory where the file should go makes the final move fail
+        Files.createDirectories(file);
+        Files.write(file.resolve("blocker"), new byte[1]);
+
+        ProfileStore store = new ProfileStore(file);
+        store.put("AAPL", new JSONObject().put("name", "Apple Inc"));
+        store.flush();
+
+        assertEquals(0, tempFiles());
+    }
+}
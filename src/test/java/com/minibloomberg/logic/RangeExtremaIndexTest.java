@@ -0,0 +1,116 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RangeExtremaIndexTest {
+
+    private static double scanMin(double[] values, int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = Math.max(0, from); i < Math.min(values.length, to); i++) min = Math.min(min, values[i]);
+        return min;
+    }
+
+    private static double scanMax(double[] values, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = Math.max(0, from); i < Math.min(values.length, to); i++) max = Math.max(max, values[i]);
+        return max;
+    }
+
+    private static double[] randomValues(Random random, int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) values[i] = random.nextInt(1_000) / 4.0;
+        return values;
+    }
+
+    private static void assertMatchesScan(double[] values, RangeExtremaIndex min, RangeExtremaIndex max,
+                                          int from, int to) {
+        String window = "[" + from + ", " + to + ") of " + values.length;
+        if (Math.max(0, from) >= Math.min(values.length, to)) {
+            assertTrue("empty " + window, Double.isNaN(min.query(from, to)));
+            assertTrue("empty " + window, Double.isNaN(max.query(from, to)));
+        } else {
+            assertEquals("min " + window, scanMin(values, from, to), min.query(from, to), 0);
+            assertEquals("max " + window, scanMax(values, from, to), max.query(from, to), 0);
+        }
+    }
+
+    @Test
+    public void randomWindowsMatchALinearScan() {
+        Random random = new Random(11);
+        for (int n : new int[]{0, 1, 15, 16, 17, 33, 100, 257, 1_000, 5_003}) {
+            double[] values = randomValues(random, n);
+            RangeExtremaIndex min = RangeExtremaIndex.min(i -> values[i], n);
+            RangeExtremaIndex max = RangeExtremaIndex.max(i -> values[i], n);
+
+            for (int trial = 0; trial < 500; trial++) {
+                int from = random.nextInt(n + 1);
+                int to = from + random.nextInt(n - from + 1);
+                assertMatchesScan(values, min, max, from, to);
+            }
+        }
+    }
+
+    @Test
+    public void windowsOutsideTheSeriesAreClampedOrEmpty() {
+        double[] values = {3, 1, 4, 1, 5, 9, 2, 6};
+        RangeExtremaIndex min = RangeExtremaIndex.min(i -> values[i], values.length);
+        RangeExtremaIndex max = RangeExtremaIndex.max(i -> values[i], values.length);
+
+        assertMatchesScan(values, min, max, -5, 3);
+        assertMatchesScan(values, min, max, 4, 100);
+        assertMatchesScan(values, min, max, 5, 5);
+        assertMatchesScan(values, min, max, 6, 2);
+        assertMatchesScan(values, min, max, 8, 12);
+    }
+
+    @Test
+    public void refreshedLastBarIsReflectedInEveryWindow() {
+        Random random = new Random(5);
+        for (int n : new int[]{1, 16, 17, 64, 65, 1_000, 1_024}) {
+            double[] values = randomValues(random, n);
+            RangeExtremaIndex min = RangeExtremaIndex.min(i -> values[i], n);
+            RangeExtremaIndex max = RangeExtremaIndex.max(i -> values[i], n);
+
+            for (int tick = 0; tick < 30; tick++) {
+                // New extremes, then moves back inside the range, as a forming bar does
+                values[n - 1] = switch (tick % 3) {
+                    case 0 -> 10_000 + tick;
+                    case 1 -> -10_000 - tick;
+                    default -> random.nextInt(1_000) / 4.0;
+                };
+                min.refresh(n - 1);
+                max.refresh(n - 1);
+
+                for (int from = 0; from < n; from += Math.max(1, n / 40)) {
+                    assertMatchesScan(values, min, max, from, n);
+                    assertMatchesScan(values, min, max, from, n - 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void refreshWorksForAnyBar() {
+        Random random = new Random(9);
+        int n = 777;
+        double[] values = randomValues(random, n);
+        RangeExtremaIndex min = RangeExtremaIndex.min(i -> values[i], n);
+        RangeExtremaIndex max = RangeExtremaIndex.max(i -> values[i], n);
+
+        for (int change = 0; change < 200; change++) {
+            int index = random.nextInt(n);
+            values[index] = random.nextInt(4_000) / 4.0 - 250;
+            min.refresh(index);
+            max.refresh(index);
+
+            int from = random.nextInt(n + 1);
+            assertMatchesScan(values, min, max, from, from + random.nextInt(n - from + 1));
+        }
+        for (int from = 0; from < n; from += 7) assertMatchesScan(values, min, max, from, n);
+    }
+}
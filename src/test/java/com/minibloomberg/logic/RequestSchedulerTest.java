@@ -0,0 +1,157 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.minibloomberg.logic.RequestScheduler.Priority;
+import com.minibloomberg.logic.RequestScheduler.Provider;
+
+public class RequestSchedulerTest {
+
+    // One token every 100 ms with a single-token bucket, so queued work is observable
+    private static final int PER_MINUTE = 600;
+
+    private final List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void resetQueue() {
+        RequestScheduler.reset(Provider.FINNHUB, PER_MINUTE, 1);
+    }
+
+    private Supplier<CompletableFuture<String>> request(String name) {
+        return () -> {
+            dispatched.add(name);
+            return CompletableFuture.completedFuture(name);
+        };
+    }
+
+    private CompletableFuture<String> submit(Priority priority, String key, String name) {
+        return RequestScheduler.submit(Provider.FINNHUB, priority, key, request(name));
+    }
+
+    @Test
+    public void higherPriorityLanesAreDispatchedFirst() throws Exception {
+        submit(Priority.BACKGROUND, null, "first").get(1, TimeUnit.SECONDS);   // Spends the only token
+
+        CompletableFuture<String> background = submit(Priority.BACKGROUND, null, "background");
+        CompletableFuture<String> watchlist = submit(Priority.WATCHLIST, null, "watchlist");
+        CompletableFuture<String> interactive = submit(Priority.INTERACTIVE, null, "interactive");
+        CompletableFuture.allOf(background, watchlist, interactive).get(2, TimeUnit.SECONDS);
+
+        assertEquals(List.of("first", "interactive", "watchlist", "background"), dispatched);
+    }
+
+    @Test
+    public void requestsWaitForTokens() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<?>[] all = new CompletableFuture<?>[4];
+        for (int i = 0; i < all.length; i++) all[i] = submit(Priority.INTERACTIVE, null, "r" + i);
+        CompletableFuture.allOf(all).get(2, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // The first goes out on the initial token, the other three each wait about 100 ms
+        assertTrue("finished after " + elapsedMs + " ms", elapsedMs >= 250);
+        assertEquals(4, RequestScheduler.getStats(Provider.FINNHUB).dispatched());
+    }
+
+    @Test
+    public void identicalKeysShareOneRequest() throws Exception {
+        submit(Priority.BACKGROUND, null, "blocker");
+
+        CompletableFuture<String> a = submit(Priority.WATCHLIST, "quote:AAPL", "a");
+        CompletableFuture<String> b = submit(Priority.WATCHLIST, "quote:AAPL", "b");
+
+        assertEquals("a", a.get(1, TimeUnit.SECONDS));
+        assertEquals("a", b.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("blocker", "a"), dispatched);
+        assertEquals(1, RequestScheduler.getStats(Provider.FINNHUB).coalesced());
+    }
+
+    @Test
+    public void coalescingAtHigherPriorityPromotesTheQueuedRequest() throws Exception {
+        submit(Priority.BACKGROUND, null, "blocker");
+        CompletableFuture<String> other = submit(Priority.BACKGROUND, null, "other");
+        CompletableFuture<String> promoted = submit(Priority.BACKGROUND, "profile:MSFT", "profile");
+        CompletableFuture<String> interactive = submit(Priority.INTERACTIVE, "profile:MSFT", "ignored");
+
+        CompletableFuture.allOf(other, promoted, interactive).get(2, TimeUnit.SECONDS);
+        assertEquals(List.of("blocker", "profile", "other"), dispatched);
+    }
+
+    @Test
+    public void promoteMovesAQueuedKeyedRequest() throws Exception {
+        submit(Priority.BACKGROUND, null, "blocker");
+        CompletableFuture<String> other = submit(Priority.WATCHLIST, null, "other");
+        CompletableFuture<String> history = submit(Priority.BACKGROUND, "history:IBM", "history");
+        RequestScheduler.promote(Provider.FINNHUB, "history:IBM", Priority.INTERACTIVE);
+
+        CompletableFuture.allOf(other, history).get(2, TimeUnit.SECONDS);
+        assertEquals(List.of("blocker", "history", "other"), dispatched);
+    }
+
+    @Test
+    public void keyedRequestIsDroppedOnceEveryCallerCancels() throws Exception {
+        submit(Priority.BACKGROUND, null, "blocker");
+        CompletableFuture<String> a = submit(Priority.INTERACTIVE, "news:AAPL", "news");
+        CompletableFuture<String> b = submit(Priority.INTERACTIVE, "news:AAPL", "news");
+        CompletableFuture<String> after = submit(Priority.INTERACTIVE, null, "after");
+
+        a.cancel(true);
+        b.cancel(true);
+        after.get(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("blocker", "after"), dispatched);
+    }
+
+    @Test
+    public void keyedRequestSurvivesWhileAnyCallerWaits() throws Exception {
+        submit(Priority.BACKGROUND, null, "blocker");
+        CompletableFuture<String> a = submit(Priority.INTERACTIVE, "news:MSFT", "news");
+        CompletableFuture<String> b = submit(Priority.INTERACTIVE, "news:MSFT", "news");
+
+        a.cancel(true);
+        assertEquals("news", b.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("blocker", "news"), dispatched);
+    }
+
+    @Test
+    public void throttledRequestIsQueuedAgain() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = RequestScheduler.submit(Provider.FINNHUB, Priority.INTERACTIVE, null, () ->
+                attempts.incrementAndGet() == 1
+                        ? CompletableFuture.failedFuture(new IOException("HTTP 429 from finnhub.io"))
+                        : CompletableFuture.completedFuture("ok"));
+
+        assertEquals("ok", result.get(2, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        assertEquals(1, RequestScheduler.getStats(Provider.FINNHUB).throttled());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void throttledRequestFailsAfterTheLastAttempt() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = RequestScheduler.submit(Provider.FINNHUB, Priority.INTERACTIVE, null, () -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("HTTP 429 from finnhub.io"));
+        });
+
+        try {
+            result.get(3, TimeUnit.SECONDS);
+        } finally {
+            assertEquals(3, attempts.get());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TickJournalTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 12);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    private record Trade(String symbol, double price, double volume, long timestamp) {
+    }
+
+    /**
+     * Collects replayed trades and the size of each frame.
+     */
+    private static final class Recorder implements TradeFrameParser.TradeHandler {
+        final List<Trade> trades = new ArrayList<>();
+        final List<Integer> frameSizes = new ArrayList<>();
+        int inFrame;
+
+        @Override
+        public void onTrade(String symbol, double price, double volume, long timestamp) {
+            trades.add(new Trade(symbol, price, volume, timestamp));
+            inFrame++;
+        }
+
+        @Override
+        public void onFrameEnd() {
+            frameSizes.add(inFrame);
+            inFrame = 0;
+        }
+    }
+
+    @Before
+    public void locateDirectory() {
+        directory = folder.getRoot().toPath();
+    }
+
+    private static long at(LocalDate day, int hour, int minute) {
+        return LocalDateTime.of(day, LocalTime.of(hour, minute))
+                .atZone(TickJournal.MARKET_ZONE).toInstant().toEpochMilli();
+    }
+
+    private Recorder replay(LocalDate day) throws IOException {
+        Recorder recorder = new Recorder();
+        new TickReplay(directory, day, TickReplay.MAX_SPEED).run(recorder);
+        return recorder;
+    }
+
+    @Test
+    public void recordedTradesReplayInOrderWithTheirFrames() throws IOException {
+        long received = at(DAY, 10, 0);
+        TickJournal journal = new TickJournal(directory);
+        journal.start();
+        journal.append("AAPL", 189.5, 100, received - 5, received);
+        journal.append("MSFT", 420.25, 3, received - 4, received);
+        journal.append("AAPL", 189.75, 0.5, received + 10, received + 20);
+        journal.close();
+
+        assertEquals(3, journal.getWrittenCount());
+        assertEquals(0, journal.getDroppedCount());
+
+        Recorder recorder = replay(DAY);
+        assertEquals(List.of(
+                new Trade("AAPL", 189.5, 100, received - 5),
+                new Trade("MSFT", 420.25, 3, received - 4),
+                new Trade("AAPL", 189.75, 0.5, received + 10)), recorder.trades);
+        assertEquals(List.of(2, 1), recorder.frameSizes);
+        assertEquals(List.of("AAPL", "MSFT"), Files.readAllLines(TickJournal.symbolFile(directory, DAY)));
+    }
+
+    @Test
+    public void segmentUsesTheDocumentedLayout() throws IOException {
+        long received = at(DAY, 9, 30);
+        TickJournal journal = new TickJournal(directory);
+        journal.start();
+        journal.append("IBM", 170.125, 42, received - 1, received);
+        journal.append("TSLA", 250.5, 7, received, received + 1);
+        journal.close();
+
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(TickJournal.segmentFile(directory, DAY)));
+        assertEquals(TickJournal.MAGIC, file.getInt(0));
+        assertEquals(TickJournal.FORMAT_VERSION, file.getInt(4));
+        assertEquals(36, file.getInt(8));
+        assertEquals(2, file.getLong(TickJournal.COUNT_OFFSET));
+
+        int second = TickJournal.HEADER_SIZE + 36;
+        assertEquals(0, file.getInt(TickJournal.HEADER_SIZE));
+        assertEquals(170.125, file.getDouble(TickJournal.HEADER_SIZE + 4), 0);
+        assertEquals(1, file.getInt(second));
+        assertEquals(250.5, file.getDouble(second + 4), 0);
+        assertEquals(7, file.getDouble(second + 12), 0);
+        assertEquals(received, file.getLong(second + 20));
+        assertEquals(received + 1, file.getLong(second + 28));
+    }
+
+    @Test
+    public void reopenedJournalAppendsAfterCommittedRecords() throws IOException {
+        long received = at(DAY, 11, 0);
+        TickJournal first = new TickJournal(directory);
+        first.start();
+        first.append("AAPL", 1, 1, received, received);
+        first.close();
+
+        TickJournal second = new TickJournal(directory);
+        second.start();
+        second.append("NVDA", 2, 1, received + 1, received + 1);
+        second.append("AAPL", 3, 1, received + 2, received + 2);
+        second.close();
+
+        Recorder recorder = replay(DAY);
+        assertEquals(List.of(
+                new Trade("AAPL", 1, 1, received),
+                new Trade("NVDA", 2, 1, received + 1),
+                new Trade("AAPL", 3, 1, received + 2)), recorder.trades);
+        assertEquals(List.of("AAPL", "NVDA"), Files.readAllLines(TickJournal.symbolFile(directory, DAY)));
+    }
+
+    @Test
+    public void tradesSplitIntoSegmentsByNewYorkReceiveDate() throws IOException {
+        LocalDate nextDay = DAY.plusDays(1);
+        long lateEvening = at(DAY, 23, 59);   // Already the next day in UTC
+        long afterMidnight = at(nextDay, 0, 1);
+
+        TickJournal journal = new TickJournal(directory);
+        journal.start();
+        journal.append("SPY", 510, 1, lateEvening, lateEvening);
+        journal.append("QQQ", 440, 1, afterMidnight, afterMidnight);
+        journal.close();
+
+        assertEquals(List.of(new Trade("SPY", 510, 1, lateEvening)), replay(DAY).trades);
+        assertEquals(List.of(new Trade("QQQ", 440, 1, afterMidnight)), replay(nextDay).trades);
+        assertEquals(List.of("QQQ"), Files.readAllLines(TickJournal.symbolFile(directory, nextDay)));
+    }
+
+    @Test
+    public void fullSegmentsContinueInTheNextPart() throws IOException {
+        long received = at(DAY, 12, 0);
+        TickJournal journal = new TickJournal(directory, 4);
+        journal.start();
+        for (int i = 0; i < 10; i++) {
+            // Trades 3 and 4 arrive together, so their frame straddles the first two parts
+            journal.append("AAPL", i, 1, received + i, i == 4 ? received + 3 : received + i);
+        }
+        journal.close();
+
+        assertTrue(Files.exists(TickJournal.segmentFile(directory, DAY, 1)));
+        assertTrue(Files.exists(TickJournal.segmentFile(directory, DAY, 2)));
+        assertFalse(Files.exists(TickJournal.segmentFile(directory, DAY, 3)));
+
+        Recorder recorder = replay(DAY);
+        assertEquals(10, recorder.trades.size());
+        for (int i = 0; i < 10; i++) assertEquals(i, recorder.trades.get(i).price(), 0);
+        assertEquals(List.of(1, 1, 1, 2, 1, 1, 1, 1, 1), recorder.frameSizes);
+    }
+
+    @Test
+    public void reopenedJournalContinuesItsLastPart() throws IOException {
+        long received = at(DAY, 13, 0);
+        TickJournal first = new TickJournal(directory, 4);
+        first.start();
+        for (int i = 0; i < 6; i++) first.append("MSFT", i, 1, received + i, received + i);
+        first.close();
+
+        TickJournal second = new TickJournal(directory, 4);
+        second.start();
+        for (int i = 6; i < 9; i++) second.append("MSFT", i, 1, received + i, received + i);
+        second.close();
+
+        assertTrue(Files.exists(TickJournal.segmentFile(directory, DAY, 2)));
+        Recorder recorder = replay(DAY);
+        assertEquals(9, recorder.trades.size());
+        for (int i = 0; i < 9; i++) assertEquals(i, recorder.trades.get(i).price(), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void recordCountPastTheEndOfTheFileIsRejected() throws IOException {
+        long received = at(DAY, 14, 0);
+        TickJournal journal = new TickJournal(directory);
+        journal.start();
+        journal.append("AAPL", 1, 1, received, received);
+        journal.close();
+
+        try (FileChannel channel = FileChannel.open(TickJournal.segmentFile(directory, DAY), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putLong(0, 100_000_000L), TickJournal.COUNT_OFFSET);
+        }
+        replay(DAY);
+    }
+
+    @Test
+    public void closeWithoutStartIsHarmless() {
+        TickJournal journal = new TickJournal(directory);
+        journal.close();
+        assertFalse(Files.exists(TickJournal.segmentFile(directory, DAY)));
+    }
+}
@@ -0,0 +1,195 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.minibloomberg.data.HistoricalData;
+
+public class TimeSeriesParserTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 2);
+
+    private final TimeSeriesParser parser = new TimeSeriesParser();
+
+    private static InputStream utf8(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream gzip(String json) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()));
+    }
+
+    private static long epoch(LocalDate day) {
+        return day.toEpochDay() * 86_400L;
+    }
+
+    /**
+     * A daily adjusted series the way Alpha Vantage sends it: newest day first. Bar i (oldest
+     * = 0) opens at 100 + i, so every column can be checked from the index alone.
+     */
+    private static String adjustedSeries(int bars) {
+        StringBuilder json = new StringBuilder("{\n    \"Meta Data\": {\n        \"1. Information\": \"Daily Time Series with Splits and Dividend Events\",\n"
+                + "        \"2. Symbol\": \"IBM\"\n    },\n    \"Time Series (Daily)\": {\n");
+        for (int i = bars - 1; i >= 0; i--) {
+            json.append("        \"").append(FIRST_DAY.plusDays(i)).append("\": {\n")
+                    .append("            \"1. open\": \"").append(100 + i).append(".5000\",\n")
+                    .append("            \"2. high\": \"").append(101 + i).append(".2500\",\n")
+                    .append("            \"3. low\": \"").append(99 + i).append(".7500\",\n")
+                    .append("            \"4. close\": \"").append(100 + i).append(".0000\",\n")
+                    .append("            \"5. adjusted close\": \"").append(50 + i).append(".0000\",\n")
+                    .append("            \"6. volume\": \"").append(1_000 + i).append("\",\n")
+                    .append("            \"7. dividend amount\": \"0.0000\",\n")
+                    .append("            \"8. split coefficient\": \"1.0\"\n")
+                    .append("        }").append(i > 0 ? ",\n" : "\n");
+        }
+        return json.append("    }\n}").toString();
+    }
+
+    private static void assertAdjustedSeries(HistoricalData data, int bars) {
+        assertEquals(bars, data.size());
+        for (int i = 0; i < bars; i++) {
+            assertEquals(epoch(FIRST_DAY.plusDays(i)), data.timestamp(i));
+            assertEquals(100.5 + i, data.open(i), 0);
+            assertEquals(101.25 + i, data.high(i), 0);
+            assertEquals(99.75 + i, data.low(i), 0);
+            assertEquals(100 + i, data.close(i), 0);
+            assertEquals(50 + i, data.adjClose(i), 0);
+            assertEquals(1_000 + i, data.volume(i), 0);
+        }
+    }
+
+    @Test
+    public void descendingPayloadIsReturnedOldestFirst() throws IOException {
+        // Larger than the read buffer and the initial column capacity
+        assertAdjustedSeries(parser.parse(utf8(adjustedSeries(600))), 600);
+    }
+
+    @Test
+    public void gzipBodyParsesTheSame() throws IOException {
+        assertAdjustedSeries(parser.parse(gzip(adjustedSeries(600))), 600);
+    }
+
+    @Test
+    public void memberOrderAndWhitespaceDoNotMatter() throws IOException {
+        String json = "{\"Time Series (Daily)\":{\"2024-03-12\":{\"6. volume\":\"20\",\"4. close\":\"11\","
+                + "\"1. open\":\"10\",\"3. low\":\"9\",\"2. high\":\"12\"},"
+                + "\r\n\t\"2024-03-11\" :\n{ \"1. open\" : \"5\" , \"4. close\" : \"6\" }},"
+                + "\"Meta Data\":{\"2. Symbol\":\"IBM\",\"nested\":[{\"x\":\"}\"}]}}";
+
+        HistoricalData data = parser.parse(utf8(json));
+
+        assertEquals(2, data.size());
+        assertEquals(epoch(LocalDate.of(2024, 3, 11)), data.timestamp(0));
+        assertEquals(5, data.open(0), 0);
+        assertEquals(6, data.close(0), 0);
+        assertEquals(10, data.open(1), 0);
+        assertEquals(12, data.high(1), 0);
+        assertEquals(9, data.low(1), 0);
+        assertEquals(11, data.close(1), 0);
+        assertEquals(20, data.volume(1), 0);
+    }
+
+    @Test
+    public void unorderedDatesAreSorted() throws IOException {
+        String json = "{\"Time Series (Daily)\":{\"2024-01-03\":{\"4. close\":\"3\"},"
+                + "\"2024-01-01\":{\"4. close\":\"1\"},\"2024-01-02\":{\"4. close\":\"2\"}}}";
+
+        HistoricalData data = parser.parse(utf8(json));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(epoch(LocalDate.of(2024, 1, 1 + i)), data.timestamp(i));
+            assertEquals(1 + i, data.close(i), 0);
+        }
+    }
+
+    @Test
+    public void missingAndUnreadableFieldsFallBack() throws IOException {
+        String json = "{\"Time Series (Daily)\":{"
+                + "\"2024-01-02\":{\"1. open\":\"NaN\",\"4. close\":\"7.5\"},"
+                + "\"2024-01-01\":{\"1. open\":\"n/a\",\"2. high\":\"1.5e1\",\"4. close\":\"2\",\"5. volume\":\"300\"}}}";
+
+        HistoricalData data = parser.parse(utf8(json));
+
+        assertTrue(Double.isNaN(data.open(0)));
+        assertEquals(15, data.high(0), 0);
+        assertEquals(0, data.low(0), 0);                 // Missing fields read as zero
+        assertEquals(2, data.adjClose(0), 0);            // No adjusted close: the close stands in
+        assertEquals(300, data.volume(0), 0);            // "5. volume" in the unadjusted series
+        assertTrue(Double.isNaN(data.open(1)));
+        assertEquals(7.5, data.adjClose(1), 0);
+        assertEquals(0, data.volume(1), 0);
+    }
+
+    @Test
+    public void errorResponseCarriesItsMessage() throws IOException {
+        assertNull(parser.parse(utf8("{\n  \"Error Message\": \"Invalid API call. Please retry.\"\n}")));
+        assertEquals("Invalid API call. Please retry.", parser.getApiMessage());
+    }
+
+    @Test
+    public void rateLimitNoteCarriesItsMessage() throws IOException {
+        String note = "Thank you for using Alpha Vantage! Our standard API call frequency is 5 calls per minute.";
+        assertNull(parser.parse(utf8("{\"Note\": \"" + note + "\"}")));
+        assertEquals(note, parser.getApiMessage());
+
+        // The message does not leak into the next parse
+        parser.parse(utf8(adjustedSeries(1)));
+        assertNull(parser.getApiMessage());
+    }
+
+    @Test
+    public void emptyObjectHasNoSeries() throws IOException {
+        assertNull(parser.parse(utf8(" { } ")));
+        assertNull(parser.getApiMessage());
+    }
+
+    @Test
+    public void truncatedBodyFails() {
+        String json = adjustedSeries(3);
+        try {
+            parser.parse(utf8(json.substring(0, json.length() / 2)));
+            fail("parsed a truncated body");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void resultCoversOnlyTheParsedBars() throws IOException {
+        HistoricalData data = parser.parse(utf8(adjustedSeries(3)));
+
+        assertEquals(3, data.size());
+        assertEquals(3, data.lastBars(1_000).size());
+        try {
+            data.range(0, 4);
+            fail("range() reached into the column slack");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void reusedParserDoesNotOverwriteEarlierResults() throws IOException {
+        HistoricalData first = parser.parse(utf8(adjustedSeries(5)));
+        parser.parse(utf8(adjustedSeries(2).replace("\"100.0000\"", "\"1.0000\"")));
+
+        assertAdjustedSeries(first, 5);
+    }
+}
@@ -0,0 +1,122 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TradeFrameParserTest {
+
+    private record Trade(String symbol, double price, double volume, long timestamp) {
+    }
+
+    private final TradeFrameParser parser = new TradeFrameParser();
+    private final List<Trade> trades = new ArrayList<>();
+    private int frameEnds;
+
+    private final TradeFrameParser.TradeHandler handler = new TradeFrameParser.TradeHandler() {
+        @Override
+        public void onTrade(String symbol, double price, double volume, long timestamp) {
+            trades.add(new Trade(symbol, price, volume, timestamp));
+        }
+
+        @Override
+        public void onFrameEnd() {
+            frameEnds++;
+        }
+    };
+
+    private boolean parse(String frame) {
+        return parser.parse(frame, handler);
+    }
+
+    @Test
+    public void multiTradeFrameDeliversEveryTradeInOrder() {
+        assertTrue(parse("{\"data\":[{\"c\":[\"1\",\"12\"],\"p\":189.5,\"s\":\"AAPL\",\"t\":1712345678901,\"v\":100},"
+                + "{\"p\":420.25,\"s\":\"MSFT\",\"t\":1712345678902,\"v\":3},"
+                + "{\"p\":189.51,\"s\":\"AAPL\",\"t\":1712345678903,\"v\":0.5}],\"type\":\"trade\"}"));
+
+        assertEquals(List.of(
+                new Trade("AAPL", 189.5, 100, 1712345678901L),
+                new Trade("MSFT", 420.25, 3, 1712345678902L),
+                new Trade("AAPL", 189.51, 0.5, 1712345678903L)), trades);
+        assertEquals(1, frameEnds);
+        assertSame(trades.get(0).symbol(), trades.get(2).symbol());
+    }
+
+    @Test
+    public void whitespaceAroundTokensIsAccepted() {
+        assertTrue(parse(" {\n  \"type\" : \"trade\",\n  \"data\" : [ {\t\"s\" : \"AAPL\" , \"p\" : 1.5 ,"
+                + " \"v\" : 2 , \"t\" : 3 } ]\n}\n"));
+
+        assertEquals(List.of(new Trade("AAPL", 1.5, 2, 3)), trades);
+    }
+
+    @Test
+    public void typeWithSpacingIsRecognisedAfterData() {
+        assertTrue(parse("{\"data\":[{\"s\":\"IBM\",\"p\":10,\"v\":1,\"t\":5}], \"type\":  \"trade\"}"));
+        assertEquals(1, trades.size());
+    }
+
+    @Test
+    public void nullConditionsAndPricesAreTolerated() {
+        assertTrue(parse("{\"type\":\"trade\",\"data\":[{\"c\":null,\"p\":null,\"s\":\"TSLA\",\"t\":7,\"v\":null},"
+                + "{\"c\":null,\"p\":250,\"s\":\"TSLA\",\"t\":8,\"v\":4}]}"));
+
+        assertEquals(2, trades.size());
+        assertTrue(Double.isNaN(trades.get(0).price()));
+        assertEquals(new Trade("TSLA", 250, 4, 8), trades.get(1));
+    }
+
+    @Test
+    public void escapedSymbolsAreDecoded() {
+        assertTrue(parse("{\"type\":\"trade\",\"data\":[{\"s\":\"BRK\\/B\",\"p\":1,\"v\":1,\"t\":1},"
+                + "{\"s\":\"BRK/B\",\"p\":2,\"v\":1,\"t\":2},{\"s\":\"\\u0041APL\",\"p\":3,\"v\":1,\"t\":3}]}"));
+
+        assertEquals("BRK/B", trades.get(0).symbol());
+        assertSame(trades.get(0).symbol(), trades.get(1).symbol());
+        assertEquals("AAPL", trades.get(2).symbol());
+    }
+
+    @Test
+    public void escapedQuotesInSkippedValuesDoNotEndTheString() {
+        assertTrue(parse("{\"type\":\"trade\",\"note\":\"say \\\"hi\\\" ]}\",\"data\":[{\"s\":\"A\",\"x\":{\"y\":[1,\"}\"]},"
+                + "\"p\":1,\"v\":1,\"t\":1}]}"));
+        assertEquals(List.of(new Trade("A", 1, 1, 1)), trades);
+    }
+
+    @Test
+    public void numbersInExponentAndLongFormsAreExact() {
+        assertTrue(parse("{\"type\":\"trade\",\"data\":[{\"s\":\"X\",\"p\":1.25e2,\"v\":-0.001,\"t\":1.712345678901E12},"
+                + "{\"s\":\"Y\",\"p\":0.1234567890123456789,\"v\":1e-30,\"t\":1}]}"));
+
+        assertEquals(new Trade("X", 125, -0.001, 1712345678901L), trades.get(0));
+        assertEquals(0.1234567890123456789, trades.get(1).price(), 0);
+        assertEquals(1e-30, trades.get(1).volume(), 0);
+    }
+
+    @Test
+    public void emptyDataStillEndsTheFrame() {
+        assertTrue(parse("{\"type\":\"trade\",\"data\":[]}"));
+        assertTrue(trades.isEmpty());
+        assertEquals(1, frameEnds);
+    }
+
+    @Test
+    public void otherMessageTypesAreLeftToTheCaller() {
+        assertFalse(parse("{\"type\":\"ping\"}"));
+        assertFalse(parse("{\"type\" : \"error\",\"msg\":\"trade limit\"}"));
+        assertFalse(parse("{\"types\":\"trade\"}"));
+        assertEquals(0, frameEnds);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedTradeFrameIsMalformed() {
+        parse("{\"type\":\"trade\",\"data\":[{\"s\":\"AAPL\",\"p\":1");
+    }
+}
@@ -0,0 +1,198 @@
+package com.minibloomberg.logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.minibloomberg.logic.TradeRingBuffer.OverflowPolicy;
+
+public class TradeRingBufferTest {
+
+    private record Trade(String symbol, double price, double volume, long timestamp) {
+    }
+
+    private static List<Trade> drainAll(TradeRingBuffer buffer) {
+        List<Trade> trades = new ArrayList<>();
+        buffer.drain((symbol, price, volume, timestamp) -> trades.add(new Trade(symbol, price, volume, timestamp)),
+                Integer.MAX_VALUE);
+        return trades;
+    }
+
+    private static List<Double> prices(List<Trade> trades) {
+        List<Double> prices = new ArrayList<>();
+        for (Trade trade : trades) prices.add(trade.price());
+        return prices;
+    }
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new TradeRingBuffer(5, OverflowPolicy.DROP_OLDEST).capacity());
+        assertEquals(8, new TradeRingBuffer(8, OverflowPolicy.DROP_OLDEST).capacity());
+        assertEquals(4, new TradeRingBuffer(1, OverflowPolicy.DROP_OLDEST).capacity());   // Never fewer than four slots
+    }
+
+    @Test
+    public void tradesDrainInArrivalOrderUpToTheLimit() {
+        TradeRingBuffer buffer = new TradeRingBuffer(8, OverflowPolicy.DROP_OLDEST);
+        buffer.offer("AAPL", 1, 10, 100);
+        buffer.offer("MSFT", 2, 20, 200);
+        buffer.offer("AAPL", 3, 30, 300);
+
+        List<Trade> first = new ArrayList<>();
+        assertEquals(2, buffer.drain((s, p, v, t) -> first.add(new Trade(s, p, v, t)), 2));
+        assertEquals(List.of(new Trade("AAPL", 1, 10, 100), new Trade("MSFT", 2, 20, 200)), first);
+        assertEquals(List.of(new Trade("AAPL", 3, 30, 300)), drainAll(buffer));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void fullBufferDropsTheOldestTrades() {
+        TradeRingBuffer buffer = new TradeRingBuffer(4, OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 7; i++) buffer.offer("AAPL", i, 1, i);
+
+        assertEquals(4, buffer.size());
+        assertEquals(List.of(3.0, 4.0, 5.0, 6.0), prices(drainAll(buffer)));
+        assertEquals(3, buffer.getDroppedCount());
+        assertEquals(7, buffer.getEnqueuedCount());
+    }
+
+    @Test
+    public void droppingOldestRacesSafelyWithTheConsumer() throws Exception {
+        // Every field carries the sequence number, so a torn read shows up as a mismatch
+        TradeRingBuffer buffer = new TradeRingBuffer(16, OverflowPolicy.DROP_OLDEST);
+        int total = 200_000;
+        List<Long> seen = new ArrayList<>();
+        AtomicLong torn = new AtomicLong();
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) buffer.offer("X", i, i, i);
+        });
+        producer.start();
+
+        TradeRingBuffer.TradeConsumer consumer = (symbol, price, volume, timestamp) -> {
+            if (price != timestamp || volume != timestamp) torn.incrementAndGet();
+            seen.add(timestamp);
+        };
+        while (producer.isAlive()) buffer.drain(consumer, 8);
+        producer.join();
+        buffer.drain(consumer, Integer.MAX_VALUE);
+
+        assertEquals(0, torn.get());
+        assertEquals(total, seen.size() + buffer.getDroppedCount());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue("out of order at " + i, seen.get(i) > seen.get(i - 1));
+        }
+        assertEquals(total - 1, (long) seen.get(seen.size() - 1));
+    }
+
+    @Test
+    public void conflationKeepsTheLatestTradePerSymbolInAFrame() {
+        TradeRingBuffer buffer = new TradeRingBuffer(16, OverflowPolicy.CONFLATE);
+        buffer.offer("AAPL", 1, 10, 100);
+        buffer.offer("MSFT", 2, 20, 200);
+        buffer.offer("AAPL", 3, 30, 300);
+        buffer.offer(new String("MSFT"), 4, 40, 400);   // Equal but not interned
+
+        assertEquals(0, buffer.size());
+        buffer.endFrame();
+
+        assertEquals(List.of(new Trade("AAPL", 3, 30, 300), new Trade("MSFT", 4, 40, 400)), drainAll(buffer));
+        assertEquals(2, buffer.getConflatedCount());
+        assertEquals(2, buffer.getEnqueuedCount());
+    }
+
+    @Test
+    public void conflationDoesNotCrossFrames() {
+        TradeRingBuffer buffer = new TradeRingBuffer(16, OverflowPolicy.CONFLATE);
+        buffer.offer("AAPL", 1, 1, 1);
+        buffer.endFrame();
+        buffer.offer("AAPL", 2, 1, 2);
+        buffer.endFrame();
+
+        assertEquals(List.of(1.0, 2.0), prices(drainAll(buffer)));
+        assertEquals(0, buffer.getConflatedCount());
+    }
+
+    @Test
+    public void conflatedFrameWithManySymbolsIsPublishedInChunks() {
+        TradeRingBuffer buffer = new TradeRingBuffer(1024, OverflowPolicy.CONFLATE);
+        for (int i = 0; i < 300; i++) buffer.offer("S" + i, i, 1, i);
+
+        assertEquals(256, buffer.size());   // The staging area filled and was flushed
+        buffer.endFrame();
+
+        List<Trade> trades = drainAll(buffer);
+        assertEquals(300, trades.size());
+        for (int i = 0; i < 300; i++) assertEquals("S" + i, trades.get(i).symbol());
+    }
+
+    @Test
+    public void conflatedFramesStillDropOldestWhenFull() {
+        TradeRingBuffer buffer = new TradeRingBuffer(4, OverflowPolicy.CONFLATE);
+        for (int i = 0; i < 6; i++) buffer.offer("S" + i, i, 1, i);
+        buffer.endFrame();
+
+        assertEquals(List.of(2.0, 3.0, 4.0, 5.0), prices(drainAll(buffer)));
+        assertEquals(2, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void blockingProducerWaitsInsteadOfDropping() throws Exception {
+        TradeRingBuffer buffer = new TradeRingBuffer(2, OverflowPolicy.BLOCK);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) buffer.offer("X", i, 1, i);
+        });
+        producer.start();
+
+        List<Trade> trades = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (trades.size() < 10 && System.nanoTime() < deadline) {
+            buffer.drain((s, p, v, t) -> trades.add(new Trade(s, p, v, t)), 1);
+        }
+        producer.join(1_000);
+
+        assertEquals(10, trades.size());
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void waitingConsumerIsWokenByTheNextTrade() throws Exception {
+        TradeRingBuffer buffer = new TradeRingBuffer(8, OverflowPolicy.DROP_OLDEST);
+        CountDownLatch waiting = new CountDownLatch(1);
+        AtomicLong wokeAfterNanos = new AtomicLong(-1);
+
+        Thread consumer = new Thread(() -> {
+            waiting.countDown();
+            long start = System.nanoTime();
+            buffer.awaitTrades(TimeUnit.SECONDS.toNanos(30));
+            wokeAfterNanos.set(System.nanoTime() - start);
+        });
+        consumer.start();
+        waiting.await();
+        Thread.sleep(50);   // Let it park
+
+        buffer.offer("AAPL", 1, 1, 1);
+        consumer.join(5_000);
+
+        assertTrue("consumer still parked", wokeAfterNanos.get() >= 0);
+        assertTrue(wokeAfterNanos.get() < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    public void awaitReturnsAtOnceWhenTradesAreWaiting() {
+        TradeRingBuffer buffer = new TradeRingBuffer(8, OverflowPolicy.DROP_OLDEST);
+        buffer.offer("AAPL", 1, 1, 1);
+
+        long start = System.nanoTime();
+        buffer.awaitTrades(TimeUnit.SECONDS.toNanos(30));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,130 @@
+package com.minibloomberg.ui;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.minibloomberg.data.HistoricalData;
+
+public class ChartDecimatorTest {
+
+    private static HistoricalData series(double[] closes) {
+        int n = closes.length;
+        long[] timestamps = new long[n];
+        for (int i = 0; i < n; i++) timestamps[i] = i * 86_400L;
+        double[] zeros = new double[n];
+        return new HistoricalData(timestamps, zeros, zeros, zeros, zeros, closes.clone(), zeros);
+    }
+
+    private static double[] randomWalk(Random random, int n) {
+        double[] closes = new double[n];
+        double price = 100;
+        for (int i = 0; i < n; i++) {
+            price += random.nextGaussian();
+            // Occasional spikes and repeated values, which decimation must not lose
+            closes[i] = random.nextInt(50) == 0 ? price * 1.5 : random.nextInt(20) == 0 ? Math.rint(price) : price;
+        }
+        return closes;
+    }
+
+    /**
+     * Checks the output against a scan of every bucket: each keeps its first and last bar
+     * and a bar at its minimum and maximum close.
+     */
+    private static void assertKeepsEveryBucketsShape(double[] closes, int from, int to, int columns, int[] indices) {
+        for (int k = 1; k < indices.length; k++) assertTrue("not ascending", indices[k] > indices[k - 1]);
+
+        int count = to - from;
+        if (count <= 2 * columns) {
+            assertEquals(count, indices.length);
+            return;
+        }
+        assertTrue(indices.length <= 4 * columns);
+
+        for (int col = 0; col < columns; col++) {
+            int start = from + (int) ((long) col * count / columns);
+            int end = from + (int) ((long) (col + 1) * count / columns);
+            if (start >= end) continue;
+
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                min = Math.min(min, closes[i]);
+                max = Math.max(max, closes[i]);
+            }
+
+            boolean first = false, last = false, sawMin = false, sawMax = false;
+            for (int index : indices) {
+                assertTrue(index >= from && index < to);
+                if (index < start || index >= end) continue;
+                first |= index == start;
+                last |= index == end - 1;
+                sawMin |= closes[index] == min;
+                sawMax |= closes[index] == max;
+            }
+            String where = "bucket " + col + " of [" + from + ", " + to + ") over " + columns;
+            assertTrue("first bar missing in " + where, first);
+            assertTrue("last bar missing in " + where, last);
+            assertTrue("minimum missing in " + where, sawMin);
+            assertTrue("maximum missing in " + where, sawMax);
+        }
+    }
+
+    @Test
+    public void decimationKeepsFirstLastMinAndMaxOfEveryBucket() {
+        Random random = new Random(42);
+        for (int n : new int[]{1, 2, 3, 17, 64, 1_000, 4_099}) {
+            double[] closes = randomWalk(random, n);
+            ChartDecimator decimator = new ChartDecimator(series(closes));
+
+            for (int trial = 0; trial < 60; trial++) {
+                int from = random.nextInt(n);
+                int to = from + 1 + random.nextInt(n - from);
+                int columns = 1 + random.nextInt(300);
+                assertKeepsEveryBucketsShape(closes, from, to, columns, decimator.decimate(from, to, columns));
+            }
+        }
+    }
+
+    @Test
+    public void shortRangesReturnEveryBar() {
+        ChartDecimator decimator = new ChartDecimator(series(new double[]{5, 1, 4, 2, 3}));
+        assertArrayEquals(new int[]{1, 2, 3}, decimator.decimate(1, 4, 10));
+        assertArrayEquals(new int[0], decimator.decimate(2, 2, 10));
+    }
+
+    @Test
+    public void replacingTheLastBarMatchesAFreshDecimatorAndDropsCachedResults() {
+        Random random = new Random(7);
+        for (int n : new int[]{2, 3, 64, 65, 1_000, 1_023}) {
+            double[] closes = randomWalk(random, n);
+            ChartDecimator decimator = new ChartDecimator(series(closes));
+            int columns = Math.max(1, n / 16);
+
+            for (int update = 0; update < 20; update++) {
+                int[] before = decimator.decimate(0, n, columns);   // Fills the cache for this key
+
+                // Alternate new extremes with ordinary ticks on the forming bar
+                closes[n - 1] = switch (update % 3) {
+                    case 0 -> 1_000 + update;
+                    case 1 -> -1_000 - update;
+                    default -> closes[n - 2];
+                };
+                HistoricalData next = series(closes);
+                decimator.replaceLastBar(next);
+
+                int[] expected = new ChartDecimator(next).decimate(0, n, columns);
+                int[] actual = decimator.decimate(0, n, columns);
+                assertArrayEquals("n=" + n + " update " + update + " was " + Arrays.toString(before), expected, actual);
+                assertKeepsEveryBucketsShape(closes, 0, n, columns, actual);
+
+                int from = n / 3;
+                assertArrayEquals(new ChartDecimator(next).decimate(from, n, columns), decimator.decimate(from, n, columns));
+            }
+        }
+    }
+}